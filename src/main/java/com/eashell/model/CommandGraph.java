@@ -0,0 +1,360 @@
+package com.eashell.model;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * COMMANDS OF A SCRIPT AS A DEPENDENCY GRAPH
+ *
+ * A command line may start with a step header that names it and lists the
+ * steps it waits for:
+ *
+ *   [web] npm ci --prefix web           no dependencies
+ *   [api] mvn -q package                no dependencies
+ *   [e2e: web, api] npm run e2e         after web and api succeeded
+ *   echo done                           plain line: after the line above
+ *
+ *   web ──┐
+ *         ├──► e2e ──► echo done
+ *   api ──┘
+ *
+ * A plain line only waits for the line above it (it runs even if that one
+ * failed, as a plain script always did), so a script without headers is the
+ * same sequential list as before. Header dependencies must have succeeded.
+ *
+ * Ids are letters, digits, '_', '-' and '.'; "[ -f x ]" is still a shell test.
+ *
+ * A command may end with a cache note - inputs, then outputs, comma separated:
+ *
+ *   [deps] npm ci #cache: package.json, package-lock.json -> node_modules
+ *
+ * The step is then skipped while its inputs are unchanged since its last
+ * successful run and its outputs exist (see StepCache). To the shell the
+ * note is just a comment.
+ */
+public final class CommandGraph {
+    private static final Pattern HEADER = Pattern.compile(
+            "^\\[([\\w.-]+)(?:\\s*:\\s*([\\w.-]+(?:\\s*,\\s*[\\w.-]+)*))?\\s*]\\s*(.*)$");
+    private static final Pattern CACHE_NOTE = Pattern.compile("(?:^|\\s)#cache:(.*)$");
+
+    private final List<Step> steps;
+    private final int[][] dependents;
+    private final int[] order;
+    private final boolean named;
+
+    private CommandGraph(List<Step> steps, boolean named) {
+        this.steps = steps;
+        this.named = named;
+        this.dependents = collectDependents(steps);
+        this.order = topologicalOrder(steps, dependents);
+    }
+
+    /**
+     * @throws IllegalArgumentException on a duplicate or unknown id, a step without
+     *                                  a command or a dependency cycle
+     */
+    public static CommandGraph parse(List<String> commands) {
+        List<Step> steps = new ArrayList<>(commands.size());
+        Map<String, Integer> ids = new HashMap<>();
+        List<String[]> needs = new ArrayList<>(commands.size());
+        boolean named = false;
+
+        for (int i = 0; i < commands.size(); i++) {
+            String line = commands.get(i).trim();
+            Matcher header = HEADER.matcher(line);
+
+            if (header.matches()) {
+                String id = header.group(1);
+                String command = header.group(3).trim();
+                if (command.isEmpty()) {
+                    throw new IllegalArgumentException("Step [" + id + "] has no command");
+                }
+                if (ids.putIfAbsent(id, i) != null) {
+                    throw new IllegalArgumentException("Duplicate step id [" + id + "]");
+                }
+                steps.add(withCacheNote(new Step(i, id, command, true)));
+                needs.add(header.group(2) != null ? header.group(2).split("\\s*,\\s*") : new String[0]);
+                named = true;
+            } else {
+                steps.add(withCacheNote(new Step(i, String.valueOf(i + 1), line, false)));
+                needs.add(null);
+            }
+        }
+
+        for (int i = 0; i < steps.size(); i++) {
+            Step step = steps.get(i);
+            String[] names = needs.get(i);
+
+            if (names == null) {
+                step.dependsOn = i > 0 ? new int[]{i - 1} : new int[0];
+                continue;
+            }
+            step.dependsOn = new int[names.length];
+            for (int n = 0; n < names.length; n++) {
+                Integer dependency = ids.get(names[n]);
+                if (dependency == null) {
+                    throw new IllegalArgumentException(
+                            "Step [" + step.id + "] depends on unknown step [" + names[n] + "]");
+                }
+                step.dependsOn[n] = dependency;
+            }
+        }
+        return new CommandGraph(steps, named);
+    }
+
+    /**
+     * Split "cmd #cache: a, b -> c" into the command and its inputs and outputs.
+     */
+    private static Step withCacheNote(Step step) {
+        Matcher note = CACHE_NOTE.matcher(step.command);
+        if (!note.find()) {
+            return step;
+        }
+        String command = step.command.substring(0, note.start()).trim();
+        if (command.isEmpty()) {
+            throw new IllegalArgumentException("Step [" + step.id + "] has no command");
+        }
+
+        String[] sides = note.group(1).split("->", 2);
+        List<String> inputs = splitPaths(sides[0]);
+        if (inputs.isEmpty()) {
+            throw new IllegalArgumentException("Step [" + step.id + "] has a cache note without inputs");
+        }
+        Step cached = new Step(step.index, step.id, command, step.named);
+        cached.inputs = inputs;
+        cached.outputs = sides.length > 1 ? splitPaths(sides[1]) : List.of();
+        return cached;
+    }
+
+    private static List<String> splitPaths(String text) {
+        List<String> paths = new ArrayList<>();
+        for (String path : text.split(",")) {
+            if (!path.isBlank()) {
+                paths.add(path.trim());
+            }
+        }
+        return paths;
+    }
+
+    public int size() {
+        return steps.size();
+    }
+
+    public Step step(int index) {
+        return steps.get(index);
+    }
+
+    /**
+     * True if any command has a step header - only then are steps run in
+     * parallel and their output labelled.
+     */
+    public boolean hasNamedSteps() {
+        return named;
+    }
+
+    /**
+     * Steps that wait for the given step.
+     */
+    public int[] dependents(int index) {
+        return dependents[index];
+    }
+
+    /**
+     * True if the step must not run: it has a header and one of its
+     * dependencies did not succeed (failed, or was not run itself).
+     *
+     * @param succeeded outcome of every step, read for the step's dependencies only
+     */
+    public boolean isBlocked(int index, boolean[] succeeded) {
+        Step step = steps.get(index);
+        if (!step.named) {
+            return false;
+        }
+        for (int dependency : step.dependsOn) {
+            if (!succeeded[dependency]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Every step after the steps it depends on; ties keep the written order.
+     */
+    public int[] topologicalOrder() {
+        return order.clone();
+    }
+
+    /**
+     * CRITICAL PATH - the chain of dependent steps with the largest total duration,
+     * i.e. the part of the run that parallelism could not shorten.
+     *
+     * @param durations duration of each step (0 for steps that did not run)
+     * @return step indexes from first to last
+     */
+    public int[] criticalPath(long[] durations) {
+        long[] finish = new long[steps.size()]; // Longest chain ending with the step
+        int[] previous = new int[steps.size()];
+        int last = -1;
+
+        for (int index : order) {
+            previous[index] = -1;
+            long start = 0;
+            for (int dependency : steps.get(index).dependsOn) {
+                if (finish[dependency] > start) {
+                    start = finish[dependency];
+                    previous[index] = dependency;
+                }
+            }
+            finish[index] = start + durations[index];
+            if (last < 0 || finish[index] > finish[last]) {
+                last = index;
+            }
+        }
+
+        Deque<Integer> path = new ArrayDeque<>();
+        for (int index = last; index >= 0; index = previous[index]) {
+            path.addFirst(index);
+        }
+        return path.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static int[][] collectDependents(List<Step> steps) {
+        int[] counts = new int[steps.size()];
+        for (Step step : steps) {
+            for (int dependency : step.dependsOn) {
+                counts[dependency]++;
+            }
+        }
+
+        int[][] dependents = new int[steps.size()][];
+        for (int i = 0; i < dependents.length; i++) {
+            dependents[i] = new int[counts[i]];
+            counts[i] = 0;
+        }
+        for (Step step : steps) {
+            for (int dependency : step.dependsOn) {
+                dependents[dependency][counts[dependency]++] = step.index;
+            }
+        }
+        return dependents;
+    }
+
+    /**
+     * Kahn's algorithm, always taking the lowest ready index.
+     */
+    private static int[] topologicalOrder(List<Step> steps, int[][] dependents) {
+        int[] waiting = new int[steps.size()];
+        PriorityQueue<Integer> ready = new PriorityQueue<>();
+        for (Step step : steps) {
+            waiting[step.index] = step.dependsOn.length;
+            if (waiting[step.index] == 0) {
+                ready.add(step.index);
+            }
+        }
+
+        int[] order = new int[steps.size()];
+        int count = 0;
+        while (!ready.isEmpty()) {
+            int index = ready.poll();
+            order[count++] = index;
+            for (int dependent : dependents[index]) {
+                if (--waiting[dependent] == 0) {
+                    ready.add(dependent);
+                }
+            }
+        }
+
+        if (count < order.length) {
+            List<String> cycle = new ArrayList<>();
+            for (Step step : steps) {
+                if (waiting[step.index] > 0) {
+                    cycle.add(step.id);
+                }
+            }
+            throw new IllegalArgumentException("Dependency cycle between steps " + cycle);
+        }
+        return order;
+    }
+
+    /**
+     * One command of the graph.
+     */
+    public static final class Step {
+        private final int index;
+        private final String id;
+        private final String command;
+        private final boolean named;
+        private int[] dependsOn;
+        private List<String> inputs = List.of();  // Cache note, empty = always run
+        private List<String> outputs = List.of();
+
+        private Step(int index, String id, String command, boolean named) {
+            this.index = index;
+            this.id = id;
+            this.command = command;
+            this.named = named;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * Header id, or the 1-based line number for a plain line.
+         */
+        public String getId() {
+            return id;
+        }
+
+        public String getCommand() {
+            return command;
+        }
+
+        /**
+         * True if the step has a header: its dependencies must have succeeded.
+         * A plain line only runs after the line above, whatever its outcome.
+         */
+        public boolean isNamed() {
+            return named;
+        }
+
+        public int[] getDependsOn() {
+            return dependsOn.clone();
+        }
+
+        /**
+         * True if the step has a cache note: it may be skipped while its inputs are unchanged.
+         */
+        public boolean isCached() {
+            return !inputs.isEmpty();
+        }
+
+        /**
+         * Files, directories and globs relative to the working directory.
+         */
+        public List<String> getInputs() {
+            return inputs;
+        }
+
+        /**
+         * Paths the step creates; a missing one makes it run.
+         */
+        public List<String> getOutputs() {
+            return outputs;
+        }
+
+        @Override
+        public String toString() {
+            return "[" + id + "] " + command + " after " + Arrays.toString(dependsOn);
+        }
+    }
+}
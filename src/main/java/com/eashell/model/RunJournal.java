@@ -0,0 +1,280 @@
+package com.eashell.model;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * APPEND-ONLY RUN JOURNAL WITH A COMPACT INDEX
+ *
+ * Every finished run is appended to the journal as one JSON line and gets
+ * a fixed-size entry in a binary index next to it:
+ *
+ *   eashell_runs.jsonl   {"scriptName":"build",...}\n{"scriptName":"test",...}\n ...
+ *   eashell_runs.idx     [hash|offset|length|duration|start] [hash|...] ...   (40 bytes each)
+ *
+ * At startup only the index is read and kept per script in memory
+ * (offsets and durations), so "last N runs of X" reads just N journal
+ * lines and "p95 duration of X" reads no journal line at all.
+ *
+ * The journal is the source of truth. Index entries that point past its end
+ * are dropped, and journal lines that have no index entry (crash between
+ * the two writes) are indexed again on open.
+ *
+ * Thread-safe: runners append, the UI queries.
+ */
+public class RunJournal implements Closeable {
+    private static final Gson GSON = new Gson();
+    private static final int ENTRY_BYTES = 40;
+
+    private final FileChannel journal;
+    private final FileChannel index;
+
+    // Per script: indexed runs in journal order
+    private final Map<Long, ScriptRuns> runs = new HashMap<>();
+
+    private Consumer<String> onAppend = name -> { };
+
+    private RunJournal(FileChannel journal, FileChannel index) {
+        this.journal = journal;
+        this.index = index;
+    }
+
+    /**
+     * Open (or create) a journal and its index, repairing the index if needed.
+     */
+    public static RunJournal open(Path journalFile, Path indexFile) throws IOException {
+        FileChannel journal = FileChannel.open(journalFile,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        FileChannel index = FileChannel.open(indexFile,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        RunJournal runJournal = new RunJournal(journal, index);
+        runJournal.load();
+        return runJournal;
+    }
+
+    private void load() throws IOException {
+        long journalSize = journal.size();
+        long indexedEnd = 0;
+        long validEntries = 0;
+
+        ByteBuffer entries = ByteBuffer.allocate((int) Math.min(index.size(), Integer.MAX_VALUE));
+        readFully(index, entries, 0);
+        entries.flip();
+
+        while (entries.remaining() >= ENTRY_BYTES) {
+            long hash = entries.getLong();
+            long offset = entries.getLong();
+            int length = entries.getInt();
+            long duration = entries.getLong();
+            entries.getLong(); // Start time - kept for time range queries
+            entries.getInt();  // Reserved
+
+            if (offset != indexedEnd || offset + length > journalSize) {
+                break; // Torn or stale tail
+            }
+            runsOf(hash).add(offset, length, duration);
+            indexedEnd = offset + length;
+            validEntries++;
+        }
+        index.truncate(validEntries * ENTRY_BYTES);
+
+        if (indexedEnd < journalSize) {
+            reindexFrom(indexedEnd, journalSize);
+        }
+    }
+
+    /**
+     * Index journal lines written after the last index entry.
+     */
+    private void reindexFrom(long start, long end) throws IOException {
+        ByteBuffer tail = ByteBuffer.allocate((int) (end - start));
+        readFully(journal, tail, start);
+
+        byte[] bytes = tail.array();
+        int lineStart = 0;
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] != '\n') {
+                continue;
+            }
+            int length = i + 1 - lineStart;
+            try {
+                RunRecord record = GSON.fromJson(
+                        new String(bytes, lineStart, length, StandardCharsets.UTF_8), RunRecord.class);
+                if (record != null && record.getScriptName() != null) {
+                    writeEntry(record, start + lineStart, length);
+                }
+            } catch (JsonParseException e) {
+                System.err.println("Skipping damaged run journal line at " + (start + lineStart));
+            }
+            lineStart = i + 1;
+        }
+
+        // An unterminated last line is a torn write - cut it off
+        journal.truncate(start + lineStart);
+    }
+
+    /**
+     * Append a finished run. Called from runner threads.
+     */
+    public void append(RunRecord record) {
+        byte[] line = (GSON.toJson(record) + "\n").getBytes(StandardCharsets.UTF_8);
+
+        synchronized (this) {
+            try {
+                long offset = journal.size();
+                journal.write(ByteBuffer.wrap(line), offset);
+                writeEntry(record, offset, line.length);
+            } catch (IOException e) {
+                System.err.println("Error writing run journal: " + e.getMessage());
+                return;
+            }
+        }
+        onAppend.accept(record.getScriptName());
+    }
+
+    private void writeEntry(RunRecord record, long offset, int length) throws IOException {
+        long hash = hash(record.getScriptName());
+
+        ByteBuffer entry = ByteBuffer.allocate(ENTRY_BYTES);
+        entry.putLong(hash)
+                .putLong(offset)
+                .putInt(length)
+                .putLong(record.getDurationMs())
+                .putLong(record.getStartedAt())
+                .putInt(0)
+                .flip();
+        long position = index.size();
+        while (entry.hasRemaining()) {
+            position += index.write(entry, position);
+        }
+
+        runsOf(hash).add(offset, length, record.getDurationMs());
+    }
+
+    /**
+     * The newest {@code limit} runs of a script, newest first.
+     */
+    public synchronized List<RunRecord> lastRuns(String scriptName, int limit) {
+        ScriptRuns scriptRuns = runs.get(hash(scriptName));
+        List<RunRecord> result = new ArrayList<>();
+        if (scriptRuns == null) {
+            return result;
+        }
+
+        for (int i = scriptRuns.size - 1; i >= 0 && result.size() < limit; i--) {
+            RunRecord record = read(scriptRuns.offsets[i], scriptRuns.lengths[i]);
+            if (record != null && scriptName.equals(record.getScriptName())) {
+                result.add(record);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Duration (ms) that {@code percentile} of the script's runs stayed within,
+     * nearest-rank method; -1 if the script never ran.
+     */
+    public synchronized long durationPercentile(String scriptName, double percentile) {
+        ScriptRuns scriptRuns = runs.get(hash(scriptName));
+        if (scriptRuns == null || scriptRuns.size == 0) {
+            return -1;
+        }
+
+        long[] sorted = Arrays.copyOf(scriptRuns.durations, scriptRuns.size);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile * sorted.length);
+        return sorted[Math.max(0, Math.min(rank, sorted.length) - 1)];
+    }
+
+    public synchronized int runCount(String scriptName) {
+        ScriptRuns scriptRuns = runs.get(hash(scriptName));
+        return scriptRuns == null ? 0 : scriptRuns.size;
+    }
+
+    /**
+     * Called with the script name after every append (on the appending thread).
+     */
+    public void setOnAppend(Consumer<String> onAppend) {
+        this.onAppend = onAppend;
+    }
+
+    private RunRecord read(long offset, int length) {
+        try {
+            ByteBuffer line = ByteBuffer.allocate(length);
+            readFully(journal, line, offset);
+            return GSON.fromJson(new String(line.array(), 0, line.position(), StandardCharsets.UTF_8),
+                    RunRecord.class);
+        } catch (IOException | JsonParseException e) {
+            System.err.println("Error reading run journal: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private ScriptRuns runsOf(long hash) {
+        return runs.computeIfAbsent(hash, h -> new ScriptRuns());
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer target, long position) throws IOException {
+        long start = position - target.position();
+        while (target.hasRemaining()) {
+            if (channel.read(target, start + target.position()) < 0) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * 64-bit FNV-1a of the name - collisions are checked on read.
+     */
+    private static long hash(String name) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : name.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        journal.close();
+        index.close();
+    }
+
+    /**
+     * Indexed runs of one script, in journal order.
+     */
+    private static final class ScriptRuns {
+        long[] offsets = new long[16];
+        int[] lengths = new int[16];
+        long[] durations = new long[16];
+        int size;
+
+        void add(long offset, int length, long duration) {
+            if (size == offsets.length) {
+                offsets = Arrays.copyOf(offsets, size * 2);
+                lengths = Arrays.copyOf(lengths, size * 2);
+                durations = Arrays.copyOf(durations, size * 2);
+            }
+            offsets[size] = offset;
+            lengths[size] = length;
+            durations[size] = duration;
+            size++;
+        }
+    }
+}
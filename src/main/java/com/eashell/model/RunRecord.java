@@ -0,0 +1,94 @@
+package com.eashell.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One run of a script as written to the run journal.
+ * Times are epoch millis, durations come from the monotonic clock.
+ */
+public class RunRecord {
+    public static final String SUCCESS = "SUCCESS";
+    public static final String FAILED = "FAILED";        // A command exited non-zero
+    public static final String TERMINATED = "TERMINATED"; // Stopped by the user
+    public static final String ERROR = "ERROR";           // Could not run a command
+
+    private String scriptName;
+    private long startedAt;
+    private long finishedAt;
+    private long durationMs;
+    private String status;
+    private List<CommandRun> commands = new ArrayList<>();
+
+    public RunRecord(String scriptName, long startedAt) {
+        this.scriptName = scriptName;
+        this.startedAt = startedAt;
+    }
+
+    public void addCommand(CommandRun command) {
+        commands.add(command);
+    }
+
+    public void finish(long finishedAt, long durationMs, String status) {
+        this.finishedAt = finishedAt;
+        this.durationMs = durationMs;
+        this.status = status;
+    }
+
+    public String getScriptName() {
+        return scriptName;
+    }
+
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    public long getFinishedAt() {
+        return finishedAt;
+    }
+
+    public long getDurationMs() {
+        return durationMs;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public List<CommandRun> getCommands() {
+        return commands;
+    }
+
+    /**
+     * One command of a run.
+     */
+    public static class CommandRun {
+        private String command;
+        private long startedAt;
+        private long durationMs;
+        private int exitCode;
+
+        public CommandRun(String command, long startedAt, long durationMs, int exitCode) {
+            this.command = command;
+            this.startedAt = startedAt;
+            this.durationMs = durationMs;
+            this.exitCode = exitCode;
+        }
+
+        public String getCommand() {
+            return command;
+        }
+
+        public long getStartedAt() {
+            return startedAt;
+        }
+
+        public long getDurationMs() {
+            return durationMs;
+        }
+
+        public int getExitCode() {
+            return exitCode;
+        }
+    }
+}
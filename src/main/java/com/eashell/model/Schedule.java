@@ -0,0 +1,230 @@
+package com.eashell.model;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * WHEN A SCRIPT RUNS BY ITSELF
+ *
+ * Either a fixed interval or a cron line (minute hour day month weekday):
+ *
+ *   every 15m          at :00, :15, :30, :45
+ *   every 2h           at 00:00, 02:00, 04:00 ...
+ *   0 3 * * *          every night at 03:00
+ *   0,30 8-18 * * 1-5  every half hour from 8:00 to 18:30, Monday to Friday
+ *   @hourly, @daily, @weekly
+ *
+ * Intervals are counted from local midnight rather than from the moment the
+ * schedule was saved, so they need no state and a restart of the app keeps
+ * the same times. One that does not divide a day starts over at midnight:
+ * "every 7m" runs at 23:55 and then at 00:00. Whole days run at midnight,
+ * counted from the day the next time is taken ("every 2d" run on Monday
+ * runs again on Wednesday; a restart of the app starts the count again).
+ *
+ * Cron fields take numbers, '*', ranges, steps and lists; weekday 0 and 7
+ * are Sunday. As in cron, when both day and weekday
+ * are restricted, a day matching either one counts.
+ *
+ * Times are wall-clock times in the given zone: a time skipped by a
+ * daylight saving change runs when the clock has moved on, a repeated one
+ * runs once.
+ */
+public final class Schedule {
+    private static final Pattern INTERVAL = Pattern.compile("every\\s+(\\d+)\\s*([smhd])", Pattern.CASE_INSENSITIVE);
+    private static final Map<String, String> ALIASES = Map.of(
+            "@hourly", "0 * * * *",
+            "@daily", "0 0 * * *",
+            "@midnight", "0 0 * * *",
+            "@weekly", "0 0 * * 0");
+    private static final long DAY_MS = 86_400_000L;
+    private static final int SEARCH_YEARS = 8; // Long enough for any day that exists, e.g. Feb 29 on a Monday
+
+    private final String spec;
+    private final long intervalMs; // > 0 for "every ...", 0 for a cron line
+
+    // Cron fields, bit n set = value n allowed
+    private final long minutes;
+    private final long hours;
+    private final long days;
+    private final long months;
+    private final long weekdays; // Bit 0 = Sunday
+    private final boolean anyDay;
+    private final boolean anyWeekday;
+
+    private Schedule(String spec, long intervalMs, long minutes, long hours, long days, long months, long weekdays,
+                     boolean anyDay, boolean anyWeekday) {
+        this.spec = spec;
+        this.intervalMs = intervalMs;
+        this.minutes = minutes;
+        this.hours = hours;
+        this.days = days;
+        this.months = months;
+        this.weekdays = weekdays;
+        this.anyDay = anyDay;
+        this.anyWeekday = anyWeekday;
+    }
+
+    /**
+     * @throws IllegalArgumentException on a malformed schedule or one that never fires
+     */
+    public static Schedule parse(String spec) {
+        String text = spec.trim();
+        Matcher interval = INTERVAL.matcher(text);
+        if (interval.matches()) {
+            long amount = Long.parseLong(interval.group(1));
+            long unit = switch (interval.group(2).toLowerCase(Locale.ROOT)) {
+                case "s" -> 1_000L;
+                case "m" -> 60_000L;
+                case "h" -> 3_600_000L;
+                default -> DAY_MS;
+            };
+            if (amount <= 0 || amount > 366 * DAY_MS / unit) {
+                throw new IllegalArgumentException("Interval out of range: " + text);
+            }
+            if (amount * unit > DAY_MS && amount * unit % DAY_MS != 0) {
+                throw new IllegalArgumentException("Intervals over a day must be whole days: " + text);
+            }
+            return new Schedule(text, amount * unit, 0, 0, 0, 0, 0, true, true);
+        }
+
+        String[] fields = ALIASES.getOrDefault(text.toLowerCase(Locale.ROOT), text).split("\\s+");
+        if (fields.length != 5) {
+            throw new IllegalArgumentException("Not a schedule: \"" + text
+                    + "\" (use \"every 15m\" or a cron line: minute hour day month weekday)");
+        }
+        long weekdays = field(fields[4], 0, 7, "weekday");
+        if ((weekdays & 1L << 7) != 0) {
+            weekdays = weekdays & ~(1L << 7) | 1; // 7 is Sunday too
+        }
+        Schedule schedule = new Schedule(text, 0, field(fields[0], 0, 59, "minute"), field(fields[1], 0, 23, "hour"),
+                field(fields[2], 1, 31, "day"), field(fields[3], 1, 12, "month"), weekdays,
+                fields[2].equals("*"), fields[4].equals("*"));
+        if (schedule.next(0, ZoneId.of("UTC")) < 0) {
+            throw new IllegalArgumentException("Schedule never fires: " + text);
+        }
+        return schedule;
+    }
+
+    /**
+     * First time the schedule fires strictly after the given time.
+     *
+     * @return epoch millis, -1 if it never fires
+     */
+    public long next(long afterMillis, ZoneId zone) {
+        if (intervalMs > 0) {
+            // Counted from the start of the day, so every day has the same times
+            LocalDate today = LocalDateTime.ofInstant(Instant.ofEpochMilli(afterMillis), zone).toLocalDate();
+            if (intervalMs % DAY_MS == 0) {
+                return today.plusDays(intervalMs / DAY_MS).atStartOfDay(zone).toInstant().toEpochMilli();
+            }
+            long midnight = today.atStartOfDay(zone).toInstant().toEpochMilli();
+            long next = midnight + (Math.floorDiv(afterMillis - midnight, intervalMs) + 1) * intervalMs;
+            long tomorrow = today.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+            return Math.min(next, tomorrow);
+        }
+
+        LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochMilli(afterMillis), zone)
+                .truncatedTo(ChronoUnit.MINUTES).plusMinutes(1);
+        LocalDateTime end = time.plusYears(SEARCH_YEARS);
+        // Skip whole months, days and hours that cannot match before looking at minutes
+        while (time.isBefore(end)) {
+            if (!has(months, time.getMonthValue())) {
+                time = time.toLocalDate().withDayOfMonth(1).plusMonths(1).atStartOfDay();
+            } else if (!matchesDay(time.toLocalDate())) {
+                time = time.toLocalDate().plusDays(1).atStartOfDay();
+            } else if (!has(hours, time.getHour())) {
+                time = time.truncatedTo(ChronoUnit.HOURS).plusHours(1);
+            } else if (!has(minutes, time.getMinute())) {
+                time = time.plusMinutes(1);
+            } else {
+                long millis = time.atZone(zone).toInstant().toEpochMilli();
+                if (millis > afterMillis) {
+                    return millis;
+                }
+                time = time.plusMinutes(1); // Repeated hour of a daylight saving change - already fired
+            }
+        }
+        return -1;
+    }
+
+    private boolean matchesDay(LocalDate date) {
+        boolean day = has(days, date.getDayOfMonth());
+        boolean weekday = has(weekdays, date.getDayOfWeek().getValue() % 7);
+        return anyDay || anyWeekday ? day && weekday : day || weekday;
+    }
+
+    private static boolean has(long mask, int value) {
+        return (mask & 1L << value) != 0;
+    }
+
+    /**
+     * One cron field: "*", "5", "1-5", "8-18/2", "5/15", "0,30" ...
+     */
+    private static long field(String text, int min, int max, String name) {
+        long mask = 0;
+        for (String part : text.split(",")) {
+            String range = part;
+            int step = 1;
+            int slash = part.indexOf('/');
+            if (slash >= 0) {
+                step = number(part.substring(slash + 1), 1, max, name);
+                range = part.substring(0, slash);
+            }
+
+            int from;
+            int to;
+            int dash = range.indexOf('-');
+            if (range.equals("*")) {
+                from = min;
+                to = max;
+            } else if (dash > 0) {
+                from = number(range.substring(0, dash), min, max, name);
+                to = number(range.substring(dash + 1), min, max, name);
+            } else {
+                from = number(range, min, max, name);
+                to = slash >= 0 ? max : from; // "5/15" = from 5 on, every 15
+            }
+            if (from > to) {
+                throw new IllegalArgumentException("Empty " + name + " range: " + part);
+            }
+            for (int value = from; value <= to; value += step) {
+                mask |= 1L << value;
+            }
+        }
+        return mask;
+    }
+
+    private static int number(String text, int min, int max, String name) {
+        try {
+            int value = Integer.parseInt(text);
+            if (value >= min && value <= max) {
+                return value;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("Bad " + name + " \"" + text + "\" (" + min + "-" + max + ")");
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Schedule && spec.equals(((Schedule) o).spec);
+    }
+
+    @Override
+    public int hashCode() {
+        return spec.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return spec;
+    }
+}
@@ -4,9 +4,22 @@ import java.util.List;
 import java.util.Objects;
 
 public class ScriptEntry {
+    public static final int PRIORITY_HIGH = 1;
+    public static final int PRIORITY_NORMAL = 0;
+    public static final int PRIORITY_LOW = -1;
+
     private String name;
     private String workingDir;
     private List<String> commands;
+    private String charset; // Output charset, null = platform default
+    private boolean sharedSession; // Run all commands in one shell (keeps cd / env between them)
+    private int maxParallel; // Steps of the command graph running at once, 0 = default
+    private boolean heavy;   // CPU-bound (e.g. a build): waits for a free slot in the RunScheduler
+    private int priority;    // Order in the RunScheduler queue, higher first (PRIORITY_*)
+    private boolean watch;             // Run again when files in workingDir change
+    private List<String> watchInclude; // Globs of files that count as a change, empty/null = all
+    private List<String> watchExclude; // Globs to ignore, empty/null = Constants.WATCH_DEFAULT_EXCLUDES
+    private String schedule;           // Runs by itself: "every 15m" or a cron line (see Schedule), null = never
 
     public ScriptEntry(String name, String workingDir, List<String> commands) {
         this.name = name;
@@ -38,6 +51,78 @@ public class ScriptEntry {
         this.commands = commands;
     }
 
+    public String getCharset() {
+        return charset;
+    }
+
+    public void setCharset(String charset) {
+        this.charset = charset;
+    }
+
+    public boolean isSharedSession() {
+        return sharedSession;
+    }
+
+    public void setSharedSession(boolean sharedSession) {
+        this.sharedSession = sharedSession;
+    }
+
+    public int getMaxParallel() {
+        return maxParallel;
+    }
+
+    public void setMaxParallel(int maxParallel) {
+        this.maxParallel = maxParallel;
+    }
+
+    public boolean isHeavy() {
+        return heavy;
+    }
+
+    public void setHeavy(boolean heavy) {
+        this.heavy = heavy;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    public void setPriority(int priority) {
+        this.priority = priority;
+    }
+
+    public boolean isWatch() {
+        return watch;
+    }
+
+    public void setWatch(boolean watch) {
+        this.watch = watch;
+    }
+
+    public List<String> getWatchInclude() {
+        return watchInclude;
+    }
+
+    public void setWatchInclude(List<String> watchInclude) {
+        this.watchInclude = watchInclude;
+    }
+
+    public List<String> getWatchExclude() {
+        return watchExclude;
+    }
+
+    public void setWatchExclude(List<String> watchExclude) {
+        this.watchExclude = watchExclude;
+    }
+
+    public String getSchedule() {
+        return schedule;
+    }
+
+    public void setSchedule(String schedule) {
+        this.schedule = schedule;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -57,6 +142,15 @@ public class ScriptEntry {
                 "name='" + name + '\'' +
                 ", workingDir='" + workingDir + '\'' +
                 ", commands=" + commands +
+                ", charset='" + charset + '\'' +
+                ", sharedSession=" + sharedSession +
+                ", maxParallel=" + maxParallel +
+                ", heavy=" + heavy +
+                ", priority=" + priority +
+                ", watch=" + watch +
+                ", watchInclude=" + watchInclude +
+                ", watchExclude=" + watchExclude +
+                ", schedule='" + schedule + '\'' +
                 '}';
     }
 }
\ No newline at end of file
@@ -0,0 +1,76 @@
+package com.eashell.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A named set of scripts that are started together (e.g. DB, API, workers, frontend).
+ * Members are referenced by script name, in start order.
+ */
+public class ScriptGroup {
+    private String name;
+    private List<String> scripts;
+    private int maxConcurrency; // Members running at once, 0 = no limit
+    private long startDelayMs;  // 0 = all at once, otherwise one by one in list order, this far apart
+
+    public ScriptGroup(String name, List<String> scripts) {
+        this.name = name;
+        this.scripts = scripts;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public List<String> getScripts() {
+        return scripts != null ? scripts : new ArrayList<>();
+    }
+
+    public void setScripts(List<String> scripts) {
+        this.scripts = scripts;
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public void setMaxConcurrency(int maxConcurrency) {
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    public long getStartDelayMs() {
+        return startDelayMs;
+    }
+
+    public void setStartDelayMs(long startDelayMs) {
+        this.startDelayMs = startDelayMs;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ScriptGroup that = (ScriptGroup) o;
+        return Objects.equals(name, that.name);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name);
+    }
+
+    @Override
+    public String toString() {
+        return "ScriptGroup{" +
+                "name='" + name + '\'' +
+                ", scripts=" + scripts +
+                ", maxConcurrency=" + maxConcurrency +
+                ", startDelayMs=" + startDelayMs +
+                '}';
+    }
+}
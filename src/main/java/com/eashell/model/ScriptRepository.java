@@ -15,10 +15,13 @@ import java.util.List;
 public class ScriptRepository {
     private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
     private final List<ScriptEntry> entries;
+    private final List<ScriptGroup> groups; // Kept in their own file - the script file stays a plain list
 
     public ScriptRepository() {
         this.entries = new ArrayList<>();
+        this.groups = new ArrayList<>();
         loadEntries();
+        loadGroups();
     }
 
     public List<ScriptEntry> getAll() {
@@ -35,12 +38,14 @@ public class ScriptRepository {
         if (index >= 0) {
             entries.set(index, newEntry);
             save();
+            renameInGroups(oldEntry.getName(), newEntry.getName());
         }
     }
 
     public void remove(ScriptEntry entry) {
         entries.remove(entry);
         save();
+        renameInGroups(entry.getName(), null);
     }
 
     public ScriptEntry findByName(String name) {
@@ -50,6 +55,70 @@ public class ScriptRepository {
                 .orElse(null);
     }
 
+    public List<ScriptGroup> getGroups() {
+        return new ArrayList<>(groups);
+    }
+
+    public void addGroup(ScriptGroup group) {
+        groups.add(group);
+        saveGroups();
+    }
+
+    public void updateGroup(ScriptGroup oldGroup, ScriptGroup newGroup) {
+        int index = groups.indexOf(oldGroup);
+        if (index >= 0) {
+            groups.set(index, newGroup);
+            saveGroups();
+        }
+    }
+
+    public void removeGroup(ScriptGroup group) {
+        groups.remove(group);
+        saveGroups();
+    }
+
+    /**
+     * Members of the group that still exist, in start order.
+     */
+    public List<ScriptEntry> membersOf(ScriptGroup group) {
+        List<ScriptEntry> members = new ArrayList<>();
+        for (String name : group.getScripts()) {
+            ScriptEntry entry = findByName(name);
+            if (entry != null) {
+                members.add(entry);
+            }
+        }
+        return members;
+    }
+
+    /**
+     * Keep group members pointing at a renamed script (newName null = deleted).
+     */
+    private void renameInGroups(String oldName, String newName) {
+        if (oldName.equals(newName)) {
+            return;
+        }
+
+        boolean changed = false;
+        for (ScriptGroup group : groups) {
+            List<String> scripts = new ArrayList<>(group.getScripts());
+            int index = scripts.indexOf(oldName);
+            if (index < 0) {
+                continue;
+            }
+            if (newName != null) {
+                scripts.set(index, newName);
+            } else {
+                scripts.remove(index);
+            }
+            group.setScripts(scripts);
+            changed = true;
+        }
+        if (changed) {
+            saveGroups();
+        }
+    }
+
     private void save() {
         try (FileWriter writer = new FileWriter(Constants.DATA_FILE)) {
             GSON.toJson(entries, writer);
@@ -74,4 +143,29 @@ public class ScriptRepository {
             e.printStackTrace();
         }
     }
-}
\ No newline at end of file
+
+    private void saveGroups() {
+        try (FileWriter writer = new FileWriter(Constants.GROUPS_FILE)) {
+            GSON.toJson(groups, writer);
+        } catch (IOException e) {
+            System.err.println("Error saving groups: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    private void loadGroups() {
+        try {
+            if (Files.exists(Paths.get(Constants.GROUPS_FILE))) {
+                String json = new String(Files.readAllBytes(Paths.get(Constants.GROUPS_FILE)));
+                List<ScriptGroup> loaded = GSON.fromJson(json, new TypeToken<List<ScriptGroup>>(){}.getType());
+                if (loaded != null) {
+                    groups.clear();
+                    groups.addAll(loaded);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error loading groups: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+}
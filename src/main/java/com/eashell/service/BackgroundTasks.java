@@ -0,0 +1,31 @@
+package com.eashell.service;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * SHARED POOL FOR WORK THAT MUST NOT RUN ON THE JAVAFX THREAD
+ *
+ * Searches, filter rescans and exports of run output. Threads are daemons
+ * with low priority, so this work never keeps the app alive and yields
+ * to the runners and the UI.
+ */
+public final class BackgroundTasks {
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(task -> {
+        Thread thread = new Thread(task, "eashell-background-" + THREAD_COUNT.incrementAndGet());
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+
+    private BackgroundTasks() {
+    }
+
+    public static Future<?> submit(Runnable task) {
+        return EXECUTOR.submit(task);
+    }
+}
@@ -0,0 +1,253 @@
+package com.eashell.service;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * WATCHES A SCRIPT'S WORKING DIRECTORY FOR CHANGES
+ *
+ * One thread per watched script, mostly parked in the WatchService:
+ *
+ *   events ──► excluded? ──► included? ──► quiet for debounceMs? ──► onChange
+ *                 │ yes          │ no          │ more events: wait again
+ *                 ▼              ▼             ▼
+ *               ignore         ignore        (one restart per burst)
+ *
+ * A burst - a git checkout, a build writing hundreds of files, an editor
+ * saving through a temp file - ends in one onChange, debounceMs after its
+ * last event.
+ *
+ * WatchService only watches single directories, so every directory of the
+ * tree is registered. That happens incrementally: the root first, then the
+ * subdirectories breadth-first, a batch at a time between event checks, so
+ * a large tree is watched from the first moment and is never walked in one
+ * blocking pass. Excluded directories (node_modules, .git ...) are not
+ * entered at all; directories created later are registered as they appear.
+ * Files may land in a new directory before it is registered (a checkout,
+ * "mkdir -p a/b && cp x.js a/b"), so the entries a new directory already
+ * has when it is registered count as changes too.
+ *
+ * Globs: a pattern without "/" matches a file or directory name at any
+ * depth ("*.java", "node_modules"), one with "/" the path relative to the
+ * root ("src/main/*.ts", "build/**").
+ */
+public class FileWatcher implements AutoCloseable {
+    private static final int REGISTER_BATCH = 64; // Directories registered between event checks
+
+    private final Path root;
+    private final List<PathMatcher> nameIncludes = new ArrayList<>();
+    private final List<PathMatcher> pathIncludes = new ArrayList<>();
+    private final List<PathMatcher> nameExcludes = new ArrayList<>();
+    private final List<PathMatcher> pathExcludes = new ArrayList<>();
+    private final long debounceNanos;
+    private final Runnable onChange;
+
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> directories = new HashMap<>(); // Watcher thread only
+    private final Deque<Path> toRegister = new ArrayDeque<>();     // Watcher thread only
+    private final Set<Path> created = new HashSet<>();             // Queued directories that appeared while watching
+
+    /**
+     * @param include globs of files that trigger a change, empty = all files
+     * @param exclude globs of files and directories to ignore
+     * @param onChange called on the watcher thread once per burst of changes
+     */
+    public FileWatcher(Path root, List<String> include, List<String> exclude, long debounceMs,
+                       Runnable onChange) throws IOException {
+        this.root = root.toAbsolutePath().normalize();
+        this.debounceNanos = TimeUnit.MILLISECONDS.toNanos(debounceMs);
+        this.onChange = onChange;
+
+        FileSystem fs = this.root.getFileSystem();
+        compile(fs, include, nameIncludes, pathIncludes);
+        compile(fs, exclude, nameExcludes, pathExcludes);
+
+        if (!Files.isDirectory(this.root)) {
+            throw new IOException("Not a directory: " + this.root);
+        }
+        this.watchService = fs.newWatchService();
+        toRegister.add(this.root);
+    }
+
+    private static void compile(FileSystem fs, List<String> globs, List<PathMatcher> byName,
+                                List<PathMatcher> byPath) {
+        if (globs == null) {
+            return;
+        }
+        for (String glob : globs) {
+            String pattern = glob.trim();
+            if (pattern.endsWith("/")) {
+                pattern = pattern.substring(0, pattern.length() - 1); // "build/" = the directory "build"
+            }
+            if (pattern.isEmpty()) {
+                continue;
+            }
+            (pattern.contains("/") ? byPath : byName).add(fs.getPathMatcher("glob:" + pattern));
+        }
+    }
+
+    /**
+     * Start watching on a daemon thread.
+     */
+    public void start(String name) {
+        Thread thread = new Thread(this::watch, "eashell-watch-" + name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void close() {
+        try {
+            watchService.close(); // Wakes the watcher thread, which then ends
+        } catch (IOException e) {
+            System.err.println("Unable to close file watcher: " + e.getMessage());
+        }
+    }
+
+    private void watch() {
+        long quietSince = -1; // Time of the last relevant event, -1 = nothing pending
+        try {
+            while (true) {
+                if (registerBatch()) {
+                    quietSince = System.nanoTime();
+                }
+
+                WatchKey key;
+                if (!toRegister.isEmpty()) {
+                    key = watchService.poll(); // Keep registering, just look for events
+                } else if (quietSince >= 0) {
+                    long wait = quietSince + debounceNanos - System.nanoTime();
+                    key = wait > 0 ? watchService.poll(wait, TimeUnit.NANOSECONDS) : null;
+                } else {
+                    key = watchService.take();
+                }
+
+                if (key != null && handle(key)) {
+                    quietSince = System.nanoTime();
+                }
+                if (quietSince >= 0 && System.nanoTime() - quietSince >= debounceNanos) {
+                    quietSince = -1;
+                    onChange.run();
+                }
+            }
+        } catch (ClosedWatchServiceException e) {
+            // Closed - stop watching
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Register the next directories of the tree and queue their subdirectories.
+     *
+     * @return true if a directory created while watching already held an included file
+     */
+    private boolean registerBatch() {
+        boolean changed = false;
+        for (int i = 0; i < REGISTER_BATCH && !toRegister.isEmpty(); i++) {
+            Path dir = toRegister.poll();
+            boolean isNew = created.remove(dir);
+            try {
+                WatchKey key = dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+                directories.put(key, dir);
+                try (DirectoryStream<Path> children = Files.newDirectoryStream(dir)) {
+                    for (Path child : children) {
+                        if (isExcluded(child)) {
+                            continue;
+                        }
+                        if (Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS)) {
+                            toRegister.add(child);
+                            if (isNew) {
+                                created.add(child); // Its files were written unwatched too
+                            }
+                        } else if (isNew && isIncluded(child)) {
+                            changed = true; // Written before the directory was watched
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                // Deleted meanwhile or unreadable - nothing to watch there
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * @return true if one of the key's events is a relevant change
+     */
+    private boolean handle(WatchKey key) {
+        Path dir = directories.get(key);
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                changed = true; // Events were lost - assume something relevant was among them
+                continue;
+            }
+            if (dir == null) {
+                continue;
+            }
+
+            Path path = dir.resolve((Path) event.context());
+            if (isExcluded(path)) {
+                continue;
+            }
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE
+                    && Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+                toRegister.add(path); // New directory, e.g. from a checkout - watch it too
+                created.add(path);
+            }
+            changed |= isIncluded(path);
+        }
+        if (!key.reset()) {
+            directories.remove(key); // Directory is gone
+        }
+        return changed;
+    }
+
+    private boolean isExcluded(Path path) {
+        Path relative = root.relativize(path);
+        for (int i = 1; i <= relative.getNameCount(); i++) {
+            // Excluded itself, or below an excluded directory
+            if (matchesAny(nameExcludes, relative.getName(i - 1)) || matchesAny(pathExcludes, relative.subpath(0, i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isIncluded(Path path) {
+        if (nameIncludes.isEmpty() && pathIncludes.isEmpty()) {
+            return true;
+        }
+        return matchesAny(nameIncludes, path.getFileName()) || matchesAny(pathIncludes, root.relativize(path));
+    }
+
+    private static boolean matchesAny(List<PathMatcher> matchers, Path path) {
+        for (PathMatcher matcher : matchers) {
+            if (matcher.matches(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,131 @@
+package com.eashell.service;
+
+import com.eashell.model.ScriptEntry;
+import com.eashell.model.ScriptGroup;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * STARTS ALL MEMBERS OF A SCRIPT GROUP
+ *
+ * Runs as one task on the runner executor. Each member takes a permit before
+ * it is started and gives it back when its run is over, so at most
+ * maxConcurrency members run at once; the rest start as others finish.
+ *
+ *   members ──permit──► start (UI thread) ──► runner ──finished──┐
+ *              ▲                                                 │
+ *              └──────────────────── permit back ◄───────────────┘
+ *
+ * Without a start delay every member that gets a permit is handed to the
+ * UI thread right away, so all tabs are created in one go and the runners
+ * spawn their processes in parallel. With a delay the members start one by
+ * one in list order, that far apart.
+ */
+public class GroupLauncher implements Runnable {
+
+    /**
+     * Starts one script (on the UI thread).
+     */
+    public interface Starter {
+        /**
+         * @param onFinished to call exactly once when the run is over
+         * @return false if the script was not started (e.g. it is already running)
+         */
+        boolean start(ScriptEntry entry, Runnable onFinished);
+    }
+
+    private final ScriptGroup group;
+    private final List<ScriptEntry> members;
+    private final Executor uiThread;
+    private final Starter starter;
+    private final Consumer<String> onProgress; // "3/6 started", called on the UI thread
+
+    private final Semaphore permits;
+    private final CountDownLatch cancelled = new CountDownLatch(1);
+    private int started; // UI thread only
+    private int skipped;
+
+    public GroupLauncher(ScriptGroup group, List<ScriptEntry> members, Executor uiThread,
+                         Starter starter, Consumer<String> onProgress) {
+        this.group = group;
+        this.members = members;
+        this.uiThread = uiThread;
+        this.starter = starter;
+        this.onProgress = onProgress;
+        this.permits = new Semaphore(group.getMaxConcurrency() > 0
+                ? group.getMaxConcurrency() : Math.max(1, members.size()));
+    }
+
+    @Override
+    public void run() {
+        try {
+            for (int i = 0; i < members.size() && !isCancelled(); i++) {
+                permits.acquire();
+                if (i > 0 && group.getStartDelayMs() > 0
+                        && cancelled.await(group.getStartDelayMs(), TimeUnit.MILLISECONDS)) {
+                    break;
+                }
+                if (isCancelled()) {
+                    break;
+                }
+
+                ScriptEntry entry = members.get(i);
+                uiThread.execute(() -> startMember(entry, new Permit(permits)));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void startMember(ScriptEntry entry, Permit permit) {
+        if (!isCancelled() && starter.start(entry, permit::release)) {
+            started++;
+        } else {
+            skipped++;
+            permit.release();
+        }
+        onProgress.accept(skipped == 0
+                ? started + "/" + members.size() + " started"
+                : started + "/" + members.size() + " started, " + skipped + " skipped");
+    }
+
+    /**
+     * Stop starting members. Members already running are left alone.
+     */
+    public void cancel() {
+        cancelled.countDown();
+        permits.release(members.size()); // Wakes the launcher if it waits for a permit
+    }
+
+    public boolean isCancelled() {
+        return cancelled.getCount() == 0;
+    }
+
+    public ScriptGroup getGroup() {
+        return group;
+    }
+
+    /**
+     * One member's permit - released at most once, whoever calls first.
+     */
+    private static final class Permit {
+        private final Semaphore permits;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        Permit(Semaphore permits) {
+            this.permits = permits;
+        }
+
+        void release() {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        }
+    }
+}
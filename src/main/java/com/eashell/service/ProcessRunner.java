@@ -1,162 +1,1378 @@
 package com.eashell.service;
 
+import com.eashell.model.CommandGraph;
+import com.eashell.model.RunJournal;
+import com.eashell.model.RunRecord;
 import com.eashell.model.ScriptEntry;
+import com.eashell.service.output.AnsiParser;
+import com.eashell.service.output.FilterStage;
+import com.eashell.service.output.FloodMonitor;
+import com.eashell.service.output.OutputDecoder;
+import com.eashell.service.output.OutputRing;
+import com.eashell.service.output.OutputSource;
+import com.eashell.service.output.ScrollbackStore;
+import com.eashell.service.output.SentinelScanner;
+import com.eashell.ui.components.ConsoleView;
 import com.eashell.util.Constants;
+import com.eashell.util.Formats;
 import javafx.application.Platform;
 import javafx.scene.control.Tab;
-import javafx.scene.control.TextArea;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+
+public class ProcessRunner implements Runnable, OutputSource {
+    private static final byte[] LINE_BREAK = {'\n'};
+    private static final char[] LINE_BREAK_CHARS = {'\n'};
 
-public class ProcessRunner implements Runnable {
     private final ScriptEntry entry;
-    private TextArea outputArea;
+    private ConsoleView console;
     private Tab tab;
-    private Process process;
+    private final Set<Process> processes = ConcurrentHashMap.newKeySet(); // Commands running now
+    private RunJournal journal; // Where the finished run is recorded, null = not recorded
+    private StepCache stepCache; // Skips steps with a cache note whose inputs are unchanged, may be null
+    private Runnable onFinished; // Called on the runner thread once the run is over, may be null
+    private Runnable onStop;     // Called when stopped before the run began (still queued), may be null
     private volatile boolean running = true;
-    private final StringBuilder outputBuffer = new StringBuilder();
-    private long lastUIUpdate = 0;
+    private volatile boolean stoppedByUser;
+    private volatile ProcessTree.Result stopResult; // What stop() killed, null = nothing yet
+    private final CountDownLatch stopDone = new CountDownLatch(1); // stop() has finished killing
+    private volatile boolean started; // run() was entered (false while waiting in the RunScheduler queue)
+    private final CompletableFuture<Void> ended = new CompletableFuture<>(); // run() is over, last output written
+
+    // Capture side -> UI handoff. Only one thread produces at a time: the runner thread
+    // while no command runs, otherwise whoever holds the CaptureGate (readers, step threads).
+    private final OutputRing outputRing =
+            new OutputRing(Constants.OUTPUT_RING_SLOTS, Constants.READER_BUFFER_SIZE);
+    private int consumedInChunk; // Consumer side: chars of the head chunk already drained
+    private ScrollbackStore.Reader syncReader; // Consumer side: reads the partial line on SYNC
+    private long droppedLine = -1;             // Consumer side: file position after the last
+    private long droppedStart;                 // chunk dropped while paused (-1 = none)
+    private long droppedEnd;
+    private boolean droppedAligned = true;     // False if that chunk was a slice of a larger one
+    private boolean realigning;                // Resumed, still dropping up to a chunk boundary
+    private long lastFloodStatusAt;            // Consumer side: summary refresh throttle
+
+    // Switches the console to a summary while output comes faster than it can be shown
+    private final FloodMonitor flood = new FloodMonitor();
+
+    private final Charset charset;            // Charset the commands print in
+    private final ScrollbackStore scrollback; // Full output history on disk, null if unavailable
+
+    // Producer side: stdout and stderr of every running command, merged in the order they
+    // were read, and the runner's own markers
+    private final CaptureStream markers = new CaptureStream(false, -1, null);
+    private CaptureStream lastStream = markers; // Stream of the last published chunk
+    private boolean atLineStart = true;        // Merged output ends with a newline (or is empty)
 
-    public ProcessRunner(ScriptEntry entry, TextArea outputArea, Tab tab) {
+    // Producer side: matches completed lines against the tab's grep filter (null without scrollback)
+    private final FilterStage filterStage;
+
+    public ProcessRunner(ScriptEntry entry, ConsoleView console, Tab tab) {
         this.entry = entry;
-        this.outputArea = outputArea;
+        this.console = console;
         this.tab = tab;
+        this.charset = resolveCharset(entry.getCharset());
+        this.scrollback = openScrollback(charset);
+        this.filterStage = scrollback != null ? new FilterStage(scrollback) : null;
+    }
+
+    /**
+     * Charset configured on the script, or the platform default
+     * (what InputStreamReader used before) when missing or unusable.
+     */
+    private static Charset resolveCharset(String name) {
+        if (name == null || name.isBlank()) {
+            return Charset.defaultCharset();
+        }
+        try {
+            Charset charset = Charset.forName(name.trim());
+            if (OutputDecoder.isAsciiCompatible(charset)) {
+                return charset;
+            }
+            System.err.println("Charset is not ASCII compatible, using default: " + name);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Unknown charset, using default: " + name);
+        }
+        return Charset.defaultCharset();
+    }
+
+    private static ScrollbackStore openScrollback(Charset charset) {
+        try {
+            return ScrollbackStore.create(charset);
+        } catch (IOException e) {
+            System.err.println("Unable to create scrollback file: " + e.getMessage());
+            return null;
+        }
     }
 
     @Override
     public void run() {
+        started = true;
+        RunRecord record = new RunRecord(entry.getName(), System.currentTimeMillis());
+        long runStart = System.nanoTime();
+        String status = RunRecord.SUCCESS;
+
         try {
-            for (String command : entry.getCommands()) {
-                if (!running) break;
+            CommandGraph graph = CommandGraph.parse(entry.getCommands());
+            boolean failed = entry.isSharedSession() ? runInSession(graph, record) : runGraph(graph, record);
+            if (failed) {
+                status = RunRecord.FAILED;
+            }
 
-                appendOutput(">>> Executing: " + command + "\n");
+            if (stoppedByUser) {
+                status = RunRecord.TERMINATED;
+                // The shell may exit before the rest of its tree - report once stop() is through
+                stopDone.await(Constants.PROCESS_STOP_TIMEOUT_SECONDS + 1, TimeUnit.SECONDS);
+                appendOutput("\n>>> Process terminated by user" + stopSummary() + ".\n");
+            } else {
+                appendOutput(">>> All commands completed.\n");
+                Platform.runLater(() -> tab.setText(entry.getName() + " " + Constants.STATUS_SUCCESS));
+            }
+        } catch (Exception e) {
+            status = RunRecord.ERROR;
+            appendOutput("\n>>> ERROR: " + e.getMessage() + "\n");
+            Platform.runLater(() -> tab.setText(entry.getName() + " " + Constants.STATUS_ERROR));
+        } finally {
+            running = false;
+
+            if (journal != null) {
+                record.finish(System.currentTimeMillis(), (System.nanoTime() - runStart) / 1_000_000, status);
+                journal.append(record);
+            }
+            try {
+                if (onFinished != null) {
+                    onFinished.run();
+                }
+            } finally {
+                ended.complete(null); // Nothing is appended to the scrollback after this
+            }
+        }
+    }
+
+    /**
+     * RUN THE COMMAND GRAPH (one process per command, "sh -c" / powershell)
+     *
+     * The runner thread only schedules: every step runs on its own step thread,
+     * which starts the process and its readers and publishes the step's markers.
+     *
+     *   ready steps ──start, at most maxParallel──► step threads
+     *        ▲                                           │
+     *        └── dependents whose last dependency ◄── finished queue
+     *
+     * All steps share one gate, so output stays in read order across steps,
+     * and lines of a labelled graph start with the step id. A script without
+     * step headers is a chain: one command at a time, unlabelled, as before.
+     *
+     * @return true if a command exited with a non-zero code
+     */
+    private boolean runGraph(CommandGraph graph, RunRecord record) throws IOException, InterruptedException {
+        boolean labelled = graph.hasNamedSteps();
+        int limit = entry.getMaxParallel() > 0 ? entry.getMaxParallel() : Constants.DEFAULT_STEP_PARALLELISM;
+        CaptureGate gate = new CaptureGate(graph.size() * CaptureGate.SLOTS_PER_STEP);
+        BlockingQueue<StepRun> finished = new LinkedBlockingQueue<>();
+
+        int[] waiting = new int[graph.size()];  // Dependencies not finished yet
+        boolean[] succeeded = new boolean[graph.size()];
+        long[] durations = new long[graph.size()];
+        PriorityQueue<Integer> ready = new PriorityQueue<>(); // Written order among ready steps
+        for (int i = 0; i < graph.size(); i++) {
+            waiting[i] = graph.step(i).getDependsOn().length;
+            if (waiting[i] == 0) {
+                ready.add(i);
+            }
+        }
 
-                ProcessBuilder pb = new ProcessBuilder();
-                pb.directory(new File(entry.getWorkingDir()));
+        long graphStart = System.nanoTime();
+        int active = 0;
+        int mostActive = 0;
+        boolean failed = false;
+        IOException error = null; // A command could not be started - no new steps after it
 
-                if (System.getProperty("os.name").toLowerCase().contains("windows")) {
+        while (true) {
+            while (running && error == null && active < limit && !ready.isEmpty()) {
+                CommandGraph.Step step = graph.step(ready.poll());
+                StepRun run = new StepRun(step, gate, labelled);
 
-                    //  pb.command("cmd.exe", "/c", command);
-                    pb.command("powershell.exe", "-NoProfile", "-ExecutionPolicy", "Bypass", "-Command", command);
+                if (graph.isBlocked(step.getIndex(), succeeded)) {
+                    run.skip(); // Finishes at once, as not succeeded
+                    finished.add(run);
                 } else {
-                    pb.command("sh", "-c", command);
+                    RunnerThreads.startStep(() -> {
+                        run.run();
+                        finished.add(run);
+                    });
+                }
+                mostActive = Math.max(mostActive, ++active);
+            }
+            if (active == 0) {
+                break;
+            }
+
+            StepRun run = finished.take();
+            active--;
+            int index = run.step.getIndex();
+            durations[index] = run.durationMs;
+
+            if (run.error != null) {
+                error = error != null ? error : run.error;
+                continue;
+            }
+            if (!run.skipped) {
+                record.addCommand(new RunRecord.CommandRun(run.step.getCommand(), run.startedAt,
+                        run.durationMs, run.exitCode));
+                failed |= run.exitCode != 0;
+            }
+            succeeded[index] = run.succeeded();
+            for (int dependent : graph.dependents(index)) {
+                if (--waiting[dependent] == 0) {
+                    ready.add(dependent);
                 }
+            }
+        }
+
+        if (error != null) {
+            throw error;
+        }
+        if (labelled && running) {
+            appendOutput(criticalPathSummary(graph, durations,
+                    (System.nanoTime() - graphStart) / 1_000_000, mostActive));
+        }
+        return failed;
+    }
 
-                pb.redirectErrorStream(true);
-                process = pb.start();
+    /**
+     * ">>> Critical path: web 4.2 s -> e2e 12.1 s = 16.3 s of 17.0 s, up to 2 steps at once"
+     */
+    private static String criticalPathSummary(CommandGraph graph, long[] durations, long wallMs, int mostActive) {
+        StringBuilder sb = new StringBuilder(">>> Critical path: ");
+        int prefix = sb.length();
+        long total = 0;
+        for (int index : graph.criticalPath(durations)) {
+            if (sb.length() > prefix) {
+                sb.append(" -> ");
+            }
+            sb.append(graph.step(index).getId()).append(' ').append(Formats.duration(durations[index]));
+            total += durations[index];
+        }
+        return sb.append(" = ").append(Formats.duration(total))
+                .append(" of ").append(Formats.duration(wallMs))
+                .append(", up to ").append(mostActive).append(mostActive == 1 ? " step" : " steps")
+                .append(" at once\n").toString();
+    }
+
+    /**
+     * Start one command in its own shell.
+     */
+    private Process startCommand(String command) throws IOException {
+        ProcessBuilder pb = new ProcessBuilder();
+        pb.directory(new File(entry.getWorkingDir()));
+
+        if (System.getProperty("os.name").toLowerCase().contains("windows")) {
 
-                Thread readerThread = new Thread(this::readProcessOutput);
-                readerThread.setDaemon(true);
-                readerThread.start();
+            //  pb.command("cmd.exe", "/c", command);
+            pb.command("powershell.exe", "-NoProfile", "-ExecutionPolicy", "Bypass", "-Command", command);
+        } else {
+            pb.command("sh", "-c", command);
+        }
+
+        Process process = pb.start();
+        processes.add(process);
+        return process;
+    }
 
-                int exitCode = process.waitFor();
-                readerThread.join(1000);
+    /**
+     * All commands in one shell (see {@link ShellSession}), one at a time in
+     * dependency order. As in runGraph, a step with a header is skipped when
+     * a dependency did not succeed. The readers live for the whole session,
+     * so the runner publishes its markers through the gate too.
+     *
+     * @return true if a command exited with a non-zero code
+     */
+    private boolean runInSession(CommandGraph graph, RunRecord record) throws IOException, InterruptedException {
+        ShellSession session = ShellSession.start(new File(entry.getWorkingDir()), charset);
+        Process process = session.getProcess();
+        processes.add(process);
 
-                flushBuffer();
-                appendOutput("\n>>> Exit code: " + exitCode + "\n\n");
+        CaptureGate gate = new CaptureGate(CaptureGate.SLOTS_PER_STEP);
+        CaptureStream stdout = new CaptureStream(false, 0, null);
+        CaptureStream stderr = new CaptureStream(true, 1, null);
+        Thread stdoutReader = startReader(process, stdout, gate, session.newScanner(true), session);
+        Thread stderrReader = startReader(process, stderr, gate, session.newScanner(false), session);
+        boolean failed = false;
+        boolean[] succeeded = new boolean[graph.size()];
 
+        try {
+            for (int index : graph.topologicalOrder()) {
                 if (!running) break;
+
+                CommandGraph.Step step = graph.step(index);
+                String command = step.getCommand();
+                if (graph.isBlocked(index, succeeded)) {
+                    // Same marker as a labelled graph - only steps with a header are ever skipped
+                    publishMarker(gate, 2, ">>> [" + step.getId() + "] Skipped: a dependency did not succeed\n\n",
+                            stdout, stderr);
+                    continue;
+                }
+                StepCache.Check check = checkCache(step);
+                if (check != null && check.isUpToDate()) {
+                    publishMarker(gate, 2, ">>> Up to date, not run: " + command + " (" + upToDate(check) + ")\n\n",
+                            stdout, stderr);
+                    record.addCommand(new RunRecord.CommandRun(command, System.currentTimeMillis(),
+                            check.getElapsedMs(), 0));
+                    succeeded[index] = true;
+                    continue;
+                }
+
+                publishMarker(gate, 2, ">>> Executing: " + command + "\n", stdout, stderr);
+                long commandStartedAt = System.currentTimeMillis();
+                long commandStart = System.nanoTime();
+
+                session.send(command);
+                int exitCode = session.await();
+                if (session.hasEnded()) {
+                    if (running) {
+                        publishMarker(gate, 2, "\n>>> Shell session ended (exit code " + exitCode + ").\n\n",
+                                stdout, stderr);
+                        failed = true;
+                    }
+                    break;
+                }
+
+                publishMarker(gate, 2, "\n>>> Exit code: " + exitCode + "\n\n", stdout, stderr);
+                record.addCommand(new RunRecord.CommandRun(command, commandStartedAt,
+                        (System.nanoTime() - commandStart) / 1_000_000, exitCode));
+                failed |= exitCode != 0;
+                succeeded[index] = exitCode == 0;
+                if (check != null && exitCode == 0 && running) {
+                    stepCache.recordSuccess(check);
+                }
             }
-            appendOutput(">>> All commands completed.\n");
-            Platform.runLater(() -> tab.setText(entry.getName() + " " + Constants.STATUS_SUCCESS));
-        } catch (Exception e) {
-            appendOutput("\n>>> ERROR: " + e.getMessage() + "\n");
-            Platform.runLater(() -> tab.setText(entry.getName() + " " + Constants.STATUS_ERROR));
         } finally {
-            running = false;
+            session.close(); // End of input - the shell exits
+            if (!process.waitFor(Constants.PROCESS_STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+            joinReaders(stdoutReader, stderrReader);
+            gate.detach(0);
+            gate.detach(1);
+            processes.remove(process);
+        }
+        return failed;
+    }
+
+    /**
+     * Runner marker while readers are still capturing. The {@code streams}
+     * start the next command with a clean style.
+     */
+    private void publishMarker(CaptureGate gate, int slot, String text, CaptureStream... streams) {
+        if (!gate.enter(slot, gate.stamp(slot))) {
+            return;
+        }
+        try {
+            for (CaptureStream stream : streams) {
+                stream.ansi.reset(0);
+            }
+            appendOutput(text);
+        } finally {
+            gate.exit(slot);
         }
     }
 
-    private void readProcessOutput() {
-        try (BufferedReader reader = new BufferedReader(
-                new InputStreamReader(process.getInputStream()))) {
+    /**
+     * Give both readers up to a second together to drain their pipes.
+     */
+    private static void joinReaders(Thread stdoutReader, Thread stderrReader) throws InterruptedException {
+        long deadline = System.nanoTime() + 1_000_000_000L;
+        stdoutReader.join(1000);
+        stderrReader.join(Math.max(1, (deadline - System.nanoTime()) / 1_000_000));
+    }
+
+    private Thread startReader(Process source, CaptureStream stream, CaptureGate gate,
+                               SentinelScanner sentinels, ShellSession session) {
+        return RunnerThreads.startReader(() -> {
+            readProcessOutput(source, stream, gate, sentinels);
+            if (session != null) {
+                session.streamClosed();
+            }
+        });
+    }
+
+    /**
+     * READ PROCESS OUTPUT (one reader thread per stream)
+     *
+     * Works on raw bytes: the same byte buffer and decoder are reused for every
+     * chunk, raw bytes go to the scrollback file and decoded chars go to the
+     * output ring - no String is created until a line is rendered.
+     *
+     * Every chunk is stamped with System.nanoTime() as soon as read() returns;
+     * the gate lets the two readers publish strictly in stamp order:
+     *
+     *   stdout  ──read──[t=10]──────────────publish──
+     *   stderr  ──read──[t=12]──wait for t=10──publish──
+     *
+     * While flooding, the pipes are checked before each blocking read: if nothing
+     * is waiting, the flood is over and the console is realigned right away.
+     *
+     * In a shell session the bytes first pass the {@code sentinels} scanner,
+     * which cuts out the end-of-command lines; they are reported only after
+     * the output in front of them was published.
+     */
+    private void readProcessOutput(Process source, CaptureStream stream, CaptureGate gate,
+                                   SentinelScanner sentinels) {
+        try (InputStream in = stream.isError() ? source.getErrorStream() : source.getInputStream()) {
+            byte[] buffer = new byte[Constants.READER_BUFFER_SIZE];
+            OutputDecoder decoder = new OutputDecoder(charset, buffer.length);
+            int bytesRead;
+
+            while (running) {
+                if (flood.isFlooding() && flood.mayExit(pipesIdle(source))) {
+                    if (!gate.enter(stream.slot, gate.stamp(stream.slot))) {
+                        return;
+                    }
+                    try {
+                        if (flood.isFlooding()) {
+                            leaveFlood();
+                        }
+                    } finally {
+                        gate.exit(stream.slot);
+                    }
+                }
+
+                if ((bytesRead = in.read(buffer)) == -1) {
+                    break;
+                }
+                long readAt = gate.stamp(stream.slot);
 
-            char[] buffer = new char[Constants.READER_BUFFER_SIZE];
-            int charsRead;
+                boolean published;
+                if (sentinels == null) {
+                    published = publishRead(stream, gate, decoder, buffer, bytesRead, readAt);
+                } else {
+                    int length = sentinels.filter(buffer, bytesRead); // May grow output()
+                    published = publishRead(stream, gate, decoder, sentinels.output(), length, readAt);
+                }
+                if (!published) {
+                    return; // Runner moved on without us
+                }
+                if (sentinels != null) {
+                    sentinels.fireSentinels();
+                }
+            }
 
-            while (running && (charsRead = reader.read(buffer)) != -1) {
-                String chunk = new String(buffer, 0, charsRead);
-                bufferOutput(chunk);
+            // A sentinel start that never completed is output after all
+            if (sentinels != null) {
+                int length = sentinels.flush();
+                if (!publishRead(stream, gate, decoder, sentinels.output(), length, gate.stamp(stream.slot))) {
+                    return;
+                }
             }
 
-            flushBuffer();
+            int charsLeft = decoder.finish();
+            if (gate.enter(stream.slot, gate.stamp(stream.slot))) {
+                try {
+                    if (charsLeft > 0 || stream.hasCarry()) {
+                        bufferOutput(stream, buffer, 0, 0, System.nanoTime(), decoder.chars(), charsLeft);
+                    }
+                    if (flood.isFlooding()) {
+                        leaveFlood();
+                    }
+                } finally {
+                    gate.exit(stream.slot);
+                }
+            }
         } catch (IOException e) {
-            if (running) {
-                appendOutput("\n>>> Error reading output: " + e.getMessage() + "\n");
+            if (running && gate.enter(stream.slot, gate.stamp(stream.slot))) {
+                try {
+                    appendOutput("\n>>> Error reading output: " + e.getMessage() + "\n");
+                } finally {
+                    gate.exit(stream.slot);
+                }
+            }
+        }
+    }
+
+    /**
+     * Decode and publish raw[0, length) as the producer.
+     *
+     * @return false if the gate was detached (the chunk is dropped)
+     */
+    private boolean publishRead(CaptureStream stream, CaptureGate gate, OutputDecoder decoder,
+                                byte[] raw, int length, long readAt) {
+        int charsRead = decoder.decode(raw, length);
+        if (!gate.enter(stream.slot, readAt)) {
+            return false;
+        }
+        try {
+            if (length > 0) {
+                bufferOutput(stream, raw, length, decoder.pendingBytes(), readAt, decoder.chars(), charsRead);
             }
+        } finally {
+            gate.exit(stream.slot);
+        }
+        return true;
+    }
+
+    /**
+     * True if neither pipe has output waiting (a closed pipe counts as idle).
+     */
+    private static boolean pipesIdle(Process source) {
+        try {
+            return source.getInputStream().available() == 0 && source.getErrorStream().available() == 0;
+        } catch (IOException e) {
+            return true;
+        }
+    }
+
+    /**
+     * Capture one chunk of a stream: raw bytes to the scrollback file, styled chars to the ring.
+     * Producer thread only.
+     *
+     * If the ring is full the console cannot keep up: the run switches to flood
+     * mode instead of blocking the process, and only the file gets the output.
+     *
+     * @param pendingBytes bytes of an incomplete character the decoder still holds
+     * @param readAt       System.nanoTime() when the chunk was read
+     */
+    private void bufferOutput(CaptureStream stream, byte[] raw, int rawLength, int pendingBytes, long readAt,
+                              char[] decoded, int decodedCount) {
+        switchStream(stream, readAt);
+
+        int firstLine = scrollback != null ? scrollback.completedLineCount() : 0;
+        stream.writeScrollback(raw, rawLength, pendingBytes, readAt);
+        flood.record(raw, rawLength);
+
+        char[] text = decoded;
+        int textCount = decodedCount;
+        if (stream.label != null) {
+            textCount = stream.labelLines(decoded, decodedCount, atLineStart);
+            text = stream.labelled;
         }
+        int charCount = stream.ansi.process(text, textCount);
+        if (decodedCount > 0) {
+            atLineStart = decoded[decodedCount - 1] == '\n';
+        }
+        publish(stream.ansi.output(), charCount, firstLine);
+    }
+
+    /**
+     * Make {@code stream} the producer of the merged output. Lines never mix
+     * streams: if the other stream stopped mid-line, that line is ended here.
+     */
+    private void switchStream(CaptureStream stream, long readAt) {
+        if (stream == lastStream) {
+            return;
+        }
+
+        if (!atLineStart) {
+            int firstLine = scrollback != null ? scrollback.completedLineCount() : 0;
+            lastStream.appendScrollback(LINE_BREAK, 1, readAt);
+            recordLineStyle(stream.ansi.currentStyle());
+            publish(LINE_BREAK_CHARS, 1, firstLine);
+            atLineStart = true;
+        } else if (scrollback != null) {
+            // The last newline recorded the other stream's style for this line
+            scrollback.replaceLineStyle(stream.ansi.currentStyle());
+        }
+        stream.ansi.newLine();
+        lastStream = stream;
     }
 
-    private void bufferOutput(String text) {
-        synchronized (outputBuffer) {
-            outputBuffer.append(text);
+    /**
+     * Hand styled chars to the filter stage and the ring. Producer thread only.
+     *
+     * @param firstLine number of the line the chars start in
+     */
+    private void publish(char[] chars, int charCount, int firstLine) {
+        // Filtered even while flooding - the index must cover every line
+        if (filterStage != null) {
+            filterStage.accept(chars, charCount, firstLine);
+        }
+
+        if (flood.isFlooding()) {
+            flood.sample(chars, charCount);
+            if (flood.mayExit(false)) {
+                leaveFlood(); // Covers this chunk too - it is already in the file
+            }
+            return;
+        }
+
+        // Where the file stands after this chunk - lets a paused console drop it
+        long line = -1;
+        long start = 0;
+        long end = 0;
+        if (scrollback != null) {
+            line = scrollback.completedLineCount();
+            start = scrollback.lineStart((int) line);
+            end = Math.max(start, scrollback.size());
+        }
 
-            long now = System.currentTimeMillis();
-            if (now - lastUIUpdate > Constants.UI_UPDATE_INTERVAL_MS ||
-                    outputBuffer.length() > Constants.FLUSH_THRESHOLD) {
-                flushBuffer();
+        int offset = 0;
+        while (offset < charCount) {
+            int taken = outputRing.offer(chars, offset, charCount - offset, line, start, end);
+            if (taken == 0) {
+                flood.enter();
+                flood.sample(chars, charCount);
+                return;
             }
+            offset += taken;
         }
     }
 
-    private void flushBuffer() {
-        synchronized (outputBuffer) {
-            if (outputBuffer.length() > 0) {
-                String text = outputBuffer.toString();
-                outputBuffer.setLength(0);
+    /**
+     * End flood mode: tell the console to continue from the current end of the
+     * scrollback file. Stays in flood mode if the ring has no room for the record.
+     */
+    private void leaveFlood() {
+        if (scrollback == null) {
+            flood.exit();
+            return;
+        }
+
+        int line = scrollback.completedLineCount();
+        long start = scrollback.lineStart(line);
+        long end = Math.max(start, scrollback.size());
+        if (outputRing.offerSync(line, start, end)) {
+            flood.exit();
+        }
+    }
 
-                Platform.runLater(() -> {
-                    outputArea.appendText(text);
+    /**
+     * Move up to {@code budget} buffered chars into the console.
+     * Called by the OutputDrain once per frame on the JavaFX thread;
+     * the console splits lines directly from the ring chunks, no copy.
+     *
+     * While the console is paused (or its tab is hidden) chunks are dropped
+     * without touching the console - the scrollback file has them. Only the
+     * file position after the last dropped chunk is kept, and resuming
+     * realigns the console with it in one step.
+     */
+    @Override
+    public boolean drainOutput(int budget) {
+        if (console == null) {
+            return true;
+        }
 
-                    if (outputArea.getLength() > Constants.MAX_BUFFER_SIZE) {
-                        outputArea.deleteText(0, outputArea.getLength() - Constants.MAX_BUFFER_SIZE);
-                    }
+        boolean dropping = scrollback != null && (console.isPaused() || realigning);
+        if (!dropping) {
+            catchUp();
+        }
+
+        int remaining = budget;
+        boolean changed = false;
+        CharSequence chunk;
+
+        while ((dropping || remaining > 0) && (chunk = outputRing.peek()) != null) {
+            int length = outputRing.peekLength();
+
+            if (dropping) {
+                rememberDropped(length == OutputRing.SYNC);
+                outputRing.release();
+                consumedInChunk = 0;
+
+                if (realigning && droppedAligned) {
+                    // Resumed in the middle of a split chunk - now at its end
+                    realigning = false;
+                    dropping = console.isPaused();
+                    changed |= !dropping && catchUp();
+                }
+                continue;
+            }
+
+            if (length == OutputRing.SYNC) {
+                // Output was skipped - continue from the end of the scrollback file
+                console.getBuffer().resync((int) outputRing.peekSyncLine(),
+                        partialLine(outputRing.peekSyncStart(), outputRing.peekSyncEnd()));
+                outputRing.release();
+                changed = true;
+                continue;
+            }
+
+            int end = Math.min(length, consumedInChunk + remaining);
+
+            console.getBuffer().append(chunk, consumedInChunk, end);
+            remaining -= end - consumedInChunk;
+            changed = true;
+
+            if (end == length) {
+                consumedInChunk = 0;
+                outputRing.release();
+            } else {
+                consumedInChunk = end;
+            }
+        }
+
+        if (!console.isPaused() && (changed || console.isFiltered())) {
+            console.publishChanges(); // A filtered view may grow while output is skipped
+        }
+        updateFloodStatus();
+        // Not "running": stop() clears that at once, the stop report and the
+        // marker of a run stopped while queued are only written after it
+        return !hasEnded() || !outputRing.isEmpty();
+    }
+
+    /**
+     * Remember the file position after the chunk about to be dropped (JavaFX thread).
+     */
+    private void rememberDropped(boolean sync) {
+        long line = outputRing.peekSyncLine();
+        droppedAligned = sync || line >= 0;
+        if (droppedAligned) {
+            droppedLine = line;
+            droppedStart = outputRing.peekSyncStart();
+            droppedEnd = outputRing.peekSyncEnd();
+        }
+    }
+
+    /**
+     * Realign the console after chunks were dropped while paused (JavaFX thread).
+     *
+     * @return true if the console changed
+     */
+    private boolean catchUp() {
+        if (!droppedAligned) {
+            realigning = true; // Wait for the end of the split chunk
+            return false;
+        }
+        if (droppedLine < 0) {
+            return false;
+        }
+
+        console.getBuffer().resync((int) droppedLine, partialLine(droppedStart, droppedEnd));
+        droppedLine = -1;
+        return true;
+    }
+
+    private void onPausedChanged(boolean paused) {
+        if (!paused && !realigning) {
+            catchUp();
+            console.publishChanges();
+        }
+    }
 
-                    outputArea.setScrollTop(Double.MAX_VALUE);
-                });
+    /**
+     * Text of a partially written line, raw as in the scrollback file.
+     */
+    private String partialLine(long start, long end) {
+        if (scrollback == null) {
+            return "";
+        }
+        if (syncReader == null) {
+            syncReader = scrollback.newReader();
+        }
+        return syncReader.text(start, end);
+    }
 
-                lastUIUpdate = System.currentTimeMillis();
+    /**
+     * Refresh the flood summary a few times per second (JavaFX thread).
+     */
+    private void updateFloodStatus() {
+        if (flood.isFlooding()) {
+            long now = System.nanoTime();
+            if (now - lastFloodStatusAt >= Constants.FLOOD_WINDOW_MS * 1_000_000L) {
+                console.setFloodStatus(flood.summary());
+                lastFloodStatusAt = now;
             }
+        } else if (!console.floodStatusProperty().get().isEmpty()) {
+            console.setFloodStatus("");
         }
     }
 
+    private void recordLineStyle(int styleId) {
+        if (scrollback != null) {
+            scrollback.recordLineStyle(styleId);
+        }
+    }
+
+    /**
+     * " (3 processes stopped in 40 ms, 1 forcibly)", empty if stop() found nothing to kill.
+     */
+    private String stopSummary() {
+        ProcessTree.Result result = stopResult;
+        if (result == null) {
+            return "";
+        }
+        StringBuilder summary = new StringBuilder(" (")
+                .append(result.getKilled()).append(result.getKilled() == 1 ? " process" : " processes")
+                .append(" stopped in ").append(Formats.duration(result.getElapsedMs()));
+        if (result.getForced() > 0) {
+            summary.append(", ").append(result.getForced()).append(" forcibly");
+        }
+        if (result.getSurvivors() > 0) {
+            summary.append(", ").append(result.getSurvivors()).append(" still running");
+        }
+        return summary.append(')').toString();
+    }
+
+    /**
+     * Runner marker (">>> ..."), published as stdout.
+     */
     private void appendOutput(String text) {
-        bufferOutput(text);
+        if (flood.isFlooding()) {
+            leaveFlood(); // Markers separate commands - always show them
+        }
+        markers.reset(); // Markers are never colored by a style the command left open
+        byte[] raw = text.getBytes(charset);
+        bufferOutput(markers, raw, raw.length, 0, System.nanoTime(), text.toCharArray(), text.length());
     }
 
+    /**
+     * Stop the run and everything its commands started. Blocks until the
+     * processes are gone, at most PROCESS_STOP_TIMEOUT_SECONDS.
+     */
     public void stop() {
-        running = false;
-        if (process != null && process.isAlive()) {
-            process.destroy();
+        stop(stopDeadline());
+    }
+
+    /**
+     * Deadline for a stop starting now, for {@link #stopAsync}.
+     */
+    public static long stopDeadline() {
+        return System.nanoTime() + TimeUnit.SECONDS.toNanos(Constants.PROCESS_STOP_TIMEOUT_SECONDS);
+    }
 
+    /**
+     * Stop on a stopper thread; the JavaFX thread does not wait. Runners
+     * stopped together share the deadline, so stopping many takes about as
+     * long as stopping one.
+     *
+     * @param deadline System.nanoTime() by which the processes must be gone
+     * @return completes once the run is stopped (or the deadline passed)
+     */
+    public CompletableFuture<Void> stopAsync(long deadline) {
+        CompletableFuture<Void> stopped = new CompletableFuture<>();
+        RunnerThreads.startStopper(() -> {
             try {
-                if (!process.waitFor(Constants.PROCESS_STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
-                    process.destroyForcibly();
-                }
-            } catch (InterruptedException e) {
-                process.destroyForcibly();
-                Thread.currentThread().interrupt();
+                stop(deadline);
+                stopped.complete(null);
+            } catch (Throwable e) {
+                stopped.completeExceptionally(e);
             }
+        });
+        return stopped;
+    }
 
-            appendOutput("\n>>> Process terminated by user.\n");
-            flushBuffer();
+    private void stop(long deadline) {
+        running = false;
+        if (!started) {
+            // Still queued: the run only reports that it was stopped once it is let go
+            stoppedByUser = true;
+            stopDone.countDown();
+            if (onStop != null) {
+                onStop.run();
+            }
             Platform.runLater(() -> tab.setText(entry.getName() + " " + Constants.STATUS_TERMINATED));
+            return;
         }
+
+        List<ProcessHandle> alive = processHandles();
+        if (alive.isEmpty()) {
+            return;
+        }
+
+        stoppedByUser = true; // Run loop prints the message once the processes are gone
+        // Shells with everything they started, one deadline for the whole tree
+        long timeoutMs = Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()));
+        // A late stop-all shortens the grace period too, forced kills still get their quarter
+        stopResult = ProcessTree.terminate(alive, Math.min(Constants.PROCESS_STOP_GRACE_MS, timeoutMs * 3 / 4),
+                timeoutMs);
+        stopDone.countDown();
+
+        Platform.runLater(() -> tab.setText(entry.getName() + " " + Constants.STATUS_TERMINATED));
+    }
+
+    /**
+     * Delete the scrollback file. Called when the output tab is closed.
+     */
+    public void release() {
+        if (scrollback != null) {
+            scrollback.close();
+        }
+    }
+
+    public ScrollbackStore getScrollback() {
+        return scrollback;
+    }
+
+    public FilterStage getFilterStage() {
+        return filterStage;
+    }
+
+    /**
+     * The command processes running now (their children not included).
+     */
+    public List<ProcessHandle> processHandles() {
+        return processes.stream()
+                .filter(Process::isAlive)
+                .map(Process::toHandle)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Completes when run() is over: the last marker is in the scrollback,
+     * which can be archived or closed from then on.
+     */
+    public CompletableFuture<Void> whenEnded() {
+        return ended;
+    }
+
+    public boolean hasEnded() {
+        return ended.isDone();
     }
 
     public boolean isRunning() {
-        return running && process != null && process.isAlive();
+        return running && processes.stream().anyMatch(Process::isAlive);
     }
 
-    public void setOutputArea(TextArea outputArea) {
-        this.outputArea = outputArea;
+    public void setConsole(ConsoleView console) {
+        this.console = console;
+        console.pausedProperty().addListener((obs, oldVal, paused) -> onPausedChanged(paused));
     }
 
     public void setTab(Tab tab) {
         this.tab = tab;
     }
-}
\ No newline at end of file
+
+    public void setJournal(RunJournal journal) {
+        this.journal = journal;
+    }
+
+    public void setStepCache(StepCache stepCache) {
+        this.stepCache = stepCache;
+    }
+
+    /**
+     * Check a step with a cache note against its last successful run.
+     *
+     * @return null if the step has no note, there is no cache or the check failed - run it then
+     */
+    private StepCache.Check checkCache(CommandGraph.Step step) {
+        if (stepCache == null || !step.isCached()) {
+            return null;
+        }
+        // The note is part of the key: other inputs or outputs are another step
+        String key = entry.getWorkingDir() + "\n" + step.getCommand() + "\n"
+                + step.getInputs() + " -> " + step.getOutputs();
+        try {
+            return stepCache.check(Paths.get(entry.getWorkingDir()), key, step.getInputs(), step.getOutputs());
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Unable to check step cache, running the step: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static String upToDate(StepCache.Check check) {
+        return "inputs unchanged, " + check.getFileCount() + (check.getFileCount() == 1 ? " file" : " files")
+                + " checked in " + Formats.duration(check.getElapsedMs());
+    }
+
+    public void setOnFinished(Runnable onFinished) {
+        this.onFinished = onFinished;
+    }
+
+    public void setOnStop(Runnable onStop) {
+        this.onStop = onStop;
+    }
+
+    /**
+     * ONE STEP OF THE COMMAND GRAPH, RUN ON ITS OWN STEP THREAD
+     *
+     * Owns three gate slots: its stdout and stderr readers and its markers.
+     * Once the process has exited and the readers drained their pipes, both
+     * reader slots are detached - orphaned children that keep a pipe open
+     * can no longer write into the output of the steps after it.
+     */
+    private final class StepRun {
+        final CommandGraph.Step step;
+        private final CaptureGate gate;
+        private final String prefix; // ">>> [id] " in a labelled graph, ">>> " otherwise
+        private final boolean labelled;
+        private final CaptureStream stdout;
+        private final CaptureStream stderr;
+        private final int markerSlot;
+
+        long startedAt;
+        long durationMs;
+        int exitCode = -1;
+        boolean skipped;
+        IOException error;
+
+        StepRun(CommandGraph.Step step, CaptureGate gate, boolean labelled) {
+            this.step = step;
+            this.gate = gate;
+            this.labelled = labelled;
+            this.prefix = labelled ? ">>> [" + step.getId() + "] " : ">>> ";
+
+            int slot = step.getIndex() * CaptureGate.SLOTS_PER_STEP;
+            String label = labelled ? "[" + step.getId() + "] " : null;
+            this.stdout = new CaptureStream(false, slot, label);
+            this.stderr = new CaptureStream(true, slot + 1, label);
+            this.markerSlot = slot + 2;
+        }
+
+        boolean succeeded() {
+            return !skipped && error == null && exitCode == 0;
+        }
+
+        void run() {
+            StepCache.Check check = checkCache(step);
+            if (check != null && check.isUpToDate()) {
+                startedAt = System.currentTimeMillis();
+                durationMs = check.getElapsedMs();
+                exitCode = 0;
+                publishMarker(gate, markerSlot, labelled
+                        ? prefix + "Up to date: " + upToDate(check) + "\n"
+                        : ">>> Up to date, not run: " + step.getCommand() + " (" + upToDate(check) + ")\n\n");
+                return;
+            }
+
+            publishMarker(gate, markerSlot, prefix + "Executing: " + step.getCommand() + "\n");
+            startedAt = System.currentTimeMillis();
+            long start = System.nanoTime();
+
+            try {
+                Process process = startCommand(step.getCommand());
+                Thread stdoutReader = startReader(process, stdout, gate, null, null);
+                Thread stderrReader = startReader(process, stderr, gate, null, null);
+
+                exitCode = RunnerThreads.waitFor(process);
+                joinReaders(stdoutReader, stderrReader);
+                processes.remove(process);
+            } catch (IOException e) {
+                error = e;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                gate.detach(stdout.slot);
+                gate.detach(stderr.slot);
+                durationMs = (System.nanoTime() - start) / 1_000_000;
+            }
+
+            if (error == null) {
+                publishMarker(gate, markerSlot, labelled
+                        ? prefix + "Exit code: " + exitCode + " (" + Formats.duration(durationMs) + ")\n"
+                        : "\n>>> Exit code: " + exitCode + "\n\n");
+                if (check != null && exitCode == 0 && running) {
+                    stepCache.recordSuccess(check);
+                }
+            }
+        }
+
+        /**
+         * Not run: a dependency in the step header did not succeed.
+         */
+        void skip() {
+            skipped = true;
+            publishMarker(gate, markerSlot, prefix + "Skipped: a dependency did not succeed\n");
+        }
+    }
+
+    /**
+     * ONE OUTPUT STREAM OF A COMMAND (stdout or stderr)
+     *
+     * Each stream has its own ANSI state, so a color left open on stderr does
+     * not leak into stdout. Bytes of a character split across two reads are held
+     * back until the character is complete: the other stream may write in between,
+     * and the file must only ever contain whole characters. Producer side only.
+     *
+     * In a labelled command graph every line the stream starts begins with its
+     * label ("[web] ") - in the file and in the console alike, so search, filter
+     * and export see it too.
+     */
+    private final class CaptureStream {
+        final int slot;  // Gate slot of its reader, -1 for the runner's markers
+        final String label;
+        final AnsiParser ansi = new AnsiParser(ProcessRunner.this::recordLineStyle);
+        private final boolean error;
+
+        private byte[] carry = new byte[8];
+        private int carryLength;
+
+        private final char[] labelChars;
+        private final byte[] labelBytes;
+        char[] labelled = new char[0]; // Output of labelLines()
+
+        CaptureStream(boolean error, int slot, String label) {
+            this.error = error;
+            this.slot = slot;
+            this.label = label;
+            this.labelChars = label != null ? label.toCharArray() : null;
+            this.labelBytes = label != null ? label.getBytes(charset) : null;
+        }
+
+        boolean isError() {
+            return error;
+        }
+
+        boolean hasCarry() {
+            return carryLength > 0;
+        }
+
+        /**
+         * New command: fresh terminal state, nothing held back.
+         */
+        void reset() {
+            ansi.reset(0);
+            carryLength = 0;
+        }
+
+        /**
+         * Copy decoded[0, count) to {@link #labelled} with the label in front of
+         * every line that starts in it.
+         *
+         * @param lineStart the merged output is at the start of a line
+         * @return number of chars in {@link #labelled}
+         */
+        int labelLines(char[] decoded, int count, boolean lineStart) {
+            int lines = lineStart && count > 0 ? 1 : 0;
+            for (int i = 0; i < count - 1; i++) {
+                if (decoded[i] == '\n') {
+                    lines++;
+                }
+            }
+
+            int length = count + lines * labelChars.length;
+            if (labelled.length < length) {
+                labelled = new char[Math.max(length, labelled.length * 2)];
+            }
+
+            int n = 0;
+            boolean due = lineStart;
+            for (int i = 0; i < count; i++) {
+                if (due) {
+                    System.arraycopy(labelChars, 0, labelled, n, labelChars.length);
+                    n += labelChars.length;
+                }
+                labelled[n++] = decoded[i];
+                due = decoded[i] == '\n';
+            }
+            return n;
+        }
+
+        /**
+         * Write the complete characters of carry + raw[0, length) to the scrollback,
+         * keep the last {@code pendingBytes} (an unfinished character) for later.
+         */
+        void writeScrollback(byte[] raw, int length, int pendingBytes, long readAt) {
+            int complete = Math.max(0, carryLength + length - pendingBytes);
+            int fromCarry = Math.min(carryLength, complete);
+            int fromRaw = complete - fromCarry;
+
+            appendScrollback(carry, fromCarry, readAt);
+            if (fromRaw > 0) {
+                appendScrollback(raw, fromRaw, readAt);
+            }
+
+            int keepCarry = carryLength - fromCarry;
+            int keepRaw = length - fromRaw;
+            if (keepCarry + keepRaw > carry.length) {
+                carry = Arrays.copyOf(carry, keepCarry + keepRaw);
+            }
+            System.arraycopy(carry, fromCarry, carry, 0, keepCarry);
+            System.arraycopy(raw, fromRaw, carry, keepCarry, keepRaw);
+            carryLength = keepCarry + keepRaw;
+        }
+
+        /**
+         * Spill raw output to disk in the same order it goes to the console,
+         * so console line numbers match scrollback line numbers.
+         */
+        void appendScrollback(byte[] data, int length, long readAt) {
+            if (scrollback == null || length == 0) {
+                return;
+            }
+            try {
+                if (labelBytes == null) {
+                    scrollback.append(data, 0, length, readAt, isError());
+                    return;
+                }
+
+                // Same places as labelLines(): wherever a line starts and something follows
+                boolean lineStart = scrollback.size() == scrollback.lineStart(scrollback.completedLineCount());
+                int start = 0;
+                while (start < length) {
+                    if (lineStart) {
+                        scrollback.append(labelBytes, 0, labelBytes.length, readAt, isError());
+                    }
+                    int end = start;
+                    while (end < length && data[end] != '\n') {
+                        end++;
+                    }
+                    lineStart = end < length;
+                    end = Math.min(length, end + 1);
+                    scrollback.append(data, start, end - start, readAt, isError());
+                    start = end;
+                }
+            } catch (IOException e) {
+                if (!scrollback.isClosed()) {
+                    System.err.println("Error writing scrollback: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * CAPTURE OWNERSHIP OF THE READER THREADS OF A RUN
+     *
+     * Hands the producer role between the readers of all running commands and
+     * the threads publishing markers, without a lock. Every thread that publishes
+     * owns a slot; a reader stamps each chunk right after reading it and wraps
+     * its publish in enter()/exit(). enter() waits while another slot holds an
+     * older stamp, so the merged output is in read order. detach(slot) waits for
+     * an in-flight publish of that slot to finish and then shuts it out for good.
+     *
+     *   slot:   0       1       2        3       4       5
+     *           stdout  stderr  markers  stdout  stderr  markers
+     *           └──── step 0 ────────┘   └──── step 1 ────────┘
+     *
+     * A slot is NOT_WAITING while it has nothing to publish and STAMPING for
+     * the moment between leaving read() and taking its stamp - a stamp taken
+     * after that can never be older than one seen before.
+     *
+     * A waiting thread spins only briefly - a publish is a copy into the ring
+     * and the file - and then parks. exit() wakes the oldest parked waiter;
+     * parks are bounded as well, so a wakeup that goes to the wrong thread
+     * costs at most PARK_NANOS. No thread, and no carrier of a virtual
+     * thread, stays busy while another command floods output.
+     */
+    private static final class CaptureGate {
+        static final int SLOTS_PER_STEP = 3;
+
+        private static final int IDLE = -1;
+        private static final int SPIN_LIMIT = 100; // onSpinWait() rounds before parking
+        private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+        private static final long NOT_WAITING = Long.MAX_VALUE;
+        private static final long STAMPING = Long.MIN_VALUE;
+
+        private final AtomicInteger writer = new AtomicInteger(IDLE); // Slot publishing now
+        private final AtomicLongArray waiting;
+        private final AtomicIntegerArray detached;
+        private final AtomicReferenceArray<Thread> parked; // Thread parked in enter(), by slot
+        private final AtomicInteger parkedCount = new AtomicInteger();
+
+        CaptureGate(int slots) {
+            long[] initial = new long[slots];
+            Arrays.fill(initial, NOT_WAITING);
+            waiting = new AtomicLongArray(initial);
+            detached = new AtomicIntegerArray(slots);
+            parked = new AtomicReferenceArray<>(slots);
+        }
+
+        /**
+         * Monotonic stamp for the data a slot has just read.
+         */
+        long stamp(int slot) {
+            waiting.set(slot, STAMPING);
+            long now = System.nanoTime();
+            waiting.set(slot, now);
+            return now;
+        }
+
+        boolean enter(int slot, long stamp) {
+            int spins = 0;
+            while (true) {
+                if (detached.get(slot) != 0) {
+                    waiting.set(slot, NOT_WAITING);
+                    return false;
+                }
+                if (!olderWaiting(slot, stamp) && writer.compareAndSet(IDLE, slot)) {
+                    if (detached.get(slot) == 0) {
+                        return true;
+                    }
+                    writer.set(IDLE); // Detached in between - give the role back
+                    continue;
+                }
+                if (++spins < SPIN_LIMIT) {
+                    Thread.onSpinWait();
+                } else {
+                    park(slot);
+                }
+            }
+        }
+
+        /**
+         * Park until exit() wakes this slot, for PARK_NANOS at most. An
+         * unpark between publishing the thread and parking is not lost:
+         * it leaves a permit and the park returns at once.
+         */
+        private void park(int slot) {
+            parked.set(slot, Thread.currentThread());
+            parkedCount.incrementAndGet();
+            LockSupport.parkNanos(this, PARK_NANOS);
+            parkedCount.decrementAndGet();
+            parked.set(slot, null);
+        }
+
+        /**
+         * Wake the parked slot with the oldest stamp - the one whose turn it is.
+         */
+        private void unparkOldest() {
+            if (parkedCount.get() == 0) {
+                return;
+            }
+            int oldest = -1;
+            long oldestStamp = NOT_WAITING;
+            for (int slot = 0; slot < waiting.length(); slot++) {
+                long stamp = waiting.get(slot);
+                if (stamp < oldestStamp && parked.get(slot) != null) {
+                    oldest = slot;
+                    oldestStamp = stamp;
+                }
+            }
+            Thread thread = oldest >= 0 ? parked.get(oldest) : null;
+            if (thread != null) {
+                LockSupport.unpark(thread);
+            }
+        }
+
+        private boolean olderWaiting(int slot, long stamp) {
+            for (int other = 0; other < waiting.length(); other++) {
+                long theirs = waiting.get(other);
+                if (other != slot && (theirs < stamp || (theirs == stamp && other < slot))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void exit(int slot) {
+            waiting.set(slot, NOT_WAITING);
+            writer.set(IDLE);
+            unparkOldest();
+        }
+
+        void detach(int slot) {
+            detached.set(slot, 1);
+            Thread waiter = parked.get(slot);
+            if (waiter != null) {
+                LockSupport.unpark(waiter); // Sees it is detached and gives up
+            }
+            for (int spins = 0; writer.get() == slot; spins++) {
+                if (spins < SPIN_LIMIT) {
+                    Thread.onSpinWait();
+                } else {
+                    LockSupport.parkNanos(PARK_NANOS); // The publish in flight ends soon
+                }
+            }
+        }
+    }
+}
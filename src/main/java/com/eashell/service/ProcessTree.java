@@ -0,0 +1,164 @@
+package com.eashell.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * TERMINATES A COMMAND WITH EVERYTHING IT STARTED
+ *
+ * A command runs under "sh -c" / powershell, and the processes doing the work
+ * (node, java, docker ...) are its children and grandchildren. Destroying only
+ * the shell leaves them running, holding ports, CPU and the output pipes.
+ *
+ *   snapshot ──► destroy all ──► wait (grace) ──► survivors + late children
+ *   (roots and                   (polls the           │
+ *    descendants)                 whole tree)         ▼
+ *                                           destroyForcibly ──► wait (deadline)
+ *
+ * The tree is taken before anything is signalled: once a shell is gone its
+ * children are re-parented and can no longer be found through it. All
+ * processes are signalled in one pass and then waited for together, so the
+ * tree costs one grace period, not one per process. Both phases share a
+ * single deadline.
+ */
+public final class ProcessTree {
+    private static final Path PROC = Path.of("/proc");
+    private static final long POLL_START_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+    private static final long POLL_MAX_NANOS = TimeUnit.MILLISECONDS.toNanos(25);
+
+    private ProcessTree() {
+    }
+
+    /**
+     * What {@link #terminate} did.
+     */
+    public static final class Result {
+        private final int killed;
+        private final int forced;
+        private final int survivors;
+        private final long elapsedMs;
+
+        Result(int killed, int forced, int survivors, long elapsedMs) {
+            this.killed = killed;
+            this.forced = forced;
+            this.survivors = survivors;
+            this.elapsedMs = elapsedMs;
+        }
+
+        /** Processes that were alive and are gone now. */
+        public int getKilled() {
+            return killed;
+        }
+
+        /** Processes that ignored the polite request and had to be killed forcibly. */
+        public int getForced() {
+            return forced;
+        }
+
+        /** Processes still alive at the deadline. */
+        public int getSurvivors() {
+            return survivors;
+        }
+
+        public long getElapsedMs() {
+            return elapsedMs;
+        }
+    }
+
+    /**
+     * Terminate the roots and all their descendants.
+     *
+     * @param graceMs time the processes get to exit on their own before they are killed forcibly
+     * @param timeoutMs overall deadline, including the grace period
+     */
+    public static Result terminate(Collection<ProcessHandle> roots, long graceMs, long timeoutMs) {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        long graceEnd = Math.min(deadline, start + TimeUnit.MILLISECONDS.toNanos(graceMs));
+
+        Set<ProcessHandle> tree = snapshot(roots);
+        tree.forEach(ProcessHandle::destroy);
+        awaitExit(tree, graceEnd);
+
+        // Whatever is left, with children forked since the snapshot
+        Set<ProcessHandle> survivors = snapshot(alive(tree));
+        tree.addAll(survivors);
+        survivors.forEach(ProcessHandle::destroyForcibly);
+        awaitExit(survivors, deadline);
+
+        int left = alive(survivors).size();
+        return new Result(tree.size() - left, survivors.size(), left,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * Live roots and their live descendants, parents before children.
+     */
+    static Set<ProcessHandle> snapshot(Collection<ProcessHandle> roots) {
+        Set<ProcessHandle> tree = new LinkedHashSet<>();
+        for (ProcessHandle root : roots) {
+            if (isRunning(root)) {
+                tree.add(root);
+                root.descendants().filter(ProcessTree::isRunning).forEach(tree::add);
+            }
+        }
+        return tree;
+    }
+
+    private static List<ProcessHandle> alive(Collection<ProcessHandle> handles) {
+        return handles.stream().filter(ProcessTree::isRunning).collect(Collectors.toList());
+    }
+
+    /**
+     * Alive and not a zombie. A re-parented child that has exited stays a
+     * zombie until init reaps it, which some inits do only now and then,
+     * and isAlive() is true for it until then.
+     */
+    static boolean isRunning(ProcessHandle handle) {
+        if (!handle.isAlive()) {
+            return false;
+        }
+        Path stat = PROC.resolve(Long.toString(handle.pid())).resolve("stat");
+        try {
+            // "pid (command) state ..." - the command may contain anything, so look after the last ')'
+            String line = Files.readString(stat);
+            int end = line.lastIndexOf(')');
+            return end < 0 || end + 2 >= line.length() || line.charAt(end + 2) != 'Z';
+        } catch (IOException | UncheckedIOException e) {
+            return true; // No procfs (not Linux) - trust isAlive()
+        }
+    }
+
+    /**
+     * Poll until every process is gone or the deadline passes. Polling keeps
+     * the latency low: onExit() of a process that is not our child checks
+     * only every few hundred ms.
+     */
+    private static void awaitExit(Collection<ProcessHandle> handles, long deadline) {
+        List<ProcessHandle> pending = new ArrayList<>(handles);
+        long pause = POLL_START_NANOS;
+        while (true) {
+            pending.removeIf(handle -> !isRunning(handle));
+            long remaining = deadline - System.nanoTime();
+            if (pending.isEmpty() || remaining <= 0) {
+                return;
+            }
+            try {
+                TimeUnit.NANOSECONDS.sleep(Math.min(pause, remaining));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            pause = Math.min(pause * 2, POLL_MAX_NANOS);
+        }
+    }
+}
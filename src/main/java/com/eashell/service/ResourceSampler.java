@@ -0,0 +1,273 @@
+package com.eashell.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * CPU AND MEMORY OF EVERY RUNNING SCRIPT
+ *
+ * One scheduled task samples all runners together, however many there are:
+ *
+ *   every interval ──► one pass over all processes (parent links)
+ *                          │
+ *                          ▼
+ *                      tree of each runner ──► CPU time (ProcessHandle.Info)
+ *                                              reaped children (/proc/<pid>/stat, Linux)
+ *                                              RSS (/proc/<pid>/status, Linux)
+ *                          │
+ *                          ▼
+ *                      Usage per runner ──► listener
+ *
+ * Walking ProcessHandle.descendants() would scan the whole process table once
+ * per runner; building the parent links once and reusing them for all trees
+ * costs one scan per tick. Nothing is scanned while no command is running.
+ *
+ * CPU is the CPU time the tree used since the last sample, as a percentage of
+ * one core (a build on four cores shows up to 400%). Memory is the sum of the
+ * resident sets, -1 where the platform has no /proc.
+ *
+ * A compiler or test process that starts and exits between two samples is
+ * never seen in the tree. Its CPU time is not lost though: once its parent
+ * has waited for it, the kernel adds it to the parent's reaped-children time
+ * (cutime + cstime), so that time of every live process counts too. A process
+ * that was seen and has exited since was counted up to its last sample and
+ * comes back whole in its parent's reaped time; what it had been counted is
+ * taken off that, this sample or the next. Without /proc (not Linux), and for
+ * children re-parented out of the tree, the time of exited processes is lost.
+ */
+public class ResourceSampler {
+    private static final Path PROC = Path.of("/proc");
+    private static final long NANOS_PER_TICK = 10_000_000; // USER_HZ is 100 on Linux, whatever the kernel HZ
+
+    /**
+     * One sample of one runner's process tree.
+     */
+    public static final class Usage {
+        private final double cpuPercent;
+        private final long rssBytes;
+        private final int processCount;
+
+        Usage(double cpuPercent, long rssBytes, int processCount) {
+            this.cpuPercent = cpuPercent;
+            this.rssBytes = rssBytes;
+            this.processCount = processCount;
+        }
+
+        public double getCpuPercent() {
+            return cpuPercent;
+        }
+
+        /** Resident memory of the tree, -1 if unknown on this platform. */
+        public long getRssBytes() {
+            return rssBytes;
+        }
+
+        public int getProcessCount() {
+            return processCount;
+        }
+    }
+
+    private final Supplier<? extends Collection<ProcessRunner>> runners;
+    private final Consumer<Map<ProcessRunner, Usage>> listener;
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "eashell-sampler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** CPU time of one process as of a sample. */
+    private static final class Cpu {
+        final Object runner;
+        final long ownNanos;
+        final long reapedNanos; // Children it has waited for, 0 without /proc
+
+        Cpu(Object runner, long ownNanos, long reapedNanos) {
+            this.runner = runner;
+            this.ownNanos = ownNanos;
+            this.reapedNanos = reapedNanos;
+        }
+    }
+
+    // Sampler thread only
+    private Map<Long, Cpu> lastCpu = new HashMap<>();         // By pid, as of the last sample
+    private Map<Object, Long> countedExited = new HashMap<>(); // By runner: counted CPU of exited processes
+    private long lastSampleNanos;
+    private Instant lastSampleTime;
+
+    /**
+     * @param runners the runners to sample, read on the sampler thread
+     * @param listener gets a usage for every runner, on the sampler thread
+     */
+    public ResourceSampler(Supplier<? extends Collection<ProcessRunner>> runners,
+                           Consumer<Map<ProcessRunner, Usage>> listener) {
+        this.runners = runners;
+        this.listener = listener;
+    }
+
+    public void start(long intervalMs) {
+        timer.scheduleWithFixedDelay(this::tick, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void shutdown() {
+        timer.shutdownNow();
+    }
+
+    private void tick() {
+        try {
+            Map<ProcessRunner, List<ProcessHandle>> roots = new LinkedHashMap<>();
+            for (ProcessRunner runner : runners.get()) {
+                roots.put(runner, runner.processHandles());
+            }
+            listener.accept(sample(roots));
+        } catch (RuntimeException e) {
+            // A failed sample must not cancel the schedule
+            System.err.println("Resource sampling failed: " + e);
+        }
+    }
+
+    /**
+     * Sample the trees under the given roots. The first sample of a process
+     * only sets its baseline, so it reports no CPU for it yet.
+     */
+    <K> Map<K, Usage> sample(Map<K, List<ProcessHandle>> roots) {
+        long now = System.nanoTime();
+        Instant nowTime = Instant.now();
+        Map<K, Usage> usage = new LinkedHashMap<>();
+        Map<Long, Cpu> cpuNow = new HashMap<>();
+        Map<Object, Long> exitedNow = new HashMap<>();
+
+        boolean anyRoot = roots.values().stream().anyMatch(list -> !list.isEmpty());
+        Map<Long, List<ProcessHandle>> children = anyRoot ? childrenByParent() : Map.of();
+
+        for (Map.Entry<K, List<ProcessHandle>> runner : roots.entrySet()) {
+            List<ProcessHandle> tree = new ArrayList<>();
+            for (ProcessHandle root : runner.getValue()) {
+                collect(root, children, tree);
+            }
+
+            long cpuDelta = 0;
+            long reapedDelta = 0;
+            long rss = 0;
+            for (ProcessHandle process : tree) {
+                ProcessHandle.Info info = process.info();
+                long own = info.totalCpuDuration().map(Duration::toNanos).orElse(0L);
+                long reaped = reapedChildrenNanos(process.pid());
+                cpuNow.put(process.pid(), new Cpu(runner.getKey(), own, reaped));
+
+                Cpu last = lastCpu.get(process.pid());
+                if (last != null && last.runner.equals(runner.getKey())) {
+                    cpuDelta += Math.max(0, own - last.ownNanos);
+                    reapedDelta += Math.max(0, reaped - last.reapedNanos);
+                } else if (lastSampleTime != null
+                        && info.startInstant().map(lastSampleTime::isBefore).orElse(false)) {
+                    cpuDelta += own + reaped; // Started since the last sample - all its CPU time is new
+                }
+
+                long processRss = residentBytes(process.pid());
+                rss = processRss < 0 || rss < 0 ? -1 : rss + processRss;
+            }
+
+            // Processes of this tree seen last time and gone now were counted up to
+            // then; that part comes back in a parent's reaped time and is taken off
+            // it. What the last sample left unpaid gets one more sample (the parent
+            // may not have waited yet), then is dropped.
+            long exited = 0;
+            for (Map.Entry<Long, Cpu> seen : lastCpu.entrySet()) {
+                if (seen.getValue().runner.equals(runner.getKey()) && !cpuNow.containsKey(seen.getKey())) {
+                    exited += seen.getValue().ownNanos + seen.getValue().reapedNanos;
+                }
+            }
+            long unpaid = countedExited.getOrDefault(runner.getKey(), 0L);
+            long fromUnpaid = Math.min(unpaid, reapedDelta);
+            long fromExited = Math.min(exited, reapedDelta - fromUnpaid);
+            cpuDelta += reapedDelta - fromUnpaid - fromExited;
+            if (exited > fromExited) {
+                exitedNow.put(runner.getKey(), exited - fromExited);
+            }
+
+            double elapsed = lastSampleTime == null ? 0 : now - lastSampleNanos;
+            double cpuPercent = elapsed > 0 ? cpuDelta * 100.0 / elapsed : 0;
+            usage.put(runner.getKey(), new Usage(cpuPercent, tree.isEmpty() ? 0 : rss, tree.size()));
+        }
+
+        lastCpu = cpuNow;
+        countedExited = exitedNow;
+        lastSampleNanos = now;
+        lastSampleTime = nowTime;
+        return usage;
+    }
+
+    /**
+     * Parent links of all processes, from one pass over the process table.
+     */
+    private static Map<Long, List<ProcessHandle>> childrenByParent() {
+        Map<Long, List<ProcessHandle>> children = new HashMap<>();
+        ProcessHandle.allProcesses().forEach(process -> process.parent().ifPresent(parent ->
+                children.computeIfAbsent(parent.pid(), pid -> new ArrayList<>()).add(process)));
+        return children;
+    }
+
+    private static void collect(ProcessHandle process, Map<Long, List<ProcessHandle>> children,
+                                List<ProcessHandle> tree) {
+        if (!ProcessTree.isRunning(process)) {
+            return;
+        }
+        tree.add(process);
+        for (ProcessHandle child : children.getOrDefault(process.pid(), List.of())) {
+            collect(child, children, tree);
+        }
+    }
+
+    /**
+     * CPU time of the children a process has waited for (cutime + cstime,
+     * which include their own reaped children), 0 if unknown.
+     */
+    private static long reapedChildrenNanos(long pid) {
+        try {
+            // "pid (command) state ppid ..." - the command may contain anything, so look after the last ')'
+            String line = Files.readString(PROC.resolve(Long.toString(pid)).resolve("stat"),
+                    StandardCharsets.ISO_8859_1);
+            String[] fields = line.substring(line.lastIndexOf(')') + 2).split(" ");
+            // fields[0] is field 3 (state); cutime and cstime are fields 16 and 17
+            return (Long.parseLong(fields[13]) + Long.parseLong(fields[14])) * NANOS_PER_TICK;
+        } catch (IOException | UncheckedIOException | NumberFormatException | IndexOutOfBoundsException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * VmRSS of a process, 0 if it has none (exited), -1 without /proc.
+     */
+    private static long residentBytes(long pid) {
+        try {
+            for (String line : Files.readAllLines(PROC.resolve(Long.toString(pid)).resolve("status"),
+                    StandardCharsets.ISO_8859_1)) {
+                if (line.startsWith("VmRSS:")) {
+                    // "VmRSS:     1234 kB"
+                    String kb = line.substring(6).trim();
+                    int space = kb.indexOf(' ');
+                    return Long.parseLong(space < 0 ? kb : kb.substring(0, space)) * 1024;
+                }
+            }
+            return 0;
+        } catch (IOException | UncheckedIOException | NumberFormatException e) {
+            return Files.isDirectory(PROC) ? 0 : -1;
+        }
+    }
+}
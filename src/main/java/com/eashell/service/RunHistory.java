@@ -0,0 +1,67 @@
+package com.eashell.service;
+
+import com.eashell.service.output.CompressedRun;
+import com.eashell.service.output.ScrollbackStore;
+import com.eashell.util.Constants;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * RECENT RUNS
+ *
+ * When an output tab is closed its scrollback file is compressed into a
+ * {@link CompressedRun} in the background and the file is deleted.
+ * All kept runs together stay under one memory budget
+ * (HISTORY_MEMORY_BUDGET_BYTES); the oldest runs are forgotten first.
+ *
+ * Thread-safe: runs are added by background tasks, listed by the UI.
+ */
+public class RunHistory {
+    private final long budgetBytes;
+
+    private final Deque<CompressedRun> runs = new ArrayDeque<>(); // Newest first
+    private long usedBytes;
+
+    public RunHistory(long budgetBytes) {
+        this.budgetBytes = budgetBytes;
+    }
+
+    /**
+     * Compress the output of a closed run and delete its scrollback file.
+     */
+    public void archive(String name, ScrollbackStore store) {
+        BackgroundTasks.submit(() -> {
+            try {
+                add(CompressedRun.compress(name, store, budgetBytes));
+            } catch (IOException e) {
+                System.err.println("Unable to keep output of " + name + ": " + e.getMessage());
+            } finally {
+                store.close();
+            }
+        });
+    }
+
+    private synchronized void add(CompressedRun run) {
+        runs.addFirst(run);
+        usedBytes += run.getCompressedBytes();
+
+        while (runs.size() > 1 && (usedBytes > budgetBytes || runs.size() > Constants.HISTORY_MAX_RUNS)) {
+            usedBytes -= runs.removeLast().getCompressedBytes();
+        }
+    }
+
+    /**
+     * Kept runs, newest first.
+     */
+    public synchronized List<CompressedRun> recent() {
+        return new ArrayList<>(runs);
+    }
+
+    public synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+}
@@ -0,0 +1,139 @@
+package com.eashell.service;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * ADMISSION BETWEEN THE RUN BUTTONS AND THE RUNNER EXECUTOR
+ *
+ * Heavy (CPU-bound) scripts such as builds share a fixed number of slots,
+ * derived from the CPU count: several builds started together take turns
+ * instead of all fighting for the same cores, caches and memory, so the batch
+ * as a whole finishes sooner. Everything else - dev servers, watchers, short
+ * commands - starts right away as before.
+ *
+ *   RUN ──► heavy? ──no──────────────────────────────────► executor
+ *             │ yes                                          ▲
+ *             ▼                                              │
+ *           slot free? ──yes──► take slot ───────────────────┤
+ *             │ no                                           │
+ *             ▼                                              │
+ *           queue (priority, then first come) ──slot freed───┘
+ *
+ * A heavy run gives its slot back when it ends, which starts the head of
+ * the queue. Thread-safe.
+ */
+public class RunScheduler {
+    private final Executor executor;
+    private final int heavyLimit;
+
+    // Higher priority first, equal priorities in submission order
+    private final PriorityQueue<Pending> queue = new PriorityQueue<>(
+            Comparator.comparingInt((Pending pending) -> -pending.priority).thenComparingLong(pending -> pending.sequence));
+    private int heavyRunning;
+    private long sequence;
+
+    /**
+     * @param heavyLimit heavy runs allowed at once
+     */
+    public RunScheduler(Executor executor, int heavyLimit) {
+        this.executor = executor;
+        this.heavyLimit = Math.max(1, heavyLimit);
+    }
+
+    /**
+     * Start a run now or queue it.
+     *
+     * @param onStart called when a queued run leaves the queue (on the thread that freed its slot)
+     * @return true if the run was started now, false if it waits in the queue
+     */
+    public synchronized boolean submit(Runnable run, boolean heavy, int priority, Runnable onStart) {
+        if (!heavy) {
+            execute(run);
+            return true;
+        }
+
+        Pending pending = new Pending(run, priority, sequence++, onStart);
+        if (heavyRunning < heavyLimit && queue.isEmpty()) {
+            start(pending);
+            return true;
+        }
+        queue.add(pending);
+        return false;
+    }
+
+    /**
+     * Let a queued run go right away without a slot (it was stopped and
+     * only has to report that). No effect if it is not queued.
+     */
+    public synchronized void release(Runnable run) {
+        if (queue.removeIf(pending -> pending.run == run)) {
+            execute(run);
+        }
+    }
+
+    public synchronized int queuedCount() {
+        return queue.size();
+    }
+
+    public synchronized int heavyRunningCount() {
+        return heavyRunning;
+    }
+
+    public int getHeavyLimit() {
+        return heavyLimit;
+    }
+
+    private void start(Pending pending) {
+        heavyRunning++;
+        boolean accepted = execute(() -> {
+            try {
+                pending.run.run();
+            } finally {
+                finished();
+            }
+        });
+        if (!accepted) {
+            heavyRunning--;
+        }
+    }
+
+    /**
+     * @return false if the executor was already shut down (the app is closing)
+     */
+    private boolean execute(Runnable task) {
+        try {
+            executor.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    private synchronized void finished() {
+        heavyRunning--;
+        while (heavyRunning < heavyLimit && !queue.isEmpty()) {
+            Pending next = queue.poll();
+            if (next.onStart != null) {
+                next.onStart.run();
+            }
+            start(next);
+        }
+    }
+
+    private static final class Pending {
+        final Runnable run;
+        final int priority;
+        final long sequence;
+        final Runnable onStart;
+
+        Pending(Runnable run, int priority, long sequence, Runnable onStart) {
+            this.run = run;
+            this.priority = priority;
+            this.sequence = sequence;
+            this.onStart = onStart;
+        }
+    }
+}
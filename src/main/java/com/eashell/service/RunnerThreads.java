@@ -0,0 +1,159 @@
+package com.eashell.service;
+
+import com.eashell.util.Constants;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * THREADS FOR SCRIPT RUNNERS AND THEIR OUTPUT READERS
+ *
+ * Every running script has a runner thread (waits for each command to exit)
+ * and two reader threads per command (block in read() on stdout / stderr);
+ * the steps of a command graph each get a step thread as well, and a stop
+ * gets a thread that waits for the process tree to go away.
+ * Almost all of their life is spent parked, so they can run in two modes:
+ *
+ *   PLATFORM  one OS thread each, runners from a cached pool (the old model)
+ *   VIRTUAL   one virtual thread per task; a parked virtual thread holds no
+ *             OS thread, only a small heap-allocated stack
+ *
+ * The mode is chosen with -Deashell.threads=platform|virtual|auto; "auto"
+ * uses virtual threads when the JVM has them (Java 21+). The default is
+ * platform: virtual mode is not yet measured with many commands handing the
+ * capture gate around (ProcessRunner.CaptureGate).
+ *
+ * The build still targets Java 17: Thread.ofVirtual() is looked up at
+ * runtime, so the same jar runs on 17 (platform threads only) and on 21+.
+ *
+ * Comparison of both modes: ThreadModelBenchmark in the test sources.
+ */
+public final class RunnerThreads {
+    public enum Mode { PLATFORM, VIRTUAL }
+
+    private static final AtomicInteger PLATFORM_COUNT = new AtomicInteger();
+
+    // Thread.ofVirtual().name(prefix, 0).factory(), null below Java 21
+    private static final ThreadFactory VIRTUAL_RUNNERS = virtualFactory("eashell-runner-");
+    private static final ThreadFactory VIRTUAL_READERS = virtualFactory("eashell-reader-");
+    private static final ThreadFactory VIRTUAL_STEPS = virtualFactory("eashell-step-");
+    private static final ThreadFactory VIRTUAL_STOPPERS = virtualFactory("eashell-stop-");
+
+    private static final Mode MODE = resolveMode(Constants.THREAD_MODE);
+
+    private RunnerThreads() {
+    }
+
+    public static Mode mode() {
+        return MODE;
+    }
+
+    public static boolean isVirtualAvailable() {
+        return VIRTUAL_RUNNERS != null;
+    }
+
+    /**
+     * Executor that runs every submitted script on its own thread.
+     */
+    public static ExecutorService newRunnerExecutor() {
+        return newRunnerExecutor(MODE);
+    }
+
+    public static ExecutorService newRunnerExecutor(Mode mode) {
+        if (mode == Mode.VIRTUAL) {
+            // No pooling: a virtual thread is cheaper to create than to keep
+            return new ThreadPoolExecutor(0, Integer.MAX_VALUE, 0, TimeUnit.SECONDS,
+                    new SynchronousQueue<>(), VIRTUAL_RUNNERS);
+        }
+        return new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), task -> platformThread(task, "eashell-runner-"));
+    }
+
+    /**
+     * Start the thread that reads one output stream of a command.
+     */
+    public static Thread startReader(Runnable task) {
+        return startReader(MODE, task);
+    }
+
+    public static Thread startReader(Mode mode, Runnable task) {
+        Thread reader = mode == Mode.VIRTUAL
+                ? VIRTUAL_READERS.newThread(task)
+                : platformThread(task, "eashell-reader-");
+        reader.start();
+        return reader;
+    }
+
+    /**
+     * Start the thread that runs one step of a command graph.
+     */
+    public static Thread startStep(Runnable task) {
+        Thread step = MODE == Mode.VIRTUAL
+                ? VIRTUAL_STEPS.newThread(task)
+                : platformThread(task, "eashell-step-");
+        step.start();
+        return step;
+    }
+
+    /**
+     * Start the thread that stops one runner, off the JavaFX thread.
+     */
+    public static Thread startStopper(Runnable task) {
+        Thread stopper = MODE == Mode.VIRTUAL
+                ? VIRTUAL_STOPPERS.newThread(task)
+                : platformThread(task, "eashell-stop-");
+        stopper.start();
+        return stopper;
+    }
+
+    /**
+     * Wait for a process to exit. Process.waitFor() blocks inside a monitor,
+     * which pins a virtual thread to its carrier; onExit() parks it properly.
+     */
+    public static int waitFor(Process process) throws InterruptedException {
+        if (MODE != Mode.VIRTUAL) {
+            return process.waitFor();
+        }
+        try {
+            return process.onExit().get().exitValue();
+        } catch (ExecutionException e) {
+            return process.waitFor(); // onExit() never completes exceptionally
+        }
+    }
+
+    private static Thread platformThread(Runnable task, String prefix) {
+        Thread thread = new Thread(task, prefix + PLATFORM_COUNT.incrementAndGet());
+        thread.setDaemon(true); // Daemon threads terminate when the application closes
+        return thread;
+    }
+
+    private static Mode resolveMode(String setting) {
+        String mode = setting == null ? "auto" : setting.trim().toLowerCase();
+        if (mode.equals("platform")) {
+            return Mode.PLATFORM;
+        }
+        if (isVirtualAvailable()) {
+            return Mode.VIRTUAL;
+        }
+        if (mode.equals("virtual")) {
+            System.err.println("Virtual threads need Java 21+, using platform threads");
+        }
+        return Mode.PLATFORM;
+    }
+
+    private static ThreadFactory virtualFactory(String prefix) {
+        try {
+            Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            Object ofVirtual = Thread.class.getMethod("ofVirtual").invoke(null);
+            Object named = builder.getMethod("name", String.class, long.class).invoke(ofVirtual, prefix, 1L);
+            return (ThreadFactory) builder.getMethod("factory").invoke(named);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null; // Java 17-20
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.eashell.service;
+
+import com.eashell.model.Schedule;
+
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * FIRES SCHEDULED RUNS
+ *
+ * All schedules share one thread and one DelayQueue ordered by due time:
+ *
+ *   sync() ──► queue (earliest first) ──► head due? ──► next due time ──► back in the queue
+ *                                             │
+ *                                             ▼
+ *                                        onDue(name)
+ *
+ * The thread sleeps until the earliest due time, so hundreds of schedules
+ * cost one parked thread and one wakeup per run - not a Timer thread each.
+ * Adding or removing a schedule is O(log n) / O(n) on the queue.
+ *
+ * It also wakes once a minute to read the wall clock again: the wait runs
+ * on the monotonic clock, which stands still while the machine sleeps, and
+ * the system time may be changed. A run missed that way fires once, late;
+ * missed runs are not caught up one by one.
+ */
+public class ScheduleTimer {
+    private static final long MAX_WAIT_MS = 60_000;
+
+    private final ZoneId zone;
+    private final Consumer<String> onDue;
+    private final DelayQueue<Job> queue = new DelayQueue<>();
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>(); // Script name -> its queued job
+    private final Thread thread;
+
+    /**
+     * @param onDue gets the script name when its schedule fires, on the timer thread
+     */
+    public ScheduleTimer(ZoneId zone, Consumer<String> onDue) {
+        this.zone = zone;
+        this.onDue = onDue;
+        this.thread = new Thread(this::run, "eashell-schedule");
+        this.thread.setDaemon(true);
+    }
+
+    public void start() {
+        thread.start();
+    }
+
+    public void shutdown() {
+        thread.interrupt();
+    }
+
+    /**
+     * Make exactly these schedules active. A script whose schedule is
+     * unchanged keeps its due time; the others are added, replaced or removed.
+     */
+    public synchronized void sync(Map<String, Schedule> schedules) {
+        jobs.keySet().removeIf(name -> {
+            if (schedules.containsKey(name)) {
+                return false;
+            }
+            queue.remove(jobs.get(name));
+            return true;
+        });
+        schedules.forEach((name, schedule) -> {
+            Job current = jobs.get(name);
+            if (current == null || !current.schedule.equals(schedule)) {
+                if (current != null) {
+                    queue.remove(current);
+                }
+                enqueue(name, schedule, System.currentTimeMillis());
+            }
+        });
+    }
+
+    /**
+     * Next due time of a script, -1 if it is not scheduled.
+     */
+    public long nextDue(String name) {
+        Job job = jobs.get(name);
+        return job != null ? job.due : -1;
+    }
+
+    public int size() {
+        return jobs.size();
+    }
+
+    private void enqueue(String name, Schedule schedule, long after) {
+        long due = schedule.next(after, zone);
+        if (due < 0) {
+            jobs.remove(name); // Never fires again
+            return;
+        }
+        Job job = new Job(name, schedule, due);
+        jobs.put(name, job);
+        queue.add(job);
+    }
+
+    private void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            Job job;
+            try {
+                job = queue.poll(MAX_WAIT_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (job == null) {
+                continue; // Only looked at the clock
+            }
+
+            synchronized (this) {
+                if (jobs.get(job.name) != job) {
+                    continue; // Replaced or removed while it was being taken
+                }
+                enqueue(job.name, job.schedule, Math.max(job.due, System.currentTimeMillis()));
+            }
+            try {
+                onDue.accept(job.name);
+            } catch (RuntimeException e) {
+                // One failed run must not stop the other schedules
+                System.err.println("Scheduled run of " + job.name + " failed: " + e);
+            }
+        }
+    }
+
+    private static final class Job implements Delayed {
+        final String name;
+        final Schedule schedule;
+        final long due; // Epoch millis
+
+        Job(String name, Schedule schedule, long due) {
+            this.name = name;
+            this.schedule = schedule;
+            this.due = due;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(due - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(due, ((Job) other).due);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.eashell.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * WHAT A FIRED SCHEDULE DOES WITH THE SCRIPT'S LAST RUN
+ *
+ * A finished run keeps its tab (and its place among the running scripts)
+ * until the tab is closed, so a schedule must not just try to start:
+ *
+ *   last run? ──none──────────────────────────────────────────► start
+ *      │ ended                                                    ▲
+ *      ├──► close its tab (output archived for 🕘 RECENT) ────────┘
+ *      │ still in progress
+ *      ▼
+ *   skip - the next time is already scheduled
+ *
+ * Called on the UI thread; the start after a close is handed back to it.
+ *
+ * @param <R> the run (ProcessRunner in the app)
+ */
+public class ScheduledStart<R> implements Consumer<String> {
+    private final Executor uiThread;
+    private final Function<String, R> lastRun;
+    private final Predicate<R> hasEnded;
+    private final BiFunction<String, R, CompletableFuture<Void>> close;
+    private final Consumer<String> start;
+
+    /**
+     * @param lastRun the script's run that still has its tab, null if none
+     * @param hasEnded true once the run is over (not only between two commands)
+     * @param close closes the run's tab; completes when its output is archived
+     * @param start starts a new run of the script
+     */
+    public ScheduledStart(Executor uiThread, Function<String, R> lastRun, Predicate<R> hasEnded,
+                          BiFunction<String, R, CompletableFuture<Void>> close, Consumer<String> start) {
+        this.uiThread = uiThread;
+        this.lastRun = lastRun;
+        this.hasEnded = hasEnded;
+        this.close = close;
+        this.start = start;
+    }
+
+    @Override
+    public void accept(String name) {
+        R last = lastRun.apply(name);
+        if (last == null) {
+            start.accept(name);
+        } else if (hasEnded.test(last)) {
+            close.apply(name, last).whenComplete((done, error) -> uiThread.execute(() -> {
+                if (lastRun.apply(name) == null) { // Not started by hand meanwhile
+                    start.accept(name);
+                }
+            }));
+        }
+    }
+}
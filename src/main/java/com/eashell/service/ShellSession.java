@@ -0,0 +1,188 @@
+package com.eashell.service;
+
+import com.eashell.service.output.SentinelScanner;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * ONE LONG-LIVED SHELL FOR ALL COMMANDS OF A SCRIPT
+ *
+ * Instead of a new "sh -c" / powershell per command, the commands are written
+ * to the stdin of one shell. After each command the shell prints a sentinel
+ * line on stdout (with the exit code) and one on stderr:
+ *
+ *   stdin:   { npm ci
+ *            } </dev/null
+ *            printf '\036EASHELL-1f3a:%d\n' "$?"; printf '\036EASHELL-1f3a:\n' >&2
+ *
+ *   stdout:  ...npm output... ␞EASHELL-1f3a:0   <- cut out by a SentinelScanner
+ *   stderr:  ...warnings...   ␞EASHELL-1f3a:
+ *
+ * A command is finished once both sentinels were read - by then everything
+ * it printed on either stream has been captured. The shell pays its startup
+ * once per run, and cd, variables and functions carry over between commands.
+ *
+ * On Unix every command reads stdin from /dev/null, so it cannot swallow the
+ * lines that follow it (the console has no input anyway).
+ */
+public class ShellSession {
+    private static final long ORPHAN_GRACE_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final Process process;
+    private final Writer stdin;
+    private final String token;
+    private final boolean windows;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private boolean stdoutDone;   // Sentinel of the current command seen on stdout
+    private boolean stderrDone;   // ... and on stderr
+    private int exitCode;
+    private int closedStreams;    // Streams that reached end of file
+    private boolean ended;        // The shell is gone, no more commands
+
+    private ShellSession(Process process, Charset charset, boolean windows) {
+        this.process = process;
+        this.stdin = new OutputStreamWriter(process.getOutputStream(), charset);
+        this.token = "EASHELL-" + Long.toHexString(ThreadLocalRandom.current().nextLong());
+        this.windows = windows;
+    }
+
+    /**
+     * Start the shell in {@code workingDir}; commands are written in {@code charset}.
+     */
+    public static ShellSession start(File workingDir, Charset charset) throws IOException {
+        boolean windows = System.getProperty("os.name").toLowerCase().contains("windows");
+
+        ProcessBuilder pb = new ProcessBuilder();
+        pb.directory(workingDir);
+        if (windows) {
+            pb.command("powershell.exe", "-NoProfile", "-NoLogo", "-ExecutionPolicy", "Bypass", "-Command", "-");
+        } else {
+            pb.command("sh");
+        }
+        return new ShellSession(pb.start(), charset, windows);
+    }
+
+    /**
+     * Scanner for one output stream; reports its sentinels to this session.
+     */
+    public SentinelScanner newScanner(boolean stdout) {
+        return new SentinelScanner(token, code -> sentinelRead(stdout, code));
+    }
+
+    /**
+     * Write the next command, followed by its sentinels.
+     */
+    public void send(String command) throws IOException {
+        lock.lock();
+        try {
+            stdoutDone = false;
+            stderrDone = false;
+            exitCode = 0;
+        } finally {
+            lock.unlock();
+        }
+
+        if (windows) {
+            stdin.write(command + "\n"
+                    + "$__eaCode = if ($?) { 0 } elseif ($LASTEXITCODE) { $LASTEXITCODE } else { 1 }; "
+                    + "[Console]::Out.Write(\"$([char]30)" + token + ":$__eaCode`n\"); [Console]::Out.Flush(); "
+                    + "[Console]::Error.Write(\"$([char]30)" + token + ":`n\"); [Console]::Error.Flush()\n");
+        } else {
+            stdin.write("{ " + command + "\n} </dev/null\n"
+                    + "printf '\\036" + token + ":%d\\n' \"$?\"; printf '\\036" + token + ":\\n' >&2\n");
+        }
+        stdin.flush();
+    }
+
+    /**
+     * Wait until the current command is finished.
+     *
+     * @return its exit code; if the shell ended instead (exit, crash, stop),
+     *         the exit code of the shell - {@link #hasEnded()} is true then
+     */
+    public int await() throws InterruptedException {
+        long exitedAt = 0;
+        lock.lockInterruptibly();
+        try {
+            while (!(stdoutDone && stderrDone)) {
+                if (closedStreams == 2) {
+                    break; // Both pipes are closed - the shell is gone
+                }
+                if (!process.isAlive()) {
+                    // Children that inherited the pipes may keep them open - do not wait for them forever
+                    if (exitedAt == 0) {
+                        exitedAt = System.nanoTime();
+                    } else if (System.nanoTime() - exitedAt > ORPHAN_GRACE_NANOS) {
+                        break;
+                    }
+                }
+                changed.await(50, TimeUnit.MILLISECONDS);
+            }
+
+            if (stdoutDone && stderrDone) {
+                return exitCode;
+            }
+            ended = true;
+        } finally {
+            lock.unlock();
+        }
+        return process.waitFor();
+    }
+
+    /**
+     * A reader reached the end of its stream.
+     */
+    public void streamClosed() {
+        lock.lock();
+        try {
+            closedStreams++;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean hasEnded() {
+        return ended;
+    }
+
+    public Process getProcess() {
+        return process;
+    }
+
+    /**
+     * No more commands: close stdin so the shell exits on its own.
+     */
+    public void close() {
+        try {
+            stdin.close();
+        } catch (IOException e) {
+            // Shell already gone
+        }
+    }
+
+    private void sentinelRead(boolean stdout, int code) {
+        lock.lock();
+        try {
+            if (stdout) {
+                stdoutDone = true;
+                exitCode = code;
+            } else {
+                stderrDone = true;
+            }
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,365 @@
+package com.eashell.service;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * REMEMBERS WHICH STEPS ARE UP TO DATE
+ *
+ * A step with a cache note ("npm ci #cache: package*.json -> node_modules")
+ * is skipped when the content hash of its inputs equals the hash stored
+ * after its last successful run and all its outputs exist.
+ *
+ *   inputs ──► files ──► size + mtime known? ──yes──► stored file hash
+ *                              │ no
+ *                              ▼
+ *                        SHA-256 of the content (in parallel)
+ *                              │
+ *                              ▼
+ *   step hash = SHA-256(command, path + file hash of every input file)
+ *
+ * Reading every input on every run would cost about as much as npm ci
+ * itself for large trees, so a file whose size and modification time are
+ * unchanged keeps its stored hash. Files changed in the last two seconds
+ * are always hashed: a write within the timestamp granularity would
+ * otherwise go unnoticed.
+ *
+ * The file table is kept per step and replaced by the files of the step's
+ * last successful check, so files that are no longer inputs (deleted,
+ * renamed, a step removed from the script) drop out instead of piling up.
+ * The JSON file is only written when a step's entry actually changed; an
+ * up-to-date step that runs anyway does not rewrite the whole cache.
+ *
+ * Thread-safe; steps of several runs may check at the same time.
+ */
+public class StepCache {
+    private static final Gson GSON = new Gson();
+    private static final long RECENT_MTIME_MICROS = TimeUnit.SECONDS.toMicros(2);
+    private static final int HASH_BUFFER_BYTES = 64 * 1024;
+
+    private final Path file;
+    private final Map<String, StepEntry> steps = new ConcurrentHashMap<>(); // Step key -> its last success
+
+    /**
+     * Result of {@link #check}: whether the step can be skipped, and what the check cost.
+     */
+    public static final class Check {
+        private final String key;
+        private final String hash;
+        private final Map<String, FileHash> files;
+        private final boolean upToDate;
+        private final int fileCount;
+        private final int hashedCount;
+        private final long elapsedMs;
+
+        Check(String key, String hash, Map<String, FileHash> files, boolean upToDate, int fileCount,
+              int hashedCount, long elapsedMs) {
+            this.key = key;
+            this.hash = hash;
+            this.files = files;
+            this.upToDate = upToDate;
+            this.fileCount = fileCount;
+            this.hashedCount = hashedCount;
+            this.elapsedMs = elapsedMs;
+        }
+
+        public boolean isUpToDate() {
+            return upToDate;
+        }
+
+        /** Input files found. */
+        public int getFileCount() {
+            return fileCount;
+        }
+
+        /** Input files whose content had to be read (the rest reused their size / mtime entry). */
+        public int getHashedCount() {
+            return hashedCount;
+        }
+
+        public long getElapsedMs() {
+            return elapsedMs;
+        }
+    }
+
+    private static final class FileHash {
+        final long size;
+        final long mtimeMicros;
+        final String hash;
+
+        FileHash(long size, long mtimeMicros, String hash) {
+            this.size = size;
+            this.mtimeMicros = mtimeMicros;
+            this.hash = hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof FileHash)) {
+                return false;
+            }
+            FileHash other = (FileHash) o;
+            return size == other.size && mtimeMicros == other.mtimeMicros && hash.equals(other.hash);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(size, mtimeMicros, hash);
+        }
+    }
+
+    /** A step's last success: the hash of its inputs and the files it read. Never changed once stored. */
+    private static final class StepEntry {
+        final String hash;
+        final Map<String, FileHash> files; // Absolute path -> hash at that check
+
+        StepEntry(String hash, Map<String, FileHash> files) {
+            this.hash = hash;
+            this.files = files;
+        }
+    }
+
+    private static final class Stored {
+        Map<String, StepEntry> steps;
+    }
+
+    private StepCache(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Load the cache; a missing or broken file gives an empty cache.
+     */
+    public static StepCache open(Path file) {
+        StepCache cache = new StepCache(file);
+        if (Files.exists(file)) {
+            try {
+                Stored stored = GSON.fromJson(Files.readString(file, StandardCharsets.UTF_8), Stored.class);
+                if (stored != null && stored.steps != null) {
+                    stored.steps.forEach((key, entry) -> {
+                        if (entry != null && entry.hash != null && entry.files != null) {
+                            cache.steps.put(key, entry);
+                        }
+                    });
+                }
+            } catch (IOException | JsonParseException e) {
+                System.err.println("Unable to read step cache, starting empty: " + e.getMessage());
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * Hash the inputs of a step and compare with its last successful run.
+     *
+     * @param key identifies the step across runs (working directory and command)
+     */
+    public Check check(Path workingDir, String key, List<String> inputs, List<String> outputs) throws IOException {
+        long start = System.nanoTime();
+        Path root = workingDir.toAbsolutePath().normalize();
+
+        // Input files in a stable order; missing literal inputs count too
+        TreeMap<String, Path> found = new TreeMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String input : inputs) {
+            collect(root, input, found, missing);
+        }
+
+        // Stat and hash in parallel; unchanged size and mtime reuse the stored hash
+        StepEntry last = steps.get(key);
+        Map<String, FileHash> known = last != null ? last.files : Map.of();
+        Map<String, FileHash> files = new ConcurrentHashMap<>();
+        Map<String, String> hashes = new ConcurrentHashMap<>();
+        AtomicInteger hashed = new AtomicInteger();
+        long recent = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis()) - RECENT_MTIME_MICROS;
+        try {
+            found.entrySet().parallelStream().forEach(input -> {
+                Path path = input.getValue();
+                BasicFileAttributes attributes = attributes(path);
+                long mtime = attributes.lastModifiedTime().to(TimeUnit.MICROSECONDS);
+                FileHash stored = known.get(path.toString());
+                if (stored != null && stored.size == attributes.size() && stored.mtimeMicros == mtime
+                        && mtime < recent) {
+                    hashes.put(input.getKey(), stored.hash);
+                    files.put(path.toString(), stored);
+                    return;
+                }
+                String hash = hashFile(path);
+                hashed.incrementAndGet();
+                hashes.put(input.getKey(), hash);
+                if (mtime < recent) {
+                    files.put(path.toString(), new FileHash(attributes.size(), mtime, hash));
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        MessageDigest step = sha256();
+        step.update(key.getBytes(StandardCharsets.UTF_8));
+        for (String relative : found.keySet()) {
+            step.update(('\n' + relative + '\0' + hashes.get(relative)).getBytes(StandardCharsets.UTF_8));
+        }
+        for (String input : missing) {
+            step.update(("\nmissing\0" + input).getBytes(StandardCharsets.UTF_8));
+        }
+        String hash = hex(step.digest());
+
+        boolean outputsExist = outputs.stream().allMatch(output -> Files.exists(root.resolve(output)));
+        return new Check(key, hash, files, outputsExist && last != null && hash.equals(last.hash), found.size(),
+                hashed.get(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * The step succeeded with the inputs it was checked with: remember them and
+     * save, unless that is what is stored already. Inputs changed while it ran
+     * give a different hash next time, so it runs again.
+     */
+    public synchronized void recordSuccess(Check check) {
+        StepEntry last = steps.get(check.key);
+        if (last != null && last.hash.equals(check.hash) && last.files.equals(check.files)) {
+            return;
+        }
+        steps.put(check.key, new StepEntry(check.hash, new TreeMap<>(check.files)));
+        Stored stored = new Stored();
+        stored.steps = new TreeMap<>(steps);
+        try {
+            // Write a temp file and move it, so a crash never leaves half a cache
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                GSON.toJson(stored, writer);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            System.err.println("Unable to save step cache: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Add the files of one input: a file, a directory (all files below it)
+     * or a glob relative to the working directory.
+     */
+    private static void collect(Path root, String input, Map<String, Path> found, List<String> missing)
+            throws IOException {
+        FileSystem fs = root.getFileSystem();
+        String normalized = input.replace('\\', '/');
+        int glob = indexOfGlob(normalized);
+
+        if (glob < 0) {
+            Path path = root.resolve(normalized).normalize();
+            if (Files.isRegularFile(path)) {
+                found.put(relative(root, path), path);
+            } else if (Files.isDirectory(path)) {
+                walk(root, path, Integer.MAX_VALUE, null, found);
+            } else {
+                missing.add(normalized);
+            }
+            return;
+        }
+
+        // Walk only below the part of the pattern without wildcards, and only as
+        // deep as it reaches: "package*.json" lists one directory, not node_modules
+        int slash = normalized.lastIndexOf('/', glob);
+        Path base = slash < 0 ? root : root.resolve(normalized.substring(0, slash)).normalize();
+        String rest = normalized.substring(slash + 1);
+        int depth = rest.contains("**") ? Integer.MAX_VALUE : (int) rest.chars().filter(c -> c == '/').count() + 1;
+        if (Files.isDirectory(base)) {
+            walk(root, base, depth, fs.getPathMatcher("glob:" + normalized), found);
+        }
+    }
+
+    private static void walk(Path root, Path start, int depth, PathMatcher matcher, Map<String, Path> found)
+            throws IOException {
+        Files.walkFileTree(start, EnumSet.noneOf(FileVisitOption.class), depth, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path path, BasicFileAttributes attributes) {
+                if (attributes.isRegularFile() && (matcher == null || matcher.matches(root.relativize(path)))) {
+                    found.put(relative(root, path), path);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path path, IOException e) {
+                return FileVisitResult.CONTINUE; // Vanished or unreadable - not an input then
+            }
+        });
+    }
+
+    private static String relative(Path root, Path path) {
+        return root.relativize(path).toString().replace('\\', '/');
+    }
+
+    private static int indexOfGlob(String pattern) {
+        for (int i = 0; i < pattern.length(); i++) {
+            if ("*?[{".indexOf(pattern.charAt(i)) >= 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static BasicFileAttributes attributes(Path path) {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String hashFile(Path path) {
+        MessageDigest digest = sha256();
+        byte[] buffer = new byte[HASH_BUFFER_BYTES];
+        try (InputStream in = Files.newInputStream(path)) {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return hex(digest.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is always available", e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,277 @@
+package com.eashell.service.output;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * STREAMING ANSI ESCAPE SEQUENCE PARSER
+ *
+ * Turns decoded output into console text: SGR sequences (ESC [ ... m) become
+ * inline style marks (see {@link AnsiStyle}), every other escape sequence is
+ * dropped. The state survives between calls, so a sequence split across two
+ * reader chunks is handled like any other.
+ *
+ *   NORMAL --ESC--> ESCAPE --[--> CSI (params...) --final--> NORMAL
+ *                          --]--> OSC (...) --BEL / ESC \--> NORMAL
+ *
+ * Each output line is self-contained: a line starting in a non-default style
+ * begins with a mark, so a line renders correctly without its predecessors.
+ * The style every new line starts with is reported to {@code onNewLine}
+ * (the scrollback file keeps raw escapes and needs it to render paged lines).
+ *
+ * Plain text without escapes is copied through untouched. Not thread-safe.
+ */
+public class AnsiParser {
+    private static final char ESC = 0x1B;
+    private static final char BEL = 0x07;
+    private static final int MAX_PARAMS = 16;
+
+    private static final int NORMAL = 0;
+    private static final int ESCAPE = 1;
+    private static final int CSI = 2;
+    private static final int OSC = 3;
+    private static final int OSC_ESCAPE = 4;
+
+    private final IntConsumer onNewLine;
+
+    private int state = NORMAL;
+    private final int[] params = new int[MAX_PARAMS];
+    private int paramCount;
+    private boolean privateCsi; // ESC [ ? ... - never SGR
+
+    // Current SGR attributes
+    private int foreground = -1;
+    private int background = -1;
+    private boolean bold;
+    private boolean dim;
+    private boolean italic;
+    private boolean underline;
+    private boolean inverse;
+    private AnsiStyle style = AnsiStyle.DEFAULT;
+
+    private AnsiStyle lineStyle = AnsiStyle.DEFAULT; // Style last marked in the current output line
+
+    private char[] output = new char[0];
+
+    public AnsiParser(IntConsumer onNewLine) {
+        this.onNewLine = onNewLine;
+    }
+
+    /**
+     * Parse chars[0, length). The result is in {@link #output()}.
+     *
+     * @return number of output chars
+     */
+    public int process(char[] chars, int length) {
+        // Marks are only written in front of text, so the output never grows past this
+        if (output.length < length * 3) {
+            output = new char[length * 3];
+        }
+
+        char[] out = output;
+        int n = 0;
+
+        for (int i = 0; i < length; i++) {
+            char c = chars[i];
+
+            switch (state) {
+                case NORMAL:
+                    if (c == ESC) {
+                        state = ESCAPE;
+                    } else if (c == '\n') {
+                        out[n++] = c;
+                        lineStyle = AnsiStyle.DEFAULT;
+                        if (onNewLine != null) {
+                            onNewLine.accept(style.getId());
+                        }
+                    } else if (c != BEL && c != AnsiStyle.MARK) {
+                        if (style != lineStyle) {
+                            out[n++] = AnsiStyle.MARK;
+                            out[n++] = AnsiStyle.idChar(style.getId());
+                            lineStyle = style;
+                        }
+                        out[n++] = c;
+                    }
+                    break;
+
+                case ESCAPE:
+                    if (c == '[') {
+                        state = CSI;
+                        paramCount = 0;
+                        privateCsi = false;
+                        Arrays.fill(params, 0);
+                    } else if (c == ']') {
+                        state = OSC;
+                    } else {
+                        state = NORMAL; // Two-char sequence (ESC 7, ESC =, ...) - dropped
+                    }
+                    break;
+
+                case CSI:
+                    if (c >= '0' && c <= '9') {
+                        if (paramCount == 0) {
+                            paramCount = 1;
+                        }
+                        int p = paramCount - 1;
+                        params[p] = Math.min(params[p] * 10 + (c - '0'), 0xFFFF);
+                    } else if (c == ';' || c == ':') {
+                        paramCount = Math.min(Math.max(paramCount, 1) + 1, MAX_PARAMS);
+                    } else if (c >= 0x3C && c <= 0x3F) {
+                        privateCsi = true;
+                    } else if (c >= 0x40 && c <= 0x7E) {
+                        if (c == 'm' && !privateCsi) {
+                            applySgr();
+                        }
+                        state = NORMAL;
+                    } else if (c < 0x20 || c > 0x7E) {
+                        state = NORMAL; // Malformed - give up on the sequence
+                    }
+                    break;
+
+                case OSC:
+                    if (c == BEL) {
+                        state = NORMAL;
+                    } else if (c == ESC) {
+                        state = OSC_ESCAPE;
+                    }
+                    break;
+
+                case OSC_ESCAPE:
+                    state = c == ESC ? OSC_ESCAPE : (c == '\\' ? NORMAL : OSC);
+                    break;
+
+                default:
+                    state = NORMAL;
+            }
+        }
+        return n;
+    }
+
+    public char[] output() {
+        return output;
+    }
+
+    /**
+     * Parse one raw line from the scrollback file, starting in the given style.
+     */
+    public String styleLine(String raw, int startStyleId) {
+        if (raw.indexOf(ESC) < 0 && startStyleId == 0) {
+            return raw;
+        }
+        reset(startStyleId);
+        char[] chars = raw.toCharArray();
+        int n = process(chars, chars.length);
+        return new String(output, 0, n);
+    }
+
+    /**
+     * Text of one raw line with all escape sequences removed (for matching).
+     */
+    public String plainLine(String raw) {
+        return raw.indexOf(ESC) < 0 ? raw : AnsiStyle.plain(styleLine(raw, 0));
+    }
+
+    /**
+     * Forget any half-read sequence and continue in the given style
+     * (0 at the start of a command, like a fresh terminal).
+     */
+    public void reset(int styleId) {
+        state = NORMAL;
+        lineStyle = AnsiStyle.DEFAULT;
+
+        AnsiStyle start = AnsiStyle.byId(styleId);
+        foreground = start.getForeground();
+        background = start.getBackground();
+        bold = start.isBold();
+        dim = start.isDim();
+        italic = start.isItalic();
+        underline = start.isUnderline();
+        inverse = false;
+        style = start;
+    }
+
+    /**
+     * The current output line was ended outside the parser (another stream
+     * wrote in between): the next text starts a new line and marks its style again.
+     */
+    public void newLine() {
+        lineStyle = AnsiStyle.DEFAULT;
+    }
+
+    public int currentStyle() {
+        return style.getId();
+    }
+
+    private void applySgr() {
+        if (paramCount == 0) {
+            resetAttributes(); // ESC [ m
+        }
+
+        for (int i = 0; i < paramCount; i++) {
+            int p = params[i];
+            switch (p) {
+                case 0 -> resetAttributes();
+                case 1 -> bold = true;
+                case 2 -> dim = true;
+                case 3 -> italic = true;
+                case 4 -> underline = true;
+                case 7 -> inverse = true;
+                case 22 -> { bold = false; dim = false; }
+                case 23 -> italic = false;
+                case 24 -> underline = false;
+                case 27 -> inverse = false;
+                case 39 -> foreground = -1;
+                case 49 -> background = -1;
+                case 38, 48 -> {
+                    int color = -1;
+                    if (i + 2 < paramCount && params[i + 1] == 5) {
+                        color = AnsiStyle.paletteColor(params[i + 2] & 0xFF);
+                        i += 2;
+                    } else if (i + 4 < paramCount && params[i + 1] == 2) {
+                        color = ((params[i + 2] & 0xFF) << 16)
+                                | ((params[i + 3] & 0xFF) << 8)
+                                | (params[i + 4] & 0xFF);
+                        i += 4;
+                    } else {
+                        i = paramCount; // Incomplete extended color - ignore the rest
+                    }
+                    if (p == 38) {
+                        foreground = color;
+                    } else {
+                        background = color;
+                    }
+                }
+                default -> {
+                    if (p >= 30 && p <= 37) {
+                        foreground = AnsiStyle.paletteColor(p - 30);
+                    } else if (p >= 40 && p <= 47) {
+                        background = AnsiStyle.paletteColor(p - 40);
+                    } else if (p >= 90 && p <= 97) {
+                        foreground = AnsiStyle.paletteColor(p - 90 + 8);
+                    } else if (p >= 100 && p <= 107) {
+                        background = AnsiStyle.paletteColor(p - 100 + 8);
+                    }
+                }
+            }
+        }
+
+        // Inverse is resolved here, so the interned style only knows colors
+        int fg = inverse ? background : foreground;
+        int bg = inverse ? foreground : background;
+        if (inverse) {
+            fg = fg == -1 ? AnsiStyle.paletteColor(0) : fg;
+            bg = bg == -1 ? AnsiStyle.paletteColor(7) : bg;
+        }
+        style = AnsiStyle.intern(fg, bg, bold, dim, italic, underline);
+    }
+
+    private void resetAttributes() {
+        foreground = -1;
+        background = -1;
+        bold = false;
+        dim = false;
+        italic = false;
+        underline = false;
+        inverse = false;
+    }
+}
@@ -0,0 +1,182 @@
+package com.eashell.service.output;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * INTERNED TEXT STYLE FROM ANSI SGR SEQUENCES
+ *
+ * Every distinct combination of colors and flags exists exactly once and has a
+ * small numeric id. Styled console lines carry style changes inline as two chars:
+ *
+ *   MARK, idChar(styleId)
+ *
+ * so text, style runs and the ring buffer stay plain char data and no style
+ * object is allocated per span. Id 0 is the default style. The id char is
+ * taken from the private use area: a raw id would be '\n' for style 10 and
+ * split the line wherever lines are counted.
+ *
+ * Colors are 0xRRGGBB ints, -1 means "console default".
+ */
+public final class AnsiStyle {
+    /** Unicode noncharacter that introduces a style change inside a line */
+    public static final char MARK = '\uFDD0';
+
+    private static final char ID_BASE = '\uE000';             // idChar(0), start of the private use area
+    private static final int MAX_STYLES = '\uF8FF' - ID_BASE + 1; // Ids that stay inside it
+
+    // Base 16 colors, tuned for the dark console background
+    private static final int[] PALETTE_16 = {
+            0x4A3960, 0xFF6B9D, 0x8AE234, 0xD4AF37, 0x7AA2F7, 0xB794D4, 0x7DD3E8, 0xE8DFF5,
+            0x7A6B8F, 0xFF8FB3, 0xA6E22E, 0xFFD68A, 0x9AB8FF, 0xE89FD9, 0xA5F3FF, 0xFFFFFF
+    };
+
+    private static final Map<Long, AnsiStyle> BY_KEY = new ConcurrentHashMap<>();
+    private static volatile AnsiStyle[] byId = new AnsiStyle[64];
+    private static int count;
+
+    public static final AnsiStyle DEFAULT = intern(-1, -1, false, false, false, false);
+
+    private final int id;
+    private final int foreground;
+    private final int background;
+    private final boolean bold;
+    private final boolean dim;
+    private final boolean italic;
+    private final boolean underline;
+
+    private AnsiStyle(int id, int foreground, int background,
+                      boolean bold, boolean dim, boolean italic, boolean underline) {
+        this.id = id;
+        this.foreground = foreground;
+        this.background = background;
+        this.bold = bold;
+        this.dim = dim;
+        this.italic = italic;
+        this.underline = underline;
+    }
+
+    /**
+     * The shared instance for this combination. Falls back to DEFAULT once
+     * the id space is used up (only possible with endless true-color output).
+     */
+    public static AnsiStyle intern(int foreground, int background,
+                                   boolean bold, boolean dim, boolean italic, boolean underline) {
+        long key = ((long) (foreground & 0x1FFFFFF) << 29)
+                | ((long) (background & 0x1FFFFFF) << 4)
+                | (bold ? 8 : 0) | (dim ? 4 : 0) | (italic ? 2 : 0) | (underline ? 1 : 0);
+
+        AnsiStyle style = BY_KEY.get(key);
+        if (style != null) {
+            return style;
+        }
+
+        synchronized (AnsiStyle.class) {
+            style = BY_KEY.get(key);
+            if (style != null) {
+                return style;
+            }
+            if (count == MAX_STYLES) {
+                return DEFAULT;
+            }
+
+            style = new AnsiStyle(count, foreground, background, bold, dim, italic, underline);
+            AnsiStyle[] table = byId;
+            if (count == table.length) {
+                table = Arrays.copyOf(table, table.length * 2);
+            }
+            table[count++] = style;
+            byId = table;
+            BY_KEY.put(key, style);
+            return style;
+        }
+    }
+
+    public static AnsiStyle byId(int id) {
+        AnsiStyle[] table = byId;
+        AnsiStyle style = id >= 0 && id < table.length ? table[id] : null;
+        return style != null ? style : DEFAULT;
+    }
+
+    /**
+     * The char written after MARK for a style id.
+     */
+    public static char idChar(int id) {
+        return (char) (ID_BASE + id);
+    }
+
+    /**
+     * The style of the char after MARK.
+     */
+    public static AnsiStyle byIdChar(char c) {
+        return byId(c - ID_BASE);
+    }
+
+    /**
+     * 0xRRGGBB of an xterm 256-color index.
+     */
+    public static int paletteColor(int index) {
+        if (index < 16) {
+            return PALETTE_16[index];
+        }
+        if (index < 232) {
+            int i = index - 16;
+            return (cubeLevel(i / 36) << 16) | (cubeLevel(i / 6 % 6) << 8) | cubeLevel(i % 6);
+        }
+        int gray = 8 + (index - 232) * 10;
+        return (gray << 16) | (gray << 8) | gray;
+    }
+
+    private static int cubeLevel(int step) {
+        return step == 0 ? 0 : 55 + step * 40;
+    }
+
+    /**
+     * Line text without style marks (for copy, search and filtering).
+     */
+    public static String plain(String line) {
+        int mark = line.indexOf(MARK);
+        if (mark < 0) {
+            return line;
+        }
+
+        StringBuilder sb = new StringBuilder(line.length());
+        int start = 0;
+        while (mark >= 0) {
+            sb.append(line, start, mark);
+            start = Math.min(mark + 2, line.length());
+            mark = line.indexOf(MARK, start);
+        }
+        sb.append(line, start, line.length());
+        return sb.toString();
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public int getForeground() {
+        return foreground;
+    }
+
+    public int getBackground() {
+        return background;
+    }
+
+    public boolean isBold() {
+        return bold;
+    }
+
+    public boolean isDim() {
+        return dim;
+    }
+
+    public boolean isItalic() {
+        return italic;
+    }
+
+    public boolean isUnderline() {
+        return underline;
+    }
+}
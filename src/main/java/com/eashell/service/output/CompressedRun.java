@@ -0,0 +1,242 @@
+package com.eashell.service.output;
+
+import com.eashell.util.Constants;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * OUTPUT OF A CLOSED RUN, COMPRESSED IN MEMORY
+ *
+ * The scrollback file is cut into blocks of whole lines (about
+ * HISTORY_BLOCK_BYTES of raw output each) and every block is deflated
+ * on its own:
+ *
+ *   block 0          block 1          block 2
+ *   lines 0..811     lines 812..1590  lines 1591..2003
+ *   [deflate]        [deflate]        [deflate]
+ *
+ * Reading a line inflates only its block, so a reopened run costs one
+ * block of decompression per screen, not the whole log. Each block also
+ * keeps the ANSI style its first line starts in, so colors survive.
+ * The numbers of the stderr lines are kept uncompressed next to the blocks.
+ *
+ * A run bigger than the history budget keeps only its newest blocks.
+ * Lines are read on the JavaFX thread only.
+ */
+public class CompressedRun {
+    private static final int MAX_LINE_BYTES = Constants.CONSOLE_MAX_LINE_LENGTH;
+
+    private final String name;
+    private final long closedAt;
+    private final Charset charset;
+
+    private final byte[][] blocks;
+    private final int[] blockFirstLines; // One more entry than blocks: the line count
+    private final int[] blockRawSizes;
+    private final int[] blockStyles;     // AnsiStyle id at the start of each block
+    private final int[] errorLines;      // Ascending numbers of the stderr lines
+    private final long rawBytes;
+    private final long compressedBytes;
+
+    // Last inflated block
+    private int cachedBlock = -1;
+    private String[] cachedLines;
+    private final AnsiParser parser = new AnsiParser(null);
+
+    private CompressedRun(String name, Charset charset, List<byte[]> blocks, List<int[]> info,
+                          int lineCount, long rawBytes, int[] errorLines) {
+        this.name = name;
+        this.closedAt = System.currentTimeMillis();
+        this.charset = charset;
+        this.blocks = blocks.toArray(new byte[0][]);
+        this.blockFirstLines = new int[this.blocks.length + 1];
+        this.blockRawSizes = new int[this.blocks.length];
+        this.blockStyles = new int[this.blocks.length];
+        this.rawBytes = rawBytes;
+        this.errorLines = errorLines;
+
+        long compressed = 0;
+        for (int i = 0; i < this.blocks.length; i++) {
+            int[] blockInfo = info.get(i);
+            blockFirstLines[i] = blockInfo[0];
+            blockRawSizes[i] = blockInfo[1];
+            blockStyles[i] = blockInfo[2];
+            compressed += this.blocks[i].length;
+        }
+        blockFirstLines[this.blocks.length] = lineCount;
+        this.compressedBytes = compressed + errorLines.length * 4L;
+    }
+
+    /**
+     * Compress everything written to the store so far. Background thread.
+     * Keeps at most {@code maxBytes} of compressed output, dropping the oldest blocks.
+     */
+    public static CompressedRun compress(String name, ScrollbackStore store, long maxBytes) throws IOException {
+        int lineCount = store.lineCount();
+        int completed = store.completedLineCount();
+        long size = store.size();
+        ScrollbackStore.Reader reader = store.newReader(); // Walks the lines in order, one scan
+
+        List<byte[]> blocks = new ArrayList<>();
+        List<int[]> info = new ArrayList<>(); // {first line, raw size, start style}
+        long compressedTotal = 0;
+        long rawTotal = 0;
+
+        byte[] raw = new byte[Constants.HISTORY_BLOCK_BYTES + MAX_LINE_BYTES + 1];
+        byte[] out = new byte[raw.length];
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+
+        try {
+            int line = 0;
+            while (line < lineCount) {
+                int firstLine = line;
+                int length = 0;
+
+                // Whole lines until the block is full; overlong lines are cut like in the console
+                while (line < lineCount && length < Constants.HISTORY_BLOCK_BYTES) {
+                    long start = reader.lineStart(line);
+                    boolean terminated = line < completed;
+                    long end = terminated ? reader.lineStart(line + 1) - 1 : size;
+                    int take = (int) Math.min(end - start, MAX_LINE_BYTES);
+
+                    store.read(start, raw, length, take);
+                    length += take;
+                    if (terminated) {
+                        raw[length++] = '\n';
+                    }
+                    line++;
+                }
+
+                deflater.reset();
+                deflater.setInput(raw, 0, length);
+                deflater.finish();
+                int compressedLength = 0;
+                while (!deflater.finished()) {
+                    if (compressedLength == out.length) {
+                        out = Arrays.copyOf(out, out.length * 2);
+                    }
+                    compressedLength += deflater.deflate(out, compressedLength, out.length - compressedLength);
+                }
+
+                blocks.add(Arrays.copyOf(out, compressedLength));
+                info.add(new int[]{firstLine, length, store.lineStyle(firstLine)});
+                compressedTotal += compressedLength;
+                rawTotal += length;
+
+                // Over budget: the oldest output goes first
+                while (compressedTotal > maxBytes && blocks.size() > 1) {
+                    compressedTotal -= blocks.remove(0).length;
+                    rawTotal -= info.remove(0)[1];
+                }
+            }
+        } finally {
+            deflater.end();
+        }
+
+        // stderr lines of the blocks that were kept
+        int firstKept = info.isEmpty() ? lineCount : info.get(0)[0];
+        int[] errorLines = new int[0];
+        int errorCount = 0;
+        for (int line = store.nextErrorLine(firstKept); line < lineCount; line = store.nextErrorLine(line + 1)) {
+            if (errorCount == errorLines.length) {
+                errorLines = Arrays.copyOf(errorLines, Math.max(16, errorCount * 2));
+            }
+            errorLines[errorCount++] = line;
+        }
+
+        return new CompressedRun(name, store.getCharset(), blocks, info, lineCount, rawTotal,
+                Arrays.copyOf(errorLines, errorCount));
+    }
+
+    /**
+     * First line still held (earlier ones were dropped to fit the budget).
+     */
+    public int firstLine() {
+        return blockFirstLines[0];
+    }
+
+    public int lineCount() {
+        return blockFirstLines[blocks.length];
+    }
+
+    /**
+     * True if the line came from stderr.
+     */
+    public boolean isErrorLine(int index) {
+        return Arrays.binarySearch(errorLines, index) >= 0;
+    }
+
+    /**
+     * Styled text of a line (see {@link AnsiStyle}), inflating its block if needed.
+     */
+    public String line(int index) {
+        if (index < firstLine() || index >= lineCount()) {
+            return "";
+        }
+
+        int block = Arrays.binarySearch(blockFirstLines, 0, blocks.length, index);
+        if (block < 0) {
+            block = -block - 2; // Block that starts before the line
+        }
+        if (block != cachedBlock) {
+            cachedLines = inflate(block);
+            cachedBlock = block;
+        }
+
+        int offset = index - blockFirstLines[block];
+        return offset < cachedLines.length ? cachedLines[offset] : "";
+    }
+
+    private String[] inflate(int block) {
+        byte[] raw = new byte[blockRawSizes[block]];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(blocks[block]);
+            int length = 0;
+            while (length < raw.length && !inflater.finished()) {
+                length += inflater.inflate(raw, length, raw.length - length);
+            }
+        } catch (DataFormatException e) {
+            return new String[0];
+        } finally {
+            inflater.end();
+        }
+
+        String styled = parser.styleLine(new String(raw, charset), blockStyles[block]);
+        String[] lines = new String[blockFirstLines[block + 1] - blockFirstLines[block]];
+        int start = 0;
+        for (int i = 0; i < lines.length; i++) {
+            int end = styled.indexOf('\n', start);
+            if (end < 0) {
+                end = styled.length();
+            }
+            int textEnd = end > start && styled.charAt(end - 1) == '\r' ? end - 1 : end;
+            lines[i] = styled.substring(start, textEnd);
+            start = Math.min(end + 1, styled.length());
+        }
+        return lines;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getClosedAt() {
+        return closedAt;
+    }
+
+    public long getRawBytes() {
+        return rawBytes;
+    }
+
+    public long getCompressedBytes() {
+        return compressedBytes;
+    }
+}
@@ -0,0 +1,211 @@
+package com.eashell.service.output;
+
+import com.eashell.util.Constants;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+
+/**
+ * LINE MODEL BEHIND A CONSOLE TAB
+ *
+ * Output arrives in arbitrary chunks. Complete lines are stored one string per line,
+ * the unterminated tail is kept in {@code partial} until its newline arrives
+ * (so prompts like "Password: " are still visible).
+ *
+ * Only the newest CONSOLE_TAIL_LINES lines are kept on the heap. Older lines are
+ * paged back from the run's {@link ScrollbackStore} when they scroll into view
+ * (or from its {@link CompressedRun} once the run was closed).
+ *
+ *   line 0 ......................... firstTailLine ......... last line
+ *   └──── ScrollbackStore (disk) ───┘└──── tail (memory) ────┘
+ *
+ * Line numbers are the same in both places because the store receives exactly
+ * the same text, in the same order, as this buffer.
+ *
+ * Lines in memory are already styled (see {@link AnsiParser}); the file keeps the
+ * raw escape sequences, so paged lines are styled on the way in, starting from
+ * the style the store recorded for that line.
+ *
+ * Only touched from the JavaFX thread.
+ */
+public class ConsoleBuffer {
+    private final ScrollbackStore store;             // null when the run has no spill file
+    private final ScrollbackStore.Reader scrollback;
+    private final AnsiParser pageParser = new AnsiParser(null);
+    private final IntFunction<String> pager;         // Styled line by absolute number, null = none
+    private final IntPredicate errorLines;           // True for lines that came from stderr
+
+    // Ring of the newest complete lines
+    private final String[] tail = new String[Constants.CONSOLE_TAIL_LINES];
+    private int tailHead;      // Ring index of the oldest tail line
+    private int tailSize;      // Number of lines in the ring
+    private int firstTailLine; // Absolute line number of the oldest tail line
+
+    // Lines before this one were cleared with 🗑 CLEAR
+    private int firstVisibleLine;
+
+    private final StringBuilder partial = new StringBuilder();
+    private String partialText; // Cached String of the partial line
+
+    // Recently paged lines - scrolling re-renders the same rows many times
+    private final Map<Integer, String> pagedLines = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, String> eldest) {
+            return size() > Constants.CONSOLE_LINE_CACHE_SIZE;
+        }
+    };
+
+    public ConsoleBuffer(ScrollbackStore scrollback) {
+        this.store = scrollback;
+        this.scrollback = scrollback != null ? scrollback.newReader() : null;
+        this.pager = scrollback != null ? this::pageLine : null;
+        this.errorLines = scrollback != null ? scrollback::isErrorLine : line -> false;
+    }
+
+    /**
+     * Read-only buffer over a closed run: every line is paged from the
+     * compressed history, nothing is appended.
+     */
+    public ConsoleBuffer(CompressedRun run) {
+        this.store = null;
+        this.scrollback = null;
+        this.pager = run::line;
+        this.errorLines = run::isErrorLine;
+        this.firstTailLine = run.lineCount();
+        this.firstVisibleLine = run.firstLine();
+    }
+
+    /**
+     * Append a chunk of output and split it into lines.
+     */
+    public void append(CharSequence text) {
+        append(text, 0, text.length());
+    }
+
+    /**
+     * Append text[from, to) and split it into lines.
+     */
+    public void append(CharSequence text, int from, int to) {
+        int start = from;
+
+        for (int i = from; i < to; i++) {
+            if (text.charAt(i) == '\n') {
+                partial.append(text, start, i);
+                addLine(takePartial());
+                start = i + 1;
+            }
+        }
+
+        partial.append(text, start, to);
+        partialText = null;
+    }
+
+    /**
+     * Number of displayable lines, including the unterminated last line.
+     */
+    public int lineCount() {
+        int complete = firstTailLine + tailSize;
+        return complete - firstVisibleLine + (partial.length() > 0 ? 1 : 0);
+    }
+
+    public String line(int index) {
+        int absolute = index + firstVisibleLine;
+        int complete = firstTailLine + tailSize;
+
+        if (absolute >= complete) {
+            if (partialText == null) {
+                partialText = partial.toString();
+            }
+            return partialText;
+        }
+        return completedLine(absolute);
+    }
+
+    /**
+     * A complete line by absolute (scrollback) number. Lines the console has
+     * not received yet are read from the file as well.
+     */
+    public String completedLine(int absolute) {
+        if (absolute >= firstTailLine && absolute < firstTailLine + tailSize) {
+            return tail[(tailHead + absolute - firstTailLine) % tail.length];
+        }
+
+        if (pager == null) {
+            return "";
+        }
+        return pagedLines.computeIfAbsent(absolute, pager::apply);
+    }
+
+    /**
+     * True if the line (absolute number) came from stderr.
+     */
+    public boolean isErrorLine(int absolute) {
+        return errorLines.test(absolute);
+    }
+
+    /**
+     * Absolute (scrollback) number of display line 0.
+     */
+    public int firstVisibleLine() {
+        return firstVisibleLine;
+    }
+
+    /**
+     * Hide everything printed so far. The scrollback file keeps it.
+     */
+    public void clear() {
+        firstVisibleLine = firstTailLine + tailSize;
+        partial.setLength(0);
+        partialText = null;
+    }
+
+    /**
+     * Realign with the scrollback file after output was skipped (flood mode).
+     * Lines before {@code completedLines} are paged from the file from now on,
+     * {@code rawPartial} is the already written start of the current line, as in the file.
+     */
+    public void resync(int completedLines, String rawPartial) {
+        for (int i = 0; i < tailSize; i++) {
+            tail[(tailHead + i) % tail.length] = null;
+        }
+        tailHead = 0;
+        tailSize = 0;
+        firstTailLine = completedLines;
+        firstVisibleLine = Math.min(firstVisibleLine, completedLines);
+
+        partial.setLength(0);
+        if (!rawPartial.isEmpty()) {
+            partial.append(pageParser.styleLine(rawPartial, store.lineStyle(completedLines)));
+        }
+        partialText = null;
+    }
+
+    private String pageLine(int absolute) {
+        return pageParser.styleLine(scrollback.line(absolute), store.lineStyle(absolute));
+    }
+
+    private void addLine(String line) {
+        if (tailSize == tail.length) {
+            // Oldest line leaves memory - it is still in the scrollback file
+            tail[tailHead] = null;
+            tailHead = (tailHead + 1) % tail.length;
+            tailSize--;
+            firstTailLine++;
+        }
+        tail[(tailHead + tailSize) % tail.length] = line;
+        tailSize++;
+    }
+
+    private String takePartial() {
+        int end = partial.length();
+        // Windows tools end lines with \r\n - drop the \r so it is not rendered
+        if (end > 0 && partial.charAt(end - 1) == '\r') {
+            end--;
+        }
+        String line = partial.substring(0, end);
+        partial.setLength(0);
+        return line;
+    }
+}
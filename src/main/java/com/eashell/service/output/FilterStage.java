@@ -0,0 +1,116 @@
+package com.eashell.service.output;
+
+import java.util.regex.Matcher;
+
+/**
+ * READER-STAGE SIDE OF THE GREP FILTER
+ *
+ * Sees every styled chunk right after the ANSI parser and matches each line
+ * as soon as its newline arrives - new output is filtered without ever
+ * rescanning. Costs nothing while no filter is set.
+ *
+ * The text of the current line is collected from the chunks. If the filter
+ * was set while a line was half written, that one line is read back from
+ * the scrollback file instead.
+ *
+ * {@link #setFilter} may be called from any thread, everything else is
+ * producer only.
+ */
+public class FilterStage {
+    private final ScrollbackStore store;
+    private ScrollbackStore.Reader reader;
+    private final AnsiParser parser = new AnsiParser(null);
+
+    private volatile OutputFilter filter;
+
+    private OutputFilter seen;     // Filter the current line is collected for
+    private Matcher matcher;
+    private final StringBuilder line = new StringBuilder();
+    private boolean lineComplete;  // line holds the current line from its start
+
+    public FilterStage(ScrollbackStore store) {
+        this.store = store;
+    }
+
+    /**
+     * Install a filter (null to remove). Matching starts with the next line
+     * the producer completes; the rescan covers everything before.
+     */
+    public void setFilter(OutputFilter filter) {
+        OutputFilter old = this.filter;
+        if (old != null && old != filter) {
+            old.cancel();
+        }
+        this.filter = filter;
+    }
+
+    /**
+     * Producer: styled chars[0, length); {@code firstLine} is the number of
+     * the line the chunk starts in.
+     */
+    public void accept(char[] chars, int length, int firstLine) {
+        OutputFilter current = filter;
+        if (current == null) {
+            seen = null;
+            return;
+        }
+        if (current != seen) {
+            seen = current;
+            matcher = current.newMatcher();
+            line.setLength(0);
+            lineComplete = false;
+        }
+
+        int lineNumber = firstLine;
+        if (matcher == null) {
+            // No pattern - only line boundaries matter
+            for (int i = 0; i < length; i++) {
+                if (chars[i] == '\n') {
+                    completeLine(current, lineNumber++);
+                }
+            }
+            return;
+        }
+
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            char c = chars[i];
+            if (c == AnsiStyle.MARK) {
+                appendPlain(chars, start, i);
+                start = ++i + 1; // Skip the mark and its style id
+            } else if (c == '\n') {
+                appendPlain(chars, start, i);
+                start = i + 1;
+                completeLine(current, lineNumber++);
+            }
+        }
+        appendPlain(chars, start, length);
+    }
+
+    private void appendPlain(char[] chars, int from, int to) {
+        if (to > from) {
+            line.append(chars, from, to - from);
+        }
+    }
+
+    private void completeLine(OutputFilter current, int lineNumber) {
+        if (!current.claimFrom(lineNumber + 1) && current.isLive(lineNumber)
+                && (!current.isErrorsOnly() || store.isErrorLine(lineNumber))) {
+            int end = line.length();
+            if (end > 0 && line.charAt(end - 1) == '\r') {
+                line.setLength(end - 1);
+            }
+            CharSequence text = matcher == null || lineComplete ? line : storedLine(lineNumber);
+            current.offerLine(lineNumber, text, matcher);
+        }
+        line.setLength(0);
+        lineComplete = true;
+    }
+
+    private String storedLine(int lineNumber) {
+        if (reader == null) {
+            reader = store.newReader();
+        }
+        return parser.plainLine(reader.line(lineNumber));
+    }
+}
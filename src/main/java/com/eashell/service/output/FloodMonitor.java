@@ -0,0 +1,138 @@
+package com.eashell.service.output;
+
+import com.eashell.util.Constants;
+import com.eashell.util.Formats;
+
+/**
+ * OUTPUT FLOOD DETECTION FOR ONE RUN
+ *
+ * Commands like `yes` or verbose test runners can print far more than a
+ * console can render. The capture side feeds every chunk through record();
+ * once the rate goes above what the UI drain can show (or the output ring
+ * overflows) the run switches to flood mode:
+ *
+ *   NORMAL ──(rate > ENTER or ring full)──> FLOOD ──(quiet, after min. duration)──> NORMAL
+ *
+ * In flood mode output is still written to the scrollback file, but it is no
+ * longer handed to the console. The console shows a summary (rate, bytes hidden,
+ * a sampled line) and jumps to the end of the scrollback when the flood is over.
+ *
+ * State is written by the producer thread only; the stats are volatile
+ * so the JavaFX thread can display them.
+ */
+public class FloodMonitor {
+    private static final long WINDOW_NANOS = Constants.FLOOD_WINDOW_MS * 1_000_000L;
+    private static final long MIN_FLOOD_NANOS = Constants.FLOOD_MIN_DURATION_MS * 1_000_000L;
+    private static final int SAMPLE_MAX_LENGTH = 200;
+
+    // Current measurement window (producer only)
+    private long windowStart = System.nanoTime();
+    private long windowBytes;
+    private long windowLines;
+    private long lastSampleAt;
+
+    private volatile boolean flooding;
+    private long floodStart;
+
+    // Published stats of the last complete window
+    private volatile long bytesPerSecond;
+    private volatile long linesPerSecond;
+    private volatile long hiddenBytes; // Not shown in the console during this flood
+    private volatile String sample = "";
+
+    /**
+     * Account one captured chunk and switch to flood mode if the rate is too high.
+     * Producer thread only.
+     */
+    public void record(byte[] raw, int length) {
+        long now = System.nanoTime();
+        if (now - windowStart >= WINDOW_NANOS) {
+            long elapsed = now - windowStart;
+            bytesPerSecond = windowBytes * 1_000_000_000L / elapsed;
+            linesPerSecond = windowLines * 1_000_000_000L / elapsed;
+            windowStart = now;
+            windowBytes = 0;
+            windowLines = 0;
+
+            if (!flooding && bytesPerSecond > Constants.FLOOD_ENTER_BYTES_PER_SEC) {
+                enter();
+            }
+        }
+
+        windowBytes += length;
+        for (int i = 0; i < length; i++) {
+            if (raw[i] == '\n') {
+                windowLines++;
+            }
+        }
+
+        if (flooding) {
+            hiddenBytes += length;
+        }
+    }
+
+    /**
+     * Switch to flood mode (also used when the output ring is full).
+     */
+    public void enter() {
+        if (!flooding) {
+            flooding = true;
+            floodStart = System.nanoTime();
+            hiddenBytes = 0;
+        }
+    }
+
+    /**
+     * Whether flood mode may end now.
+     *
+     * @param idle true when no more output is waiting in the pipe
+     */
+    public boolean mayExit(boolean idle) {
+        long now = System.nanoTime();
+        if (now - floodStart < MIN_FLOOD_NANOS) {
+            return false;
+        }
+        boolean slow = now - windowStart >= WINDOW_NANOS
+                || bytesPerSecond < Constants.FLOOD_EXIT_BYTES_PER_SEC;
+        return idle || slow;
+    }
+
+    public void exit() {
+        flooding = false;
+    }
+
+    /**
+     * Remember the last complete line of a chunk, a few times per second.
+     */
+    public void sample(char[] chars, int length) {
+        long now = System.nanoTime();
+        if (now - lastSampleAt < WINDOW_NANOS) {
+            return;
+        }
+
+        int end = length;
+        while (end > 0 && (chars[end - 1] == '\n' || chars[end - 1] == '\r')) {
+            end--;
+        }
+        int start = end;
+        while (start > 0 && chars[start - 1] != '\n') {
+            start--;
+        }
+        if (end > start) {
+            sample = AnsiStyle.plain(new String(chars, start, Math.min(end - start, SAMPLE_MAX_LENGTH)));
+            lastSampleAt = now;
+        }
+    }
+
+    public boolean isFlooding() {
+        return flooding;
+    }
+
+    /**
+     * One-line summary for the console while flooding.
+     */
+    public String summary() {
+        return String.format("⚡ OUTPUT FLOOD  %,d lines/s  %s/s  ·  %s hidden (kept in scrollback)  ·  %s",
+                linesPerSecond, Formats.bytes(bytesPerSecond), Formats.bytes(hiddenBytes), sample);
+    }
+}
@@ -0,0 +1,73 @@
+package com.eashell.service.output;
+
+import java.util.Arrays;
+
+/**
+ * APPEND-ONLY LIST OF LONGS FOR ONE WRITER AND MANY READERS
+ *
+ * Values live in fixed-size pages so growing never copies existing data.
+ * The writer publishes each value through the volatile {@code size};
+ * a reader that has seen size() == n may read any index below n without locking.
+ */
+final class LineIndex {
+    private static final int PAGE_BITS = 14;                // 16384 values (128 KB) per page
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    private volatile long[][] pages = new long[16][];
+    private volatile int size;
+
+    /**
+     * Append a value. Writer thread only.
+     */
+    void add(long value) {
+        int index = size;
+        int page = index >>> PAGE_BITS;
+
+        long[][] current = pages;
+        if (page == current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+            pages = current;
+        }
+        if (current[page] == null) {
+            current[page] = new long[PAGE_SIZE];
+        }
+
+        current[page][index & PAGE_MASK] = value;
+        size = index + 1; // Publish
+    }
+
+    /**
+     * Replace a value already added. Writer thread only; a reader may
+     * still see the old value.
+     */
+    void set(int index, long value) {
+        pages[index >>> PAGE_BITS][index & PAGE_MASK] = value;
+    }
+
+    long get(int index) {
+        return pages[index >>> PAGE_BITS][index & PAGE_MASK];
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Position of the last value less than or equal to {@code value}, -1 if
+     * there is none. The values must have been added in ascending order.
+     */
+    int floor(long value) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (get(mid) <= value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low - 1;
+    }
+}
@@ -0,0 +1,131 @@
+package com.eashell.service.output;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.Arrays;
+
+/**
+ * REUSABLE BYTE -> CHAR DECODER FOR PROCESS OUTPUT
+ *
+ * One instance per reader thread. All buffers are allocated once and reused
+ * for every chunk, so decoding a noisy build creates no garbage.
+ *
+ * - Multi-byte characters split between two reads are carried over
+ *   (the decoder keeps the incomplete bytes until the next chunk).
+ * - Pure ASCII chunks skip the CharsetDecoder entirely and are widened
+ *   byte by byte, which covers most build tool output.
+ *
+ * Usage:
+ *   int n = decoder.decode(bytes, read);
+ *   sink.append(decoder.chars(), 0, n);
+ */
+public class OutputDecoder {
+    private final CharsetDecoder decoder;
+    private final boolean asciiCompatible;
+
+    private ByteBuffer in;  // Undecoded bytes, incl. leftover of a split character
+    private CharBuffer out; // Decoded chars of the last call
+
+    public OutputDecoder(Charset charset, int chunkSize) {
+        this.decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.asciiCompatible = isAsciiCompatible(charset);
+        this.in = ByteBuffer.allocate(chunkSize + 16);
+        this.out = CharBuffer.allocate(chunkSize + 16);
+    }
+
+    /**
+     * Decode the first {@code length} bytes of {@code data}.
+     *
+     * @return number of chars now available in {@link #chars()}
+     */
+    public int decode(byte[] data, int length) {
+        out.clear();
+        ensureCapacity(length);
+
+        int offset = 0;
+        if (asciiCompatible && in.position() == 0) {
+            // ASCII fast path: widen until the first non-ASCII byte
+            char[] chars = out.array();
+            while (offset < length && data[offset] >= 0) {
+                chars[offset] = (char) data[offset];
+                offset++;
+            }
+            out.position(offset);
+            if (offset == length) {
+                return offset;
+            }
+        }
+
+        in.put(data, offset, length - offset);
+        in.flip();
+        decoder.decode(in, out, false);
+        in.compact(); // Keep bytes of an incomplete character for the next call
+        return out.position();
+    }
+
+    /**
+     * Decode what is left at end of stream (a truncated character becomes U+FFFD).
+     */
+    public int finish() {
+        out.clear();
+        in.flip();
+        decoder.decode(in, out, true);
+        decoder.flush(out);
+        in.clear();
+        decoder.reset();
+        return out.position();
+    }
+
+    /**
+     * Bytes of an incomplete character held back for the next chunk.
+     */
+    public int pendingBytes() {
+        return in.position();
+    }
+
+    /**
+     * Backing array of the last decode() / finish() result.
+     */
+    public char[] chars() {
+        return out.array();
+    }
+
+    private void ensureCapacity(int length) {
+        int needed = in.position() + length;
+        if (in.capacity() < needed) {
+            ByteBuffer bigger = ByteBuffer.allocate(needed);
+            in.flip();
+            bigger.put(in);
+            in = bigger;
+        }
+
+        int maxChars = (int) Math.ceil(needed * (double) decoder.maxCharsPerByte()) + 1;
+        if (out.capacity() < maxChars) {
+            out = CharBuffer.allocate(maxChars);
+        }
+    }
+
+    /**
+     * True when bytes 0x00-0x7F mean the same ASCII characters in this charset.
+     * Line splitting and the fast path both rely on it (UTF-16 does not qualify).
+     */
+    public static boolean isAsciiCompatible(Charset charset) {
+        byte[] expected = new byte[128];
+        char[] ascii = new char[128];
+        for (int i = 0; i < 128; i++) {
+            expected[i] = (byte) i;
+            ascii[i] = (char) i;
+        }
+
+        if (!charset.canEncode()) {
+            return false;
+        }
+        byte[] encoded = new String(ascii).getBytes(charset);
+        return Arrays.equals(expected, encoded);
+    }
+}
@@ -0,0 +1,102 @@
+package com.eashell.service.output;
+
+import com.eashell.util.Constants;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.LongConsumer;
+
+/**
+ * EXPORT OF A RUN'S OUTPUT TO A FILE
+ *
+ * Copies the run's scrollback file into the chosen file channel-to-channel:
+ *
+ *   spill file ──FileChannel.transferTo()──▶ target file
+ *
+ * The bytes never pass through a String (or a Java buffer at all when the OS
+ * supports sendfile/copy_file_range), so a multi-GB log costs no heap. The copy
+ * is done in EXPORT_CHUNK_BYTES slices to report progress and allow cancelling.
+ *
+ * The output is exported exactly as captured (including ANSI escape sequences)
+ * up to the size at the time the export was started. The spill file is opened
+ * separately, so closing the run's tab does not break an export in progress.
+ *
+ * run() executes on one background thread; cancel() may be called from any thread.
+ */
+public class OutputExport {
+    private final Path source;
+    private final long length;
+    private final Path target;
+
+    private volatile long transferred;
+    private volatile boolean cancelled;
+    private volatile String error; // null when the export succeeded
+
+    public OutputExport(ScrollbackStore store, Path target) {
+        this.source = store.getFile();
+        this.length = store.size();
+        this.target = target;
+    }
+
+    /**
+     * Copy the output. Background thread only. A cancelled or failed export
+     * deletes the partial target file.
+     *
+     * @param onProgress called with the bytes copied so far after every slice
+     */
+    public void run(LongConsumer onProgress) {
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(target, StandardOpenOption.WRITE,
+                     StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            long position = 0;
+            while (position < length && !cancelled) {
+                long count = Math.min(Constants.EXPORT_CHUNK_BYTES, length - position);
+                long copied = in.transferTo(position, count, out);
+                if (copied <= 0) {
+                    break; // Source ended early (cannot happen while the file is only appended)
+                }
+                position += copied;
+                transferred = position;
+                onProgress.accept(position);
+            }
+        } catch (IOException e) {
+            error = e.getMessage() != null ? e.getMessage() : e.toString();
+        }
+
+        if (cancelled || error != null) {
+            try {
+                Files.deleteIfExists(target);
+            } catch (IOException e) {
+                System.err.println("Unable to delete partial export: " + e.getMessage());
+            }
+        }
+    }
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public long getTransferred() {
+        return transferred;
+    }
+
+    public long getLength() {
+        return length;
+    }
+
+    public Path getTarget() {
+        return target;
+    }
+}
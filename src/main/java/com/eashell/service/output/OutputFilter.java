@@ -0,0 +1,175 @@
+package com.eashell.service.output;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * GREP FILTER OF ONE OUTPUT TAB
+ *
+ * Holds the absolute numbers of the matching lines. Two writers fill it,
+ * each owning one side of a boundary line:
+ *
+ *   line 0 ............... liveFrom ............... newest line
+ *   └── history (rescan) ──┘└── live (FilterStage) ──┘
+ *
+ * The background rescan reads the scrollback file from {@code firstLine} up;
+ * the reader stage matches every line it completes from {@code liveFrom} on.
+ * Whoever gets there first sets liveFrom with a CAS: the reader stage when it
+ * completes a line, the rescan when it runs out of written lines. So no line
+ * is matched twice or skipped, without any lock between the two.
+ *
+ * The view switches to a filter only once the rescan is complete, so the old
+ * view stays on screen until the new one is ready and then swaps in at once.
+ * Match numbers only grow, so positions can be found by binary search.
+ *
+ * An errors-only filter keeps just the stderr lines (optionally also matching
+ * a pattern); its rescan walks the store's stderr index instead of every line.
+ */
+public class OutputFilter {
+    private final Pattern pattern;      // null = every line
+    private final boolean errorsOnly;   // Only lines that came from stderr
+    private final int firstLine;
+
+    private final LineIndex history = new LineIndex();
+    private final LineIndex live = new LineIndex();
+    private final AtomicInteger liveFrom = new AtomicInteger(-1);
+
+    private volatile boolean historyDone;
+    private volatile boolean cancelled;
+
+    private final AnsiParser parser = new AnsiParser(null); // Rescan only
+
+    /**
+     * @param firstLine first line to include (earlier lines were cleared)
+     */
+    public OutputFilter(Pattern pattern, int firstLine) {
+        this(pattern, false, firstLine);
+    }
+
+    /**
+     * @param pattern    lines to keep, null for all
+     * @param errorsOnly keep only stderr lines
+     * @param firstLine  first line to include (earlier lines were cleared)
+     */
+    public OutputFilter(Pattern pattern, boolean errorsOnly, int firstLine) {
+        this.pattern = pattern;
+        this.errorsOnly = errorsOnly;
+        this.firstLine = firstLine;
+    }
+
+    /**
+     * Match the already written output. Background thread only;
+     * the filter must be installed in the run's FilterStage before.
+     */
+    public void rescan(ScrollbackStore store) {
+        ScrollbackStore.Reader reader = store.newReader();
+        Matcher matcher = newMatcher();
+        int line = firstLine;
+
+        while (!cancelled && !store.isClosed()) {
+            int boundary = liveFrom.get();
+            if (boundary != -1 && line >= boundary) {
+                break;
+            }
+            if (line >= store.completedLineCount()) {
+                // Nothing more written - the reader stage takes over from here
+                if (liveFrom.compareAndSet(-1, line)) {
+                    break;
+                }
+                continue;
+            }
+            if (errorsOnly && !store.isErrorLine(line)) {
+                line = Math.min(store.nextErrorLine(line), store.completedLineCount());
+                continue;
+            }
+
+            if (matcher == null || matcher.reset(parser.plainLine(reader.line(line))).find()) {
+                history.add(line);
+            }
+            line++;
+        }
+        historyDone = !cancelled;
+    }
+
+    /**
+     * Reader stage: the next line starts at {@code line}. Claims every line
+     * from there on unless the rescan has claimed a boundary already.
+     */
+    boolean claimFrom(int line) {
+        return liveFrom.compareAndSet(-1, line);
+    }
+
+    /**
+     * Reader stage: true if {@code line} is on the live side of the boundary.
+     */
+    boolean isLive(int line) {
+        int boundary = liveFrom.get();
+        return boundary != -1 && line >= boundary && line >= firstLine;
+    }
+
+    /**
+     * Reader stage: match one completed line ({@code matcher} is null when
+     * the filter has no pattern, the text is not needed then).
+     */
+    void offerLine(int line, CharSequence text, Matcher matcher) {
+        if (matcher == null || matcher.reset(text).find()) {
+            live.add(line);
+        }
+    }
+
+    /**
+     * Matcher for the pattern, null if every line matches.
+     */
+    Matcher newMatcher() {
+        return pattern != null ? pattern.matcher("") : null;
+    }
+
+    boolean isErrorsOnly() {
+        return errorsOnly;
+    }
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isReady() {
+        return historyDone;
+    }
+
+    /**
+     * Number of matching lines so far (only meaningful once ready).
+     */
+    public int size() {
+        return history.size() + live.size();
+    }
+
+    /**
+     * Absolute line number of the match at {@code index}.
+     */
+    public int line(int index) {
+        int historySize = history.size();
+        return (int) (index < historySize ? history.get(index) : live.get(index - historySize));
+    }
+
+    /**
+     * Index of the first match at or after {@code line}, size() if none.
+     */
+    public int indexOf(int line) {
+        int low = 0;
+        int high = size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (line(mid) < line) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    public int getFirstLine() {
+        return firstLine;
+    }
+}
@@ -0,0 +1,190 @@
+package com.eashell.service.output;
+
+import java.nio.CharBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LOCK-FREE SINGLE-PRODUCER / SINGLE-CONSUMER CHUNK RING
+ *
+ * Hands decoded output from the capture side (reader thread) to the
+ * JavaFX drain without any lock. All chunk buffers are allocated up front
+ * and recycled, so steady-state handoff allocates nothing.
+ *
+ *        head (consumer)            tail (producer)
+ *          ↓                          ↓
+ *   ┌────┬────┬────┬────┬────┬────┬────┬────┐
+ *   │    │ c1 │ c2 │ c3 │ c4 │ c5 │    │    │   slots = chunks of chars
+ *   └────┴────┴────┴────┴────┴────┴────┴────┘
+ *
+ * Besides text, a slot can carry a SYNC record: "the console should continue
+ * from line L of the scrollback file". It is used after output was skipped
+ * (flood mode) to realign the console with the file.
+ *
+ * Text slots can also carry the scrollback position right after their chars,
+ * so a consumer that drops chunks (paused tab) knows where to resync later.
+ *
+ * The producer fills the slot at tail and then publishes it by advancing
+ * tail (release); the consumer reads it after seeing the new tail (acquire)
+ * and hands the slot back by advancing head. Each index is written by one
+ * thread only, so no CAS is needed.
+ *
+ * Exactly one thread may act as producer at a time. Callers that switch the
+ * producer role between threads must provide a happens-before edge between
+ * the old and the new producer (Thread.join, an atomic flag, ...).
+ */
+public final class OutputRing {
+    /** peekLength() of a SYNC slot */
+    public static final int SYNC = -1;
+
+    private final char[][] slots;
+    private final CharBuffer[] views; // Preallocated CharSequence views over slots
+    private final int[] lengths;
+    // Scrollback position: for SYNC the target, for text the position after the chunk
+    private final long[] syncLines;  // Line the next slot continues (-1 = unknown)
+    private final long[] syncStarts; // Byte range of that line already written
+    private final long[] syncEnds;
+    private final int mask;
+
+    private final AtomicLong head = new AtomicLong(); // Next slot to consume
+    private final AtomicLong tail = new AtomicLong(); // Next slot to fill
+
+    // Producer-local copy of head; refreshed only when the ring looks full
+    private long cachedHead;
+
+    /**
+     * @param capacity number of slots, rounded up to a power of two
+     * @param chunkSize chars per slot
+     */
+    public OutputRing(int capacity, int chunkSize) {
+        int size = capacity <= 2 ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+        this.slots = new char[size][chunkSize];
+        this.views = new CharBuffer[size];
+        this.lengths = new int[size];
+        this.syncLines = new long[size];
+        this.syncStarts = new long[size];
+        this.syncEnds = new long[size];
+        this.mask = size - 1;
+
+        for (int i = 0; i < size; i++) {
+            views[i] = CharBuffer.wrap(slots[i]);
+        }
+    }
+
+    // =========================================================================
+    // PRODUCER SIDE
+    // =========================================================================
+
+    /**
+     * Copy up to one slot worth of chars into the ring.
+     *
+     * @return number of chars taken, 0 if the ring is full
+     */
+    public int offer(char[] src, int offset, int length) {
+        return offer(src, offset, length, -1, 0, 0);
+    }
+
+    /**
+     * Copy up to one slot worth of chars into the ring. If all chars fit, the
+     * slot also records that the scrollback continues at {@code line},
+     * bytes [start, end) of which are already written.
+     *
+     * @return number of chars taken, 0 if the ring is full
+     */
+    public int offer(char[] src, int offset, int length, long line, long start, long end) {
+        long t = tail.get();
+        if (isFull(t)) {
+            return 0;
+        }
+
+        int slot = (int) (t & mask);
+        int n = Math.min(length, slots[slot].length);
+        System.arraycopy(src, offset, slots[slot], 0, n);
+        lengths[slot] = n;
+        syncLines[slot] = n == length ? line : -1;
+        syncStarts[slot] = start;
+        syncEnds[slot] = end;
+
+        tail.setRelease(t + 1); // Publish the slot
+        return n;
+    }
+
+    /**
+     * Publish a SYNC record: the console drops what it holds and continues at
+     * scrollback line {@code line}; bytes [start, end) of that line are already
+     * written and not repeated in the ring.
+     *
+     * @return false if the ring is full
+     */
+    public boolean offerSync(long line, long start, long end) {
+        long t = tail.get();
+        if (isFull(t)) {
+            return false;
+        }
+
+        int slot = (int) (t & mask);
+        lengths[slot] = SYNC;
+        syncLines[slot] = line;
+        syncStarts[slot] = start;
+        syncEnds[slot] = end;
+
+        tail.setRelease(t + 1);
+        return true;
+    }
+
+    private boolean isFull(long t) {
+        if (t - cachedHead == slots.length) {
+            cachedHead = head.getAcquire();
+            return t - cachedHead == slots.length;
+        }
+        return false;
+    }
+
+    // =========================================================================
+    // CONSUMER SIDE
+    // =========================================================================
+
+    /**
+     * Oldest published chunk, or null if the ring is empty.
+     * Valid until {@link #release()}.
+     */
+    public CharSequence peek() {
+        long h = head.get();
+        if (h == tail.getAcquire()) {
+            return null;
+        }
+        return views[(int) (h & mask)];
+    }
+
+    /**
+     * Number of chars in the chunk returned by {@link #peek()}, or {@link #SYNC}.
+     */
+    public int peekLength() {
+        return lengths[(int) (head.get() & mask)];
+    }
+
+    /**
+     * Scrollback line of the SYNC target or after the text chunk, -1 if unknown.
+     */
+    public long peekSyncLine() {
+        return syncLines[(int) (head.get() & mask)];
+    }
+
+    public long peekSyncStart() {
+        return syncStarts[(int) (head.get() & mask)];
+    }
+
+    public long peekSyncEnd() {
+        return syncEnds[(int) (head.get() & mask)];
+    }
+
+    /**
+     * Give the oldest chunk back to the producer.
+     */
+    public void release() {
+        head.setRelease(head.get() + 1);
+    }
+
+    public boolean isEmpty() {
+        return head.get() == tail.getAcquire();
+    }
+}
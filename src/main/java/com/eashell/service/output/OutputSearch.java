@@ -0,0 +1,156 @@
+package com.eashell.service.output;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * FIND IN OUTPUT OVER THE WHOLE RUN
+ *
+ * Scans the run's {@link ScrollbackStore} line by line - its line-offset index
+ * is built while output arrives, so every line of the run is reachable, not
+ * only the lines still held by the console. Matching lines are collected in
+ * an append-only index:
+ *
+ *   matches: [ 12, 480, 481, 9037, ... ]   (absolute line numbers)
+ *                        ^ current
+ *
+ * next()/previous() only move the cursor in that index, so they take constant
+ * time no matter how big the run is. Scanning (including compiling the regex)
+ * runs on a background thread via {@link #scan()}; matches become visible
+ * while the scan is still going. A later scan() continues where the last one
+ * stopped, so searching a growing run only reads the new lines.
+ *
+ * scan() runs on one worker at a time; the cursor is used by the JavaFX thread.
+ */
+public class OutputSearch {
+    private final ScrollbackStore store;
+    private final String query;
+    private final boolean regex;
+
+    private final LineIndex matches = new LineIndex();
+    private volatile int scannedLines; // Lines below this one are searched
+    private volatile boolean cancelled;
+    private volatile String error;     // Invalid regex, null when fine
+
+    private Pattern pattern;                                   // Worker only
+    private final AnsiParser parser = new AnsiParser(null);    // Worker only
+    private ScrollbackStore.Reader reader;                     // Worker only
+
+    private int current = -1; // Cursor into matches (JavaFX thread)
+
+    /**
+     * @param firstLine first line to search (earlier lines were cleared)
+     */
+    public OutputSearch(ScrollbackStore store, String query, boolean regex, int firstLine) {
+        this.store = store;
+        this.query = query;
+        this.regex = regex;
+        this.scannedLines = firstLine;
+    }
+
+    /**
+     * Search all lines written since the last scan. Background thread only.
+     *
+     * @param onProgress called every few thousand lines and at the end
+     */
+    public void scan(Runnable onProgress) {
+        if (pattern == null && !compile()) {
+            onProgress.run();
+            return;
+        }
+        if (reader == null) {
+            reader = store.newReader();
+        }
+
+        Matcher matcher = pattern.matcher("");
+        int end = store.completedLineCount();
+        int line = scannedLines;
+
+        while (line < end && !cancelled && !store.isClosed()) {
+            if (matcher.reset(parser.plainLine(reader.line(line))).find()) {
+                matches.add(line);
+            }
+            line++;
+
+            if ((line & 0xFFF) == 0) {
+                scannedLines = line;
+                onProgress.run();
+            }
+        }
+
+        scannedLines = line;
+        onProgress.run();
+    }
+
+    private boolean compile() {
+        try {
+            pattern = compile(query, regex);
+            return true;
+        } catch (PatternSyntaxException e) {
+            error = e.getDescription();
+            return false;
+        }
+    }
+
+    /**
+     * Case-insensitive pattern for a query typed by the user: taken
+     * literally unless {@code regex} is set.
+     *
+     * @throws PatternSyntaxException if the regex is invalid
+     */
+    public static Pattern compile(String query, boolean regex) {
+        int flags = Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE;
+        return regex ? Pattern.compile(query, flags) : Pattern.compile(Pattern.quote(query), flags);
+    }
+
+    /**
+     * True if lines were written after the scanned part.
+     */
+    public boolean hasUnscannedLines() {
+        return error == null && !cancelled && scannedLines < store.completedLineCount();
+    }
+
+    /**
+     * Absolute line of the next match (wraps around), -1 if none.
+     */
+    public int next() {
+        int count = matches.size();
+        if (count == 0) {
+            return -1;
+        }
+        current = current + 1 < count ? current + 1 : 0;
+        return (int) matches.get(current);
+    }
+
+    /**
+     * Absolute line of the previous match (wraps around), -1 if none.
+     */
+    public int previous() {
+        int count = matches.size();
+        if (count == 0) {
+            return -1;
+        }
+        current = current > 0 && current <= count ? current - 1 : count - 1;
+        return (int) matches.get(current);
+    }
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public int matchCount() {
+        return matches.size();
+    }
+
+    /**
+     * 1-based position of the cursor, 0 before the first jump.
+     */
+    public int currentMatch() {
+        return current + 1;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
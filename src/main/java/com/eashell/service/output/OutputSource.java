@@ -0,0 +1,16 @@
+package com.eashell.service.output;
+
+/**
+ * Something that buffers output off the JavaFX thread and hands it
+ * to its console when the UI drain asks for it.
+ */
+public interface OutputSource {
+
+    /**
+     * Move at most {@code budget} chars of pending output into the console.
+     * Called once per frame on the JavaFX thread.
+     *
+     * @return false when the source has finished and has nothing left to drain
+     */
+    boolean drainOutput(int budget);
+}
@@ -0,0 +1,574 @@
+package com.eashell.service.output;
+
+import com.eashell.util.Constants;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.Charset;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * DISK-BACKED SCROLLBACK FOR ONE RUN
+ *
+ * Everything a run prints is appended to a spill file in the temp directory,
+ * so the full history is kept no matter how long the run is. The heap holds a
+ * sparse index plus whatever the console caches - nothing per line.
+ *
+ * File layout:
+ * ┌──────────── window 0 ────────────┬──────────── window 1 ───────┬─ tail ─┐
+ * │ mapped once completely written   │ mapped                      │ read() │
+ * └──────────────────────────────────┴─────────────────────────────┴────────┘
+ *
+ * Finished windows are memory-mapped, the unfinished tail is read with
+ * positional reads (mapping past the end of a growing file is not portable).
+ *
+ * Stdout and stderr are merged into one file in the order they were read.
+ * Every line also has the monotonic time its first byte was read, and the
+ * stderr lines can be listed on their own without reading the file. The
+ * index keeps only what cannot be found again cheaply:
+ *
+ *   checkpoints: (0, 0) (64, 5120) (65, 91008) ...  a line start every 64 lines or 64 KB
+ *   styles:      (12, s3) (13, s0) ...               style at a line start, where it changes
+ *   times:       (0, 0) (1, 31) (40, 2250) ...       µs since creation, where it changes
+ *   errors:      [2, 3) [7, 9) ...                   runs of stderr lines
+ *
+ * Any other line start is found by scanning from the checkpoint before it -
+ * at most 64 lines and 64 KB, usually in a mapped window. Each Reader
+ * remembers where it stopped, so walking lines in order reads every byte
+ * once. A million lines cost about 250 KB of checkpoints plus one time per
+ * read that starts a line, where a long per line used to be 24 MB.
+ *
+ * Line numbers are ints, like the rows of the console: after MAX_LINES lines,
+ * newlines are no longer indexed. The rest of the output is still written
+ * (exports have it) but reads as part of the last line.
+ *
+ * The spill file is deleted on close(). While open, each store holds a lock
+ * on its file, so deleteStaleFiles() can tell the files of a killed or
+ * crashed app from those of another running instance and remove them.
+ *
+ * Threading: exactly one writer calls append(); any thread may read through
+ * its own {@link Reader}. Readers only see data up to the published size.
+ */
+public class ScrollbackStore implements Closeable {
+    static final int MAX_LINES = Integer.MAX_VALUE - 1;
+
+    // Region locked while the store is open - past any data, so reads are never blocked
+    private static final long LOCK_POSITION = Long.MAX_VALUE - 1;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final Charset charset;
+
+    // A known line start at most SCROLLBACK_CHECKPOINT_LINES lines and
+    // SCROLLBACK_CHECKPOINT_BYTES bytes before any line; line 0 starts at 0
+    private final LineIndex checkpointLines = new LineIndex();
+    private final LineIndex checkpointOffsets = new LineIndex();
+    private long lastCheckpointLine;   // Writer only
+    private long lastCheckpointOffset; // Writer only
+
+    // AnsiStyle id active at the start of lines after line 0, where it differs from
+    // the line before (the file keeps the raw escape sequences, a paged line needs
+    // the state it starts in)
+    private final LineIndex styleLines = new LineIndex();
+    private final LineIndex styleIds = new LineIndex();
+    private volatile int styledLines; // Lines 1..styledLines have a recorded style
+    private int currentStyle;         // Style writer only
+
+    // Time lines started (µs since creation), where it differs from the line before
+    private final long createdNanos = System.nanoTime();
+    private final LineIndex timeLines = new LineIndex();
+    private final LineIndex timeValues = new LineIndex();
+    private long lastTime = -1;  // Writer only
+    private int startedLines;    // Writer only: lines whose first byte is in the file
+
+    // Runs of lines that started on stderr: [errorStarts[i], errorEnds[i])
+    private final LineIndex errorStarts = new LineIndex();
+    private final LineIndex errorEnds = new LineIndex();
+    private volatile int errorLineCount;
+
+    // Bytes written so far (published after the data hits the channel)
+    private volatile long size;
+
+    // Completed lines and where the next one starts, published after the size
+    private volatile Tail tail = new Tail(0, 0);
+
+    private volatile MappedByteBuffer[] windows = new MappedByteBuffer[0];
+    private final Object mapLock = new Object();
+
+    private final FileLock lock; // Marks the file as in use, null if the file system has no locks
+    private volatile boolean closed;
+
+    private static final class Tail {
+        final int lines;  // Lines terminated by a newline
+        final long start; // Start of the line after them
+
+        Tail(int lines, long start) {
+            this.lines = lines;
+            this.start = start;
+        }
+    }
+
+    private ScrollbackStore(Path file, FileChannel channel, FileLock lock, Charset charset) {
+        this.file = file;
+        this.channel = channel;
+        this.lock = lock;
+        this.charset = charset;
+        this.checkpointOffsets.add(0);
+        this.checkpointLines.add(0);
+    }
+
+    /**
+     * Create a new spill file for one run.
+     */
+    public static ScrollbackStore create(Charset charset) throws IOException {
+        Path file = Files.createTempFile(Constants.SCROLLBACK_FILE_PREFIX, ".log");
+
+        FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        FileLock lock;
+        try {
+            lock = channel.tryLock(LOCK_POSITION, 1, false);
+        } catch (IOException e) {
+            lock = null; // No locks here - deleteStaleFiles() leaves such files alone
+        }
+        return new ScrollbackStore(file, channel, lock, charset);
+    }
+
+    /**
+     * Delete spill files no open store holds: left behind by an app that was
+     * killed or crashed, or that could not delete them on close. Files of
+     * another running instance are locked and stay. Lists the temp directory,
+     * so call it off the UI thread.
+     */
+    public static void deleteStaleFiles() {
+        Path temp = Path.of(System.getProperty("java.io.tmpdir"));
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(temp,
+                Constants.SCROLLBACK_FILE_PREFIX + "*.log")) {
+            for (Path file : files) {
+                if (isStale(file)) {
+                    try {
+                        Files.deleteIfExists(file);
+                    } catch (IOException e) {
+                        System.err.println("Unable to delete old scrollback file: " + e.getMessage());
+                    }
+                }
+            }
+        } catch (IOException | DirectoryIteratorException e) {
+            System.err.println("Unable to look for old scrollback files: " + e.getMessage());
+        }
+    }
+
+    private static boolean isStale(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE);
+             FileLock taken = channel.tryLock(LOCK_POSITION, 1, false)) {
+            return taken != null;
+        } catch (IOException | OverlappingFileLockException e) {
+            return false; // Open in this app, or no locks on this file system
+        }
+    }
+
+    /**
+     * Append raw stdout output read just now. Writer thread only.
+     */
+    public void append(byte[] data, int offset, int length) throws IOException {
+        append(data, offset, length, System.nanoTime(), false);
+    }
+
+    /**
+     * Append raw output. Writer thread only.
+     *
+     * @param readAt System.nanoTime() when the data was read from the process
+     * @param error  true for stderr output; lines starting in this data are marked
+     */
+    public void append(byte[] data, int offset, int length, long readAt, boolean error) throws IOException {
+        if (closed || length == 0) {
+            return;
+        }
+
+        long position = size;
+        ByteBuffer src = ByteBuffer.wrap(data, offset, length);
+        while (src.hasRemaining()) {
+            channel.write(src, position + src.position() - offset);
+        }
+
+        // Index new lines, then publish the size and the lines
+        Tail last = tail;
+        int line = last.lines; // Line being written
+        long lineStart = last.start;
+        for (int i = 0; i < length; i++) {
+            if (startedLines == line) {
+                startLine(line, readAt, error);
+                startedLines = line + 1;
+            }
+            if (data[offset + i] == '\n' && line < MAX_LINES) {
+                line++;
+                lineStart = position + i + 1;
+                checkpoint(line, lineStart);
+            }
+        }
+        size = position + length;
+        if (line != last.lines) {
+            tail = new Tail(line, lineStart);
+        }
+    }
+
+    private void startLine(int line, long readAt, boolean error) {
+        long time = Math.max(0, (readAt - createdNanos) / 1000);
+        if (time != lastTime) {
+            timeValues.add(time);
+            timeLines.add(line);
+            lastTime = time;
+        }
+        if (error) {
+            int last = errorStarts.size() - 1;
+            if (last >= 0 && errorEnds.get(last) == line) {
+                errorEnds.set(last, line + 1); // Continues the run of the line before
+            } else {
+                errorEnds.add(line + 1);
+                errorStarts.add(line);
+            }
+            errorLineCount++;
+        }
+    }
+
+    private void checkpoint(int line, long start) {
+        if (line - lastCheckpointLine >= Constants.SCROLLBACK_CHECKPOINT_LINES
+                || start - lastCheckpointOffset >= Constants.SCROLLBACK_CHECKPOINT_BYTES) {
+            checkpointOffsets.add(start);
+            checkpointLines.add(line);
+            lastCheckpointLine = line;
+            lastCheckpointOffset = start;
+        }
+    }
+
+    /**
+     * Number of displayable lines, counting an unterminated last line.
+     */
+    public int lineCount() {
+        Tail current = tail;
+        return size > current.start ? current.lines + 1 : current.lines;
+    }
+
+    /**
+     * Number of lines terminated by a newline.
+     */
+    public int completedLineCount() {
+        return tail.lines;
+    }
+
+    /**
+     * Byte offset where a line starts. {@code index} may be completedLineCount()
+     * (start of the line currently being written), which is known at once; an
+     * earlier line is looked up with a {@link Reader#lineStart scan}.
+     */
+    public long lineStart(int index) {
+        Tail current = tail;
+        if (index == current.lines) {
+            return current.start;
+        }
+        try {
+            return newReader().lineStart(index);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Record the style the next line starts with. Writer thread only,
+     * called once per newline in the same order the newlines are appended.
+     */
+    public void recordLineStyle(int styleId) {
+        int line = styledLines + 1;
+        if (closed || line > MAX_LINES) {
+            return;
+        }
+        if (styleId != currentStyle) {
+            styleIds.add(styleId);
+            styleLines.add(line);
+            currentStyle = styleId;
+        }
+        styledLines = line;
+    }
+
+    /**
+     * Overwrite the style recorded for the line being written. Writer thread only,
+     * for a line that starts in another stream than the one that ended the last line.
+     */
+    public void replaceLineStyle(int styleId) {
+        int line = styledLines;
+        if (closed || line == 0 || line != completedLineCount()) {
+            return;
+        }
+        int last = styleLines.size() - 1;
+        if (last >= 0 && styleLines.get(last) == line) {
+            styleIds.set(last, styleId);
+        } else if (styleId != currentStyle) {
+            styleIds.add(styleId);
+            styleLines.add(line);
+        }
+        currentStyle = styleId;
+    }
+
+    /**
+     * AnsiStyle id active at the start of a line (default if not recorded yet).
+     */
+    public int lineStyle(int index) {
+        if (index <= 0 || index > styledLines) {
+            return 0;
+        }
+        int found = styleLines.floor(index);
+        return found < 0 ? 0 : (int) styleIds.get(found);
+    }
+
+    /**
+     * Microseconds from the creation of the store until the first byte of
+     * the line was read, -1 if the line has not started yet.
+     */
+    public long lineTime(int index) {
+        if (index < 0 || index >= lineCount()) {
+            return -1;
+        }
+        int found = timeLines.floor(index);
+        return found < 0 ? -1 : timeValues.get(found);
+    }
+
+    /**
+     * True if the line started on stderr.
+     */
+    public boolean isErrorLine(int index) {
+        int found = errorStarts.floor(index);
+        return found >= 0 && index < errorEnds.get(found);
+    }
+
+    /**
+     * First stderr line at or after {@code index}, Integer.MAX_VALUE if none yet.
+     */
+    public int nextErrorLine(int index) {
+        int found = errorStarts.floor(index);
+        if (found >= 0 && index < errorEnds.get(found)) {
+            return index;
+        }
+        return found + 1 < errorStarts.size() ? (int) errorStarts.get(found + 1) : Integer.MAX_VALUE;
+    }
+
+    /**
+     * Number of stderr lines so far.
+     */
+    public int errorLineCount() {
+        return errorLineCount;
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public Charset getCharset() {
+        return charset;
+    }
+
+    public Reader newReader() {
+        return new Reader();
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        try {
+            channel.close();
+            windows = new MappedByteBuffer[0];
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // Still open elsewhere (mapped on Windows) - deleteStaleFiles() takes it next time
+            System.err.println("Unable to delete scrollback file: " + e.getMessage());
+        }
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Copy bytes [position, position + length) into dst at {@code offset}
+     * (written bytes only). Uses a mapped window when the range lies inside a finished one.
+     */
+    public void read(long position, byte[] dst, int offset, int length) throws IOException {
+        long windowSize = Constants.SCROLLBACK_MAP_WINDOW_BYTES;
+        int window = (int) (position / windowSize);
+        long windowStart = window * windowSize;
+
+        if (position + length <= windowStart + windowSize) {
+            MappedByteBuffer mapped = mappedWindow(window);
+            if (mapped != null) {
+                mapped.get((int) (position - windowStart), dst, offset, length);
+                return;
+            }
+        }
+
+        ByteBuffer target = ByteBuffer.wrap(dst, offset, length);
+        while (target.hasRemaining()) {
+            if (channel.read(target, position + target.position() - offset) < 0) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Mapped window, or null if it is not completely written yet.
+     */
+    private MappedByteBuffer mappedWindow(int window) throws IOException {
+        MappedByteBuffer[] current = windows;
+        if (window < current.length && current[window] != null) {
+            return current[window];
+        }
+
+        long windowSize = Constants.SCROLLBACK_MAP_WINDOW_BYTES;
+        long start = window * windowSize;
+        if (start + windowSize > size) {
+            return null;
+        }
+
+        synchronized (mapLock) {
+            current = windows;
+            if (window >= current.length) {
+                current = Arrays.copyOf(current, window + 1);
+            } else if (current[window] != null) {
+                return current[window];
+            } else {
+                current = current.clone();
+            }
+            current[window] = channel.map(FileChannel.MapMode.READ_ONLY, start, windowSize);
+            windows = current;
+            return current[window];
+        }
+    }
+
+    /**
+     * PER-THREAD LINE READER
+     *
+     * Holds the scratch buffers used for scanning and decoding, and the last
+     * line start it found, so each consumer (console, search, ...) owns one
+     * and never shares it between threads.
+     */
+    public class Reader {
+        private byte[] scratch = new byte[256];
+        private final byte[] scan = new byte[8192];
+        private int cursorLine;    // A line start found before
+        private long cursorOffset;
+
+        /**
+         * Text of a line without its line terminator.
+         * Overlong lines are cut at CONSOLE_MAX_LINE_LENGTH bytes.
+         */
+        public String line(int index) {
+            Tail current = tail;
+            long written = size;
+            if (index < 0 || index > current.lines || (index == current.lines && written <= current.start)) {
+                return "";
+            }
+
+            int length;
+            long start;
+            try {
+                start = lineStart(index);
+                long end = index < current.lines ? lineStart(index + 1) - 1 : written;
+                length = (int) Math.min(end - start, Constants.CONSOLE_MAX_LINE_LENGTH);
+                if (length <= 0) {
+                    return "";
+                }
+
+                if (scratch.length < length) {
+                    scratch = new byte[Math.max(length, scratch.length * 2)];
+                }
+                ScrollbackStore.this.read(start, scratch, 0, length);
+            } catch (IOException e) {
+                return "";
+            }
+
+            // Windows tools end lines with \r\n - drop the \r so it is not rendered
+            if (scratch[length - 1] == '\r') {
+                length--;
+            }
+            return new String(scratch, 0, length, charset);
+        }
+
+        /**
+         * Byte offset where a line starts; {@code index} may be completedLineCount().
+         * Scans from the checkpoint before the line, or from the line this reader
+         * found last when that is closer - reading lines in order scans each byte once.
+         */
+        public long lineStart(int index) throws IOException {
+            Tail current = tail;
+            if (index >= current.lines) {
+                return current.start;
+            }
+
+            int found = checkpointLines.floor(index);
+            int line = (int) checkpointLines.get(found);
+            long offset = checkpointOffsets.get(found);
+            if (cursorLine <= index && cursorLine > line) {
+                line = cursorLine;
+                offset = cursorOffset;
+            }
+
+            // Count newlines up to the line; written bytes only
+            long position = offset;
+            while (line < index) {
+                int count = (int) Math.min(scan.length, size - position);
+                if (count <= 0) {
+                    throw new IOException("Line " + index + " is not in the scrollback file");
+                }
+                ScrollbackStore.this.read(position, scan, 0, count);
+                for (int i = 0; i < count && line < index; i++) {
+                    if (scan[i] == '\n') {
+                        line++;
+                        offset = position + i + 1;
+                    }
+                }
+                position += count;
+            }
+
+            cursorLine = index;
+            cursorOffset = offset;
+            return offset;
+        }
+
+        /**
+         * Text of bytes [start, end), at most CONSOLE_MAX_LINE_LENGTH bytes from the end.
+         */
+        public String text(long start, long end) {
+            int length = (int) Math.min(end - start, Constants.CONSOLE_MAX_LINE_LENGTH);
+            if (length <= 0) {
+                return "";
+            }
+            if (scratch.length < length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+
+            try {
+                ScrollbackStore.this.read(end - length, scratch, 0, length);
+            } catch (IOException e) {
+                return "";
+            }
+            return new String(scratch, 0, length, charset);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.eashell.service.output;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * REMOVES SENTINEL LINES FROM A RAW OUTPUT STREAM
+ *
+ * A shell session marks the end of every command with a line of the form
+ *
+ *   RS token ':' [exit code] '\n'        (RS = 0x1E, never printed by normal tools)
+ *
+ * The scanner runs on the raw bytes of one stream before they are decoded,
+ * cuts every sentinel out and reports its exit code (-1 if it has none).
+ * A sentinel may be split across reads: bytes that could still be the start
+ * of one are held back and released as soon as they turn out not to be.
+ *
+ *   read 1:  "done\n\036tok"          -> "done\n"      (holds "\036tok")
+ *   read 2:  ":0\nnext"               -> "next"        (reports 0)
+ *
+ * Reports are queued and delivered by {@link #fireSentinels()}, after the
+ * output in front of them has been published. Reader thread only.
+ */
+public class SentinelScanner {
+    private static final byte START = 0x1E;
+
+    private final byte[] pattern;   // RS + token + ':'
+    private final IntConsumer onSentinel;
+
+    private byte[] output = new byte[0];
+    private final byte[] held;      // Bytes that may be the start of a sentinel
+    private int heldLength;
+    private boolean inCode;         // Pattern matched, reading the exit code up to '\n'
+    private int code;
+    private boolean hasCode;
+    private boolean negative;
+
+    private int[] found = new int[4]; // Sentinels not reported yet
+    private int foundCount;
+
+    public SentinelScanner(String token, IntConsumer onSentinel) {
+        byte[] tokenBytes = token.getBytes(StandardCharsets.US_ASCII);
+        this.pattern = new byte[tokenBytes.length + 2];
+        this.pattern[0] = START;
+        System.arraycopy(tokenBytes, 0, this.pattern, 1, tokenBytes.length);
+        this.pattern[pattern.length - 1] = ':';
+        this.held = new byte[pattern.length + 16];
+        this.onSentinel = onSentinel;
+    }
+
+    /**
+     * Filter data[0, length). The result is in {@link #output()}.
+     *
+     * @return number of output bytes
+     */
+    public int filter(byte[] data, int length) {
+        if (output.length < length + held.length) {
+            output = new byte[length + held.length];
+        }
+        int n = 0;
+
+        for (int i = 0; i < length; i++) {
+            byte b = data[i];
+
+            if (inCode) {
+                if (b == '\n') {
+                    finishSentinel();
+                } else if (b >= '0' && b <= '9' && heldLength < held.length) {
+                    code = code * 10 + (b - '0');
+                    hasCode = true;
+                    held[heldLength++] = b;
+                } else if (b == '-' && heldLength == pattern.length) {
+                    negative = true;
+                    held[heldLength++] = b;
+                } else if (b == '\r' && heldLength < held.length) {
+                    held[heldLength++] = b; // Windows line end - wait for the \n
+                } else {
+                    n = release(n);
+                    n = startOrCopy(b, n);
+                }
+            } else if (heldLength > 0) {
+                if (b == pattern[heldLength]) {
+                    held[heldLength++] = b;
+                    inCode = heldLength == pattern.length;
+                } else {
+                    n = release(n);
+                    n = startOrCopy(b, n);
+                }
+            } else {
+                n = startOrCopy(b, n);
+            }
+        }
+        return n;
+    }
+
+    /**
+     * End of stream: release a sentinel start that never completed.
+     */
+    public int flush() {
+        if (output.length < held.length) {
+            output = new byte[held.length];
+        }
+        return release(0);
+    }
+
+    public byte[] output() {
+        return output;
+    }
+
+    /**
+     * Report the sentinels found since the last call.
+     */
+    public void fireSentinels() {
+        int count = foundCount;
+        foundCount = 0;
+        for (int i = 0; i < count; i++) {
+            onSentinel.accept(found[i]);
+        }
+    }
+
+    private int startOrCopy(byte b, int n) {
+        if (b == START) {
+            held[heldLength++] = b; // RS never occurs inside the pattern, so this is the only candidate
+            return n;
+        }
+        output[n] = b;
+        return n + 1;
+    }
+
+    private int release(int n) {
+        System.arraycopy(held, 0, output, n, heldLength);
+        n += heldLength;
+        resetMatch();
+        return n;
+    }
+
+    private void finishSentinel() {
+        if (foundCount == found.length) {
+            found = Arrays.copyOf(found, foundCount * 2);
+        }
+        found[foundCount++] = hasCode ? (negative ? -code : code) : -1;
+        resetMatch();
+    }
+
+    private void resetMatch() {
+        heldLength = 0;
+        inCode = false;
+        code = 0;
+        hasCode = false;
+        negative = false;
+    }
+}
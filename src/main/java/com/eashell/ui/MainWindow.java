@@ -1,12 +1,28 @@
 package com.eashell.ui;
 
+import com.eashell.model.RunJournal;
+import com.eashell.model.Schedule;
 import com.eashell.model.ScriptEntry;
+import com.eashell.model.ScriptGroup;
 import com.eashell.model.ScriptRepository;
+import com.eashell.service.BackgroundTasks;
+import com.eashell.service.FileWatcher;
+import com.eashell.service.GroupLauncher;
 import com.eashell.service.ProcessRunner;
+import com.eashell.service.ResourceSampler;
+import com.eashell.service.RunHistory;
+import com.eashell.service.RunScheduler;
+import com.eashell.service.RunnerThreads;
+import com.eashell.service.ScheduleTimer;
+import com.eashell.service.ScheduledStart;
+import com.eashell.service.StepCache;
+import com.eashell.service.output.ScrollbackStore;
+import com.eashell.ui.components.ConsoleView;
 import com.eashell.ui.components.OutputPanel;
 import com.eashell.ui.components.ScriptListPanel;
 import com.eashell.ui.components.TopBar;
 import com.eashell.ui.dialogs.DeleteConfirmDialog;
+import com.eashell.ui.dialogs.GroupDialog;
 import com.eashell.ui.dialogs.ScriptDialog;
 import com.eashell.util.Constants;
 import com.eashell.util.StyleManager;
@@ -14,15 +30,23 @@ import javafx.application.Platform;
 import javafx.scene.Scene;
 import javafx.scene.control.SplitPane;
 import javafx.scene.control.Tab;
-import javafx.scene.control.TextArea;
 import javafx.scene.layout.BorderPane;
 import javafx.stage.Stage;
 
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
 
 /**
  * MAIN APPLICATION WINDOW
@@ -62,21 +86,54 @@ public class MainWindow {
     // Thread pool for executing scripts in the background
     private final ExecutorService executorService;
 
+    // Heavy scripts wait here for a CPU slot before reaching executorService
+    private final RunScheduler scheduler;
+
+    // Groups still starting their members: group_name -> launcher
+    private final Map<String, GroupLauncher> groupLaunches = new ConcurrentHashMap<>();
+
+    // Scripts in watch mode: script_name -> watcher of its working directory
+    private final Map<String, FileWatcher> watchers = new ConcurrentHashMap<>();
+
+    // Scripts with a schedule, all fired from one timer thread
+    private final ScheduleTimer scheduleTimer;
+
+    // Moves output of all runners into their consoles once per frame
+    private final OutputDrain outputDrain;
+
+    // Compressed output of closed tabs (🕘 RECENT)
+    private final RunHistory runHistory;
+
+    // CPU / memory of every runner's process tree, all sampled by one task
+    private final ResourceSampler resourceSampler;
+
+    // Start/end time, durations and exit codes of every finished run (null if unavailable)
+    private final RunJournal runJournal;
+    private final StepCache stepCache = StepCache.open(Paths.get(Constants.STEP_CACHE_FILE));
+
     // UI components
     private ScriptListPanel scriptListPanel; // Left panel with script list
     private OutputPanel outputPanel;         // Right panel with output
+    private TopBar topBar;                   // Header with counters and global buttons
 
     public MainWindow(Stage primaryStage) {
         this.primaryStage = primaryStage;
         this.repository = new ScriptRepository();
         this.runningProcesses = new ConcurrentHashMap<>();
-
-        // Create thread pool for running scripts
-        this.executorService = Executors.newCachedThreadPool(r -> {
-            Thread t = new Thread(r);
-            t.setDaemon(true); // Daemon threads terminate when the application closes
-            return t;
-        });
+        this.outputDrain = new OutputDrain();
+        this.runHistory = new RunHistory(Constants.HISTORY_MEMORY_BUDGET_BYTES);
+        this.runJournal = openJournal();
+        BackgroundTasks.submit(ScrollbackStore::deleteStaleFiles); // Spill files of a killed or crashed app
+
+        // One thread per running script (virtual threads when the JVM has them)
+        this.executorService = RunnerThreads.newRunnerExecutor();
+        this.scheduler = new RunScheduler(executorService, Constants.HEAVY_RUN_LIMIT);
+        this.resourceSampler = new ResourceSampler(runningProcesses::values,
+                usage -> Platform.runLater(() -> showUsage(usage)));
+        ScheduledStart<ProcessRunner> scheduledStart = new ScheduledStart<>(Platform::runLater,
+                runningProcesses::get, ProcessRunner::hasEnded, this::closeFinishedRun, this::runScheduled);
+        this.scheduleTimer = new ScheduleTimer(ZoneId.systemDefault(),
+                name -> Platform.runLater(() -> scheduledStart.accept(name)));
     }
 
     /**
@@ -94,10 +151,13 @@ public class MainWindow {
         root.setStyle(StyleManager.getRootStyle()); // Dark gradient background
 
         // === TOP PANEL ===
-        TopBar topBar = new TopBar(
+        topBar = new TopBar(
                 this::handleAddScript,      // Callback for "+ NEW SCRIPT" button
+                this::handleAddGroup,       // Callback for "+ NEW GROUP" button
                 this::handleStopAll,        // Callback for "⏹ STOP ALL" button
-                runningProcesses::size      // Function to get number of processes
+                runningProcesses::size,     // Function to get number of processes
+                runHistory::recent,         // Closed runs for the "🕘 RECENT" menu
+                run -> outputPanel.openArchivedTab(run) // Reopen a closed run
         );
         root.setTop(topBar); // Position at top
 
@@ -110,11 +170,18 @@ public class MainWindow {
         scriptListPanel = new ScriptListPanel(
                 this::handleRunScript,      // Callback when "▶ RUN" is clicked
                 this::handleEditScript,     // Callback when "✎ EDIT" is clicked
-                this::handleDeleteScript    // Callback when "✖ DELETE" is clicked
+                this::handleDeleteScript,   // Callback when "✖ DELETE" is clicked
+                this::handleStartGroup,     // Callback when "▶ START" on a group is clicked
+                this::handleEditGroup,      // Callback when "✎ EDIT" on a group is clicked
+                this::handleDeleteGroup,    // Callback when "✖ DELETE" on a group is clicked
+                runJournal                  // Run stats shown on the cards
         );
+        if (runJournal != null) {
+            runJournal.setOnAppend(name -> Platform.runLater(() -> scriptListPanel.updateScriptStats(name)));
+        }
 
         // === RIGHT PANEL - CONSOLE OUTPUT ===
-        outputPanel = new OutputPanel();
+        outputPanel = new OutputPanel(runHistory);
 
         // Add panels to SplitPane
         splitPane.getItems().addAll(scriptListPanel, outputPanel);
@@ -132,11 +199,18 @@ public class MainWindow {
         // Window close handler - stop all processes
         primaryStage.setOnCloseRequest(e -> cleanup());
 
-        // Load scripts from JSON file
+        // Load scripts and groups from JSON files
         refreshScriptList();
+        refreshGroupList();
 
         // Show window
         primaryStage.show();
+
+        // CPU / memory in the tabs and the top bar
+        resourceSampler.start(Constants.RESOURCE_SAMPLE_INTERVAL_MS);
+
+        // Scheduled runs (schedules were loaded with the script list)
+        scheduleTimer.start();
     }
 
     // =========================================================================
@@ -167,7 +241,9 @@ public class MainWindow {
         // Show edit dialog with existing data
         ScriptDialog.showEditDialog(entry).ifPresent(newEntry -> {
             repository.update(entry, newEntry); // Update in JSON
+            stopWatching(entry.getName());      // New watch settings apply from the next run
             refreshScriptList();                // Update card list
+            refreshGroupList();                 // Groups follow a renamed script
         });
     }
 
@@ -181,7 +257,9 @@ public class MainWindow {
         // Show confirmation dialog
         if (DeleteConfirmDialog.confirm(entry)) {
             repository.remove(entry);    // Remove from JSON
+            stopWatching(entry.getName());
             refreshScriptList();         // Update card list
+            refreshGroupList();          // And from the groups it was in
         }
     }
 
@@ -194,18 +272,31 @@ public class MainWindow {
      * 1. Check if script is not already running
      * 2. Create ProcessRunner
      * 3. Create tab in OutputPanel
-     * 4. Start ProcessRunner in a separate thread
-     * 5. Update status on card (⚫ -> 🟢)
+     * 4. Start ProcessRunner in a separate thread (heavy scripts may queue, see RunScheduler)
+     * 5. Update status on card (⚫ -> 🟢, or ⚫ -> ⏳ while queued)
      */
     private void handleRunScript(ScriptEntry entry) {
         // Check if script is already running
-        if (runningProcesses.containsKey(entry.getName())) {
+        if (!startScript(entry, null)) {
             DeleteConfirmDialog.showAlreadyRunning(); // Show warning
-            return;
+        }
+    }
+
+    /**
+     * START A SCRIPT (JavaFX thread)
+     *
+     * Steps 2-7 of handleRunScript(); also used by group launches.
+     *
+     * @param onFinished called on the runner thread when the run is over, may be null
+     * @return false if the script is already running
+     */
+    private boolean startScript(ScriptEntry entry, Runnable onFinished) {
+        if (runningProcesses.containsKey(entry.getName())) {
+            return false;
         }
 
         // === STEP 1: CREATE RUNNER ===
-        // Initially create ProcessRunner without outputArea and tab
+        // Initially create ProcessRunner without console and tab
         ProcessRunner runner = new ProcessRunner(entry, null, null);
 
         // === STEP 2: CREATE TAB IN RIGHT PANEL ===
@@ -216,40 +307,213 @@ public class MainWindow {
                 this::updateScriptStatus // Callback for updating card status
         );
 
-        // === STEP 3: GET TEXTAREA FROM TAB ===
-        // Needed so ProcessRunner can write output to this area
-        TextArea outputArea = outputPanel.getOutputAreaFromTab(outputTab);
+        // === STEP 3: GET CONSOLE FROM TAB ===
+        // Needed so ProcessRunner can write output to this console
+        ConsoleView console = outputPanel.getConsoleFromTab(outputTab);
 
         // === STEP 4: UPDATE RUNNER WITH CORRECT REFERENCES ===
-        runner.setOutputArea(outputArea); // Set where to write output
+        runner.setConsole(console);       // Set where to write output
         runner.setTab(outputTab);         // Set tab for updating title
+        runner.setJournal(runJournal);    // Record the run when it finishes
+        runner.setStepCache(stepCache);   // Skip "#cache:" steps whose inputs are unchanged
+        runner.setOnFinished(onFinished); // Frees the slot of a group launch
 
         // === STEP 5: SAVE RUNNER IN MAP ===
         runningProcesses.put(entry.getName(), runner);
+        outputDrain.register(runner); // Output reaches the console once per frame
+
+        // === STEP 6: START IN SEPARATE THREAD (HEAVY SCRIPTS MAY QUEUE) ===
+        // ProcessRunner implements Runnable; the scheduler hands it to executorService
+        String name = entry.getName();
+        runner.setOnStop(() -> { // Stopped while queued - let it report that
+            scheduler.release(runner);
+            updateScriptStatus(name, true); // ⏳ -> 🟢, like any stopped run whose tab is open
+        });
+        boolean startedNow = scheduler.submit(runner, entry.isHeavy(), entry.getPriority(), () ->
+                Platform.runLater(() -> {
+                    outputTab.setText(name + " " + Constants.STATUS_RUNNING);
+                    scriptListPanel.updateScriptStatus(name, true); // ⏳ -> 🟢
+                }));
+
+        // === STEP 7: UPDATE STATUS ON CARD ===
+        if (startedNow) {
+            updateScriptStatus(name, true); // ⚫ -> 🟢
+        } else {
+            outputTab.setText(name + " " + Constants.STATUS_QUEUED);
+            scriptListPanel.updateScriptQueued(name); // ⚫ -> ⏳
+        }
+
+        // === STEP 8: WATCH MODE ===
+        if (entry.isWatch()) {
+            startWatching(entry);
+        }
+        return true;
+    }
+
+    /**
+     * WATCH MODE
+     *
+     * A watched script runs again whenever files in its working directory
+     * change - until its tab is closed, STOP ALL is clicked or the script
+     * is edited or deleted. The ⏹ STOP button only ends the current run.
+     *
+     *   files change ──► FileWatcher (debounced) ──► close old tab, stop tree
+     *                                                        │ stopped
+     *                                                        ▼
+     *                                                  startScript() again
+     */
+    private void startWatching(ScriptEntry entry) {
+        String name = entry.getName();
+        if (watchers.containsKey(name)) {
+            return; // Already watching (this run is a restart)
+        }
+
+        List<String> exclude = entry.getWatchExclude() == null || entry.getWatchExclude().isEmpty()
+                ? Constants.WATCH_DEFAULT_EXCLUDES : entry.getWatchExclude();
+        try {
+            FileWatcher watcher = new FileWatcher(Paths.get(entry.getWorkingDir()), entry.getWatchInclude(),
+                    exclude, Constants.WATCH_DEBOUNCE_MS, () -> Platform.runLater(() -> restartOnChange(name)));
+            watchers.put(name, watcher);
+            watcher.start(name);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Unable to watch " + entry.getWorkingDir() + ": " + e.getMessage());
+        }
+    }
+
+    private void stopWatching(String name) {
+        FileWatcher watcher = watchers.remove(name);
+        if (watcher != null) {
+            watcher.close();
+        }
+    }
+
+    /**
+     * Files of a watched script changed (JavaFX thread): replace the current
+     * run with a new one once the old process tree is gone, so the new run
+     * gets the ports and files back.
+     */
+    private void restartOnChange(String name) {
+        if (!watchers.containsKey(name)) {
+            return; // Stopped watching while the change was on its way
+        }
+        ScriptEntry entry = repository.findByName(name);
+        if (entry == null) {
+            stopWatching(name);
+            return;
+        }
+
+        ProcessRunner runner = runningProcesses.remove(name);
+        if (runner == null) {
+            startScript(entry, null);
+            return;
+        }
+        outputPanel.closeRunTab(name, runner).whenComplete((done, error) -> Platform.runLater(() -> {
+            if (watchers.containsKey(name)) {
+                startScript(entry, null);
+            }
+        }));
+    }
 
-        // === STEP 6: UPDATE STATUS ON CARD ===
-        updateScriptStatus(entry.getName(), true); // ⚫ -> 🟢
+    /**
+     * Start a script whose schedule fired (JavaFX thread). ScheduledStart
+     * has made sure no run of it is in progress or still has a tab.
+     */
+    private void runScheduled(String name) {
+        ScriptEntry entry = repository.findByName(name);
+        if (entry != null) {
+            startScript(entry, null);
+        }
+    }
+
+    /**
+     * Close the tab of a run that is over, archiving its output, so the
+     * script can start again (JavaFX thread).
+     */
+    private CompletableFuture<Void> closeFinishedRun(String name, ProcessRunner runner) {
+        runningProcesses.remove(name, runner);
+        return outputPanel.closeRunTab(name, runner);
+    }
+
+    /**
+     * ADD NEW GROUP
+     *
+     * Called when the "+ NEW GROUP" button in TopBar is clicked.
+     */
+    private void handleAddGroup() {
+        GroupDialog.showAddDialog(scriptNames()).ifPresent(group -> {
+            repository.addGroup(group);
+            refreshGroupList();
+        });
+    }
+
+    private void handleEditGroup(ScriptGroup group) {
+        GroupDialog.showEditDialog(group, scriptNames()).ifPresent(newGroup -> {
+            repository.updateGroup(group, newGroup);
+            refreshGroupList();
+        });
+    }
+
+    private void handleDeleteGroup(ScriptGroup group) {
+        if (DeleteConfirmDialog.confirm(group)) {
+            repository.removeGroup(group);
+            refreshGroupList();
+        }
+    }
+
+    /**
+     * START A GROUP
+     *
+     * Called when "▶ START" on a group card is clicked. The launcher runs on
+     * the executor and starts the members as its concurrency limit allows;
+     * members that are already running are skipped.
+     */
+    private void handleStartGroup(ScriptGroup group) {
+        String name = group.getName();
+        GroupLauncher launcher = new GroupLauncher(group, repository.membersOf(group),
+                Platform::runLater, this::startScript,
+                progress -> scriptListPanel.updateGroupProgress(name, progress));
+
+        if (groupLaunches.putIfAbsent(name, launcher) != null) {
+            return; // Still starting from the last click
+        }
+        executorService.submit(() -> {
+            try {
+                launcher.run();
+            } finally {
+                groupLaunches.remove(name, launcher);
+            }
+        });
+    }
 
-        // === STEP 7: START IN SEPARATE THREAD ===
-        // ProcessRunner implements Runnable, so can be passed to executorService
-        executorService.submit(runner);
+    private List<String> scriptNames() {
+        return repository.getAll().stream().map(ScriptEntry::getName).collect(Collectors.toList());
     }
 
     /**
      * STOP ALL SCRIPTS
      *
      * Called when the "⏹ STOP ALL" button in TopBar is clicked.
-     * Stops all active processes and updates statuses on cards.
+     * All runners stop at once on stopper threads, under one deadline;
+     * each card turns ⚫ as soon as its runner is confirmed stopped.
+     *
+     * @return completes when every runner is stopped
      */
-    private void handleStopAll() {
-        // Stop all processes
-        runningProcesses.values().forEach(ProcessRunner::stop);
-        runningProcesses.clear(); // Clear map
-
-        // Update statuses on all cards (🟢 -> ⚫)
-        scriptListPanel.getStatusLabels().forEach((name, label) ->
-                StyleManager.setStoppedStatus(label)
-        );
+    private CompletableFuture<Void> handleStopAll() {
+        // Groups stop starting members, watched scripts stop restarting
+        groupLaunches.values().forEach(GroupLauncher::cancel);
+        watchers.keySet().forEach(this::stopWatching);
+
+        // Stop all processes in parallel
+        long deadline = ProcessRunner.stopDeadline();
+        List<CompletableFuture<Void>> stops = new ArrayList<>();
+        runningProcesses.forEach((name, runner) -> stops.add(runner.stopAsync(deadline)
+                .whenComplete((done, error) -> Platform.runLater(() -> {
+                    // A new run of the same script may have started meanwhile - leave it alone
+                    if (runningProcesses.remove(name, runner)) {
+                        scriptListPanel.updateScriptStatus(name, false); // 🟢 -> ⚫
+                    }
+                }))));
+        return CompletableFuture.allOf(stops.toArray(new CompletableFuture<?>[0]));
     }
 
     /**
@@ -269,13 +533,34 @@ public class MainWindow {
             // Update status indicator on card (⚫/🟢)
             scriptListPanel.updateScriptStatus(scriptName, running);
 
-            // If script stopped - remove from active processes map
+            // If script stopped - remove from active processes map, stop watching its files
             if (!running) {
                 runningProcesses.remove(scriptName);
+                stopWatching(scriptName);
             }
         });
     }
 
+    /**
+     * SHOW RESOURCE USAGE
+     *
+     * Called on the JavaFX thread with one sample of all runners:
+     * each tab gets its own, the top bar the totals.
+     */
+    private void showUsage(Map<ProcessRunner, ResourceSampler.Usage> usage) {
+        double cpu = 0;
+        long rss = 0;
+        int processCount = 0;
+        for (Map.Entry<ProcessRunner, ResourceSampler.Usage> runner : usage.entrySet()) {
+            ResourceSampler.Usage sample = runner.getValue();
+            outputPanel.showUsage(runner.getKey(), sample);
+            cpu += sample.getCpuPercent();
+            rss = sample.getRssBytes() < 0 || rss < 0 ? -1 : rss + sample.getRssBytes();
+            processCount += sample.getProcessCount();
+        }
+        topBar.showUsage(cpu, rss, processCount);
+    }
+
     /**
      * UPDATE SCRIPT CARD LIST
      *
@@ -283,7 +568,39 @@ public class MainWindow {
      * Called after adding/editing/deleting a script.
      */
     private void refreshScriptList() {
-        scriptListPanel.refresh(repository.getAll());
+        List<ScriptEntry> entries = repository.getAll();
+        scriptListPanel.refresh(entries);
+
+        // Added, changed and deleted schedules take effect right away
+        Map<String, Schedule> schedules = new HashMap<>();
+        for (ScriptEntry entry : entries) {
+            if (entry.getSchedule() != null && !entry.getSchedule().isBlank()) {
+                try {
+                    schedules.put(entry.getName(), Schedule.parse(entry.getSchedule()));
+                } catch (IllegalArgumentException e) {
+                    // Shown on the card
+                }
+            }
+        }
+        scheduleTimer.sync(schedules);
+    }
+
+    private void refreshGroupList() {
+        scriptListPanel.refreshGroups(repository.getGroups());
+    }
+
+    /**
+     * OPEN RUN JOURNAL
+     *
+     * The app still works without it - runs are just not recorded.
+     */
+    private static RunJournal openJournal() {
+        try {
+            return RunJournal.open(Paths.get(Constants.JOURNAL_FILE), Paths.get(Constants.JOURNAL_INDEX_FILE));
+        } catch (IOException e) {
+            System.err.println("Unable to open run journal: " + e.getMessage());
+            return null;
+        }
     }
 
     /**
@@ -293,10 +610,20 @@ public class MainWindow {
      * Stops all processes and shuts down thread pool.
      */
     private void cleanup() {
-        // Stop all active scripts
-        handleStopAll();
+        // No scheduled runs start while closing
+        scheduleTimer.shutdown();
+
+        // Stop all active scripts - in parallel, so this takes one stop timeout at most
+        try {
+            handleStopAll().get(Constants.PROCESS_STOP_TIMEOUT_SECONDS + 1L, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException ex) {
+            System.err.println("Not all scripts confirmed stopping: " + ex);
+        }
 
-        // Shut down thread pool
+        // Shut down thread pool and sampler
+        resourceSampler.shutdown();
         executorService.shutdownNow();
 
         try {
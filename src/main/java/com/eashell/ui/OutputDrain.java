@@ -0,0 +1,50 @@
+package com.eashell.ui;
+
+import com.eashell.service.output.OutputSource;
+import com.eashell.util.Constants;
+import javafx.animation.AnimationTimer;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * SINGLE FRAME-PACED OUTPUT DRAIN
+ *
+ * Runners never post to the JavaFX event queue themselves. Instead this timer
+ * runs once per pulse (~60 times a second), visits every registered runner and
+ * moves its pending output into its console in one batch.
+ *
+ * Each runner gets the same char budget per frame, so one chatty script
+ * cannot starve the others - its excess simply waits for the next frame.
+ *
+ * The timer only runs while at least one source is registered.
+ */
+public class OutputDrain extends AnimationTimer {
+    // Only touched from the JavaFX thread
+    private final List<OutputSource> sources = new ArrayList<>();
+    private boolean started;
+
+    public void register(OutputSource source) {
+        sources.add(source);
+        if (!started) {
+            start();
+            started = true;
+        }
+    }
+
+    @Override
+    public void handle(long now) {
+        Iterator<OutputSource> it = sources.iterator();
+        while (it.hasNext()) {
+            if (!it.next().drainOutput(Constants.DRAIN_BUDGET_PER_FRAME)) {
+                it.remove(); // Finished and fully drained
+            }
+        }
+
+        if (sources.isEmpty()) {
+            stop();
+            started = false;
+        }
+    }
+}
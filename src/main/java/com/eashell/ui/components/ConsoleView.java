@@ -0,0 +1,415 @@
+package com.eashell.ui.components;
+
+import com.eashell.service.output.AnsiStyle;
+import com.eashell.service.output.ConsoleBuffer;
+import com.eashell.service.output.OutputFilter;
+import com.eashell.util.Constants;
+import com.eashell.util.StyleManager;
+import javafx.beans.property.ReadOnlyBooleanProperty;
+import javafx.beans.property.ReadOnlyBooleanWrapper;
+import javafx.beans.property.ReadOnlyStringProperty;
+import javafx.beans.property.ReadOnlyStringWrapper;
+import javafx.collections.ObservableListBase;
+import javafx.css.PseudoClass;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontPosture;
+import javafx.scene.text.FontWeight;
+import javafx.scene.text.Text;
+import javafx.scene.text.TextFlow;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * VIRTUALIZED CONSOLE OUTPUT
+ *
+ * Replacement for the TextArea that used to live in every output tab.
+ * ListView only creates cells for the rows that are on screen, so the cost
+ * of a frame does not depend on how much output the tab holds.
+ *
+ * The items list is a live view over {@link ConsoleBuffer}: nothing is copied,
+ * {@link #publishChanges()} just tells the ListView how many rows exist now.
+ * With a grep filter the rows are the filter's matching lines instead.
+ *
+ * ┌─────────────────────────────┐
+ * │ row 1204  (ConsoleCell)     │ <- only visible rows
+ * ▌ row 1205  (ConsoleCell)     │    have cells (▌ = stderr line)
+ * │ ...                         │
+ * │ row 1240  (ConsoleCell)     │
+ * └─────────────────────────────┘
+ */
+public class ConsoleView extends ListView<String> {
+    private static final Color DEFAULT_TEXT = Color.web(StyleManager.CONSOLE_TEXT);
+    private static final PseudoClass STDERR = PseudoClass.getPseudoClass("stderr");
+
+    // Paint per AnsiStyle id, shared by all consoles (JavaFX thread only)
+    private static Color[] styleColors = new Color[64];
+
+    private final ConsoleBuffer buffer;
+    private final LineList lines;
+
+    // Keep the last line in view as output arrives (off while looking at a search hit)
+    private final ReadOnlyBooleanWrapper follow = new ReadOnlyBooleanWrapper(true);
+
+    // Paused consoles get no output at all - the runner drops it and
+    // realigns with the scrollback file on resume
+    private final ReadOnlyBooleanWrapper paused = new ReadOnlyBooleanWrapper(false);
+    private boolean userPaused; // ⏸ PAUSE pressed
+    private boolean hidden;     // Tab not selected
+
+    // Summary shown instead of live output while the run floods (empty = normal)
+    private final ReadOnlyStringWrapper floodStatus = new ReadOnlyStringWrapper("");
+
+    public ConsoleView(ConsoleBuffer buffer) {
+        this.buffer = buffer;
+        this.lines = new LineList();
+
+        setItems(lines);
+        getStyleClass().add("console-view");
+        setStyle(StyleManager.getConsoleStyle());
+
+        // Fixed row height lets VirtualFlow position rows without measuring them
+        setFixedCellSize(Constants.CONSOLE_LINE_HEIGHT);
+        setCellFactory(view -> new ConsoleCell());
+    }
+
+    /**
+     * Append output and show it. Must be called on the JavaFX thread.
+     */
+    public void append(CharSequence text) {
+        append(text, 0, text.length());
+    }
+
+    /**
+     * Append text[start, end) and show it. Must be called on the JavaFX thread.
+     */
+    public void append(CharSequence text, int start, int end) {
+        buffer.append(text, start, end);
+        publishChanges();
+    }
+
+    /**
+     * Clear all output (🗑 CLEAR button).
+     */
+    public void clear() {
+        buffer.clear();
+        lines.skipClearedMatches();
+        publishChanges();
+    }
+
+    /**
+     * Sync the ListView with the buffer and keep the last line in view when following.
+     */
+    public void publishChanges() {
+        if (lines.publish() && follow.get()) {
+            scrollToEnd();
+        }
+    }
+
+    /**
+     * Swap in a completed grep filter (null shows all output again).
+     * The rows change in one step.
+     */
+    public void showFilter(OutputFilter filter) {
+        lines.setFilter(filter);
+        if (follow.get()) {
+            scrollToEnd();
+        }
+    }
+
+    public boolean isFiltered() {
+        return lines.filter != null;
+    }
+
+    private void scrollToEnd() {
+        if (!lines.isEmpty()) {
+            scrollTo(lines.size() - 1);
+        }
+    }
+
+    /**
+     * Scroll to an absolute (scrollback) line and select it. Stops following.
+     *
+     * @return false if the line was cleared or is not published yet
+     */
+    public boolean revealLine(int absoluteLine) {
+        int index = lines.indexOfLine(absoluteLine);
+        if (index < 0 || index >= lines.size()) {
+            return false;
+        }
+
+        follow.set(false);
+        getSelectionModel().clearAndSelect(index);
+        scrollTo(Math.max(0, index - 3)); // A few rows of context above the hit
+        return true;
+    }
+
+    public void setFollow(boolean follow) {
+        this.follow.set(follow);
+        if (follow) {
+            getSelectionModel().clearSelection();
+            lines.publish();
+            scrollToEnd();
+        }
+    }
+
+    public ReadOnlyBooleanProperty followProperty() {
+        return follow.getReadOnlyProperty();
+    }
+
+    /**
+     * ⏸ PAUSE / ▶ FOLLOW toggle of the tab.
+     */
+    public void setUserPaused(boolean userPaused) {
+        this.userPaused = userPaused;
+        paused.set(userPaused || hidden);
+    }
+
+    /**
+     * Hidden (inactive) tabs are paused too, so they cost nothing.
+     */
+    public void setHidden(boolean hidden) {
+        this.hidden = hidden;
+        paused.set(userPaused || hidden);
+    }
+
+    public boolean isUserPaused() {
+        return userPaused;
+    }
+
+    public boolean isPaused() {
+        return paused.get();
+    }
+
+    public ReadOnlyBooleanProperty pausedProperty() {
+        return paused.getReadOnlyProperty();
+    }
+
+    /**
+     * Show the flood summary, or hide it with an empty string.
+     */
+    public void setFloodStatus(String status) {
+        floodStatus.set(status);
+    }
+
+    public ReadOnlyStringProperty floodStatusProperty() {
+        return floodStatus.getReadOnlyProperty();
+    }
+
+    public ConsoleBuffer getBuffer() {
+        return buffer;
+    }
+
+    /**
+     * Observable view over the buffer, or over the matches of a filter.
+     * Size only changes in publish(), so the ListView always sees a consistent count.
+     */
+    private class LineList extends ObservableListBase<String> {
+        private int size;
+        private String lastLine; // Value of the last row when it was published
+
+        private OutputFilter filter;
+        private int filterSkip; // Matches before the last CLEAR
+
+        @Override
+        public String get(int index) {
+            if (filter == null) {
+                return buffer.line(index);
+            }
+            return buffer.completedLine(filter.line(index + filterSkip));
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        private int currentSize() {
+            return filter == null ? buffer.lineCount() : filter.size() - filterSkip;
+        }
+
+        /**
+         * Absolute line shown in a row.
+         */
+        int absoluteLine(int index) {
+            return filter == null ? index + buffer.firstVisibleLine() : filter.line(index + filterSkip);
+        }
+
+        /**
+         * Row of an absolute line, -1 if it is not shown.
+         */
+        int indexOfLine(int absoluteLine) {
+            if (filter == null) {
+                return absoluteLine - buffer.firstVisibleLine();
+            }
+            int index = filter.indexOf(absoluteLine);
+            return index < filter.size() && filter.line(index) == absoluteLine ? index - filterSkip : -1;
+        }
+
+        void skipClearedMatches() {
+            if (filter != null) {
+                filterSkip = filter.indexOf(buffer.firstVisibleLine());
+            }
+        }
+
+        void setFilter(OutputFilter newFilter) {
+            filter = newFilter;
+            filterSkip = 0;
+            skipClearedMatches();
+
+            beginChange();
+            if (size > 0) {
+                nextRemove(0, Collections.nCopies(size, ""));
+            }
+            size = currentSize();
+            if (size > 0) {
+                nextAdd(0, size);
+            }
+            lastLine = size > 0 ? get(size - 1) : null;
+            endChange();
+        }
+
+        /**
+         * @return true if rows changed
+         */
+        boolean publish() {
+            int newSize = currentSize();
+            if (newSize == size && (size == 0 || get(size - 1).equals(lastLine))) {
+                return false;
+            }
+
+            beginChange();
+            if (newSize < size) {
+                // Buffer was cleared
+                nextRemove(0, Collections.nCopies(size, ""));
+                if (newSize > 0) {
+                    nextAdd(0, newSize);
+                }
+            } else {
+                // The old last row may have been a partial line that has grown since
+                if (size > 0) {
+                    nextReplace(size - 1, size, List.of(lastLine));
+                }
+                if (newSize > size) {
+                    nextAdd(size, newSize);
+                }
+            }
+            size = newSize;
+            lastLine = size > 0 ? get(size - 1) : null;
+            endChange();
+            return true;
+        }
+    }
+
+    /**
+     * Paint for a style, created once per style id.
+     */
+    private static Color colorOf(AnsiStyle style) {
+        int id = style.getId();
+        if (id >= styleColors.length) {
+            styleColors = Arrays.copyOf(styleColors, Math.max(id + 1, styleColors.length * 2));
+        }
+
+        Color color = styleColors[id];
+        if (color == null) {
+            int rgb = style.getForeground();
+            color = rgb == -1 ? DEFAULT_TEXT : Color.rgb(rgb >> 16 & 0xFF, rgb >> 8 & 0xFF, rgb & 0xFF);
+            if (style.isDim()) {
+                color = color.deriveColor(0, 1, 1, 0.6);
+            }
+            styleColors[id] = color;
+        }
+        return color;
+    }
+
+    /**
+     * One console row. Plain lines are a plain label; lines with style marks
+     * are rendered as a TextFlow of Text runs that the cell reuses.
+     * Rows from stderr get the :stderr pseudo-class (a bar in the gutter).
+     */
+    private class ConsoleCell extends ListCell<String> {
+        private final TextFlow flow = new TextFlow();
+        private final List<Text> runs = new ArrayList<>();
+
+        // Regular, bold, italic, bold italic variants of the cell font
+        private final Font[] fonts = new Font[4];
+        private Font baseFont;
+
+        @Override
+        protected void updateItem(String item, boolean empty) {
+            super.updateItem(item, empty);
+            pseudoClassStateChanged(STDERR, !empty && getIndex() < lines.size()
+                    && buffer.isErrorLine(lines.absoluteLine(getIndex())));
+
+            if (empty || item == null) {
+                setText(null);
+                setGraphic(null);
+            } else if (item.indexOf(AnsiStyle.MARK) < 0) {
+                setGraphic(null);
+                setText(item);
+            } else {
+                setText(null);
+                render(item);
+                setGraphic(flow);
+            }
+        }
+
+        private void render(String line) {
+            int used = 0;
+            AnsiStyle style = AnsiStyle.DEFAULT;
+            int start = 0;
+
+            while (start < line.length()) {
+                int mark = line.indexOf(AnsiStyle.MARK, start);
+                int end = mark < 0 ? line.length() : mark;
+
+                if (end > start) {
+                    styleRun(run(used++), line.substring(start, end), style);
+                }
+                if (mark < 0 || mark + 1 >= line.length()) {
+                    break;
+                }
+                style = AnsiStyle.byIdChar(line.charAt(mark + 1));
+                start = mark + 2;
+            }
+
+            flow.getChildren().setAll(runs.subList(0, used));
+        }
+
+        private Text run(int index) {
+            if (index == runs.size()) {
+                runs.add(new Text());
+            }
+            return runs.get(index);
+        }
+
+        private void styleRun(Text run, String text, AnsiStyle style) {
+            run.setText(text);
+            run.setFill(colorOf(style));
+            run.setFont(fontOf(style));
+            run.setUnderline(style.isUnderline());
+        }
+
+        private Font fontOf(AnsiStyle style) {
+            Font font = getFont();
+            if (font != baseFont) {
+                Arrays.fill(fonts, null);
+                baseFont = font;
+            }
+
+            int variant = (style.isBold() ? 1 : 0) | (style.isItalic() ? 2 : 0);
+            if (fonts[variant] == null) {
+                fonts[variant] = variant == 0 ? font : Font.font(font.getFamily(),
+                        style.isBold() ? FontWeight.BOLD : FontWeight.NORMAL,
+                        style.isItalic() ? FontPosture.ITALIC : FontPosture.REGULAR,
+                        font.getSize());
+            }
+            return fonts[variant];
+        }
+    }
+}
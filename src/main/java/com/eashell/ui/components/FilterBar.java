@@ -0,0 +1,127 @@
+package com.eashell.ui.components;
+
+import com.eashell.service.BackgroundTasks;
+import com.eashell.service.output.FilterStage;
+import com.eashell.service.output.OutputFilter;
+import com.eashell.service.output.OutputSearch;
+import com.eashell.service.output.ScrollbackStore;
+import com.eashell.util.StyleManager;
+import javafx.application.Platform;
+import javafx.geometry.Pos;
+import javafx.scene.control.CheckBox;
+import javafx.scene.control.Label;
+import javafx.scene.control.TextField;
+import javafx.scene.input.KeyCode;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * GREP FILTER (TOP OF AN OUTPUT TAB)
+ *
+ * [ ⧩ filter lines...        ] [☐ regex] [☐ stderr]  1,204 lines
+ *
+ * Typing a filter compiles it and rescans the run in the background
+ * ({@link OutputFilter}); meanwhile the reader stage already filters new
+ * output ({@link FilterStage}). The console keeps its current rows until
+ * the rescan is done and then switches in one step.
+ * "stderr" keeps only the error output (alone, or with the pattern).
+ * Escape or an empty field shows all output again.
+ */
+public class FilterBar extends HBox {
+    private final ConsoleView console;
+    private final ScrollbackStore store;
+    private final FilterStage stage;
+
+    private final TextField filterField = new TextField();
+    private final CheckBox regexBox = new CheckBox("regex");
+    private final CheckBox errorsBox = new CheckBox("stderr");
+    private final Label statusLabel = new Label();
+
+    // Bumped for every change; a rescan only installs/shows its filter if still current
+    private volatile long generation;
+
+    public FilterBar(ConsoleView console, ScrollbackStore store, FilterStage stage) {
+        super(6);
+        this.console = console;
+        this.store = store;
+        this.stage = stage;
+        setAlignment(Pos.CENTER_LEFT);
+
+        filterField.setPromptText("⧩ Filter lines...");
+        StyleManager.styleTextField(filterField);
+        HBox.setHgrow(filterField, Priority.ALWAYS);
+
+        regexBox.setStyle("-fx-text-fill: " + StyleManager.TEXT_SECONDARY + ";");
+        errorsBox.setStyle("-fx-text-fill: " + StyleManager.ACCENT_RED + ";");
+        statusLabel.setStyle("-fx-text-fill: " + StyleManager.TEXT_MUTED + ";");
+
+        filterField.textProperty().addListener((obs, oldVal, newVal) -> apply());
+        regexBox.selectedProperty().addListener((obs, oldVal, newVal) -> apply());
+        errorsBox.selectedProperty().addListener((obs, oldVal, newVal) -> apply());
+        filterField.setOnKeyPressed(e -> {
+            if (e.getCode() == KeyCode.ESCAPE) {
+                filterField.clear();
+            }
+        });
+
+        getChildren().addAll(filterField, regexBox, errorsBox, statusLabel);
+
+        // Filtering needs the scrollback file for the history
+        setDisable(store == null || stage == null);
+    }
+
+    private void apply() {
+        String query = filterField.getText();
+        boolean regex = regexBox.isSelected();
+        boolean errorsOnly = errorsBox.isSelected();
+        boolean showAll = query.isEmpty() && !errorsOnly;
+        int firstLine = console.getBuffer().firstVisibleLine();
+
+        long token;
+        synchronized (stage) {
+            token = ++generation;
+            if (showAll) {
+                stage.setFilter(null);
+            }
+        }
+
+        if (showAll) {
+            console.showFilter(null);
+            statusLabel.setText("");
+            return;
+        }
+
+        statusLabel.setText("filtering …");
+        BackgroundTasks.submit(() -> {
+            OutputFilter filter;
+            try {
+                filter = new OutputFilter(query.isEmpty() ? null : OutputSearch.compile(query, regex),
+                        errorsOnly, firstLine);
+            } catch (PatternSyntaxException e) {
+                Platform.runLater(() -> {
+                    if (token == generation) {
+                        statusLabel.setText("⚠ " + e.getDescription());
+                    }
+                });
+                return;
+            }
+
+            synchronized (stage) {
+                if (token != generation) {
+                    return; // Superseded while compiling
+                }
+                stage.setFilter(filter);
+            }
+            filter.rescan(store);
+
+            Platform.runLater(() -> {
+                if (token == generation && filter.isReady()) {
+                    console.showFilter(filter);
+                    statusLabel.setText(String.format("%,d lines", filter.size()));
+                }
+            });
+        });
+    }
+}
@@ -0,0 +1,95 @@
+package com.eashell.ui.components;
+
+import com.eashell.model.ScriptGroup;
+import com.eashell.util.StyleManager;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.VBox;
+
+import java.util.function.Consumer;
+
+/**
+ * GROUP CARD (ONE WORKSPACE GROUP ABOVE THE SCRIPT LIST)
+ *
+ * Visual card structure:
+ * ┌────────────────────────────────────────────────┐
+ * │ ▦ Morning stack           4/6 started (status) │
+ * │ db → api → workers → frontend      (members)   │
+ * │ 3 at once · 2.0 s apart             (settings) │
+ * │                                                │
+ * │ [▶ START] [✎ EDIT] [✖ DELETE]       (buttons)  │
+ * └────────────────────────────────────────────────┘
+ */
+public class GroupCard extends VBox {
+    private final ScriptGroup group;
+    private final Label progressLabel; // Launch progress, empty when idle
+
+    public GroupCard(ScriptGroup group,
+                     Consumer<ScriptGroup> onStart,
+                     Consumer<ScriptGroup> onEdit,
+                     Consumer<ScriptGroup> onDelete) {
+        this.group = group;
+        this.progressLabel = new Label();
+
+        setSpacing(6);
+        setPadding(new Insets(12, 15, 12, 15));
+        setStyle(StyleManager.getCardStyle());
+
+        // === NAME AND LAUNCH PROGRESS ===
+        Label nameLabel = new Label("▦ " + group.getName());
+        nameLabel.setStyle(StyleManager.getCardTitleStyle());
+        progressLabel.setStyle(StyleManager.getCardPathStyle());
+        HBox titleBox = new HBox(10, nameLabel, progressLabel);
+        titleBox.setAlignment(Pos.CENTER_LEFT);
+
+        // === MEMBERS IN START ORDER ===
+        String separator = group.getStartDelayMs() > 0 ? " → " : " · ";
+        Label membersLabel = new Label(group.getScripts().isEmpty()
+                ? "No scripts" : String.join(separator, group.getScripts()));
+        membersLabel.setStyle(StyleManager.getCardCommandStyle());
+        membersLabel.setWrapText(true);
+
+        // === CONCURRENCY AND ORDERING ===
+        Label settingsLabel = new Label(settingsText(group));
+        settingsLabel.setStyle(StyleManager.getCardPathStyle());
+
+        // === CONTROL BUTTONS ===
+        Button startBtn = StyleManager.createSmallButton("▶ START", StyleManager.ACCENT_GREEN);
+        startBtn.setOnAction(e -> onStart.accept(group));
+        Button editBtn = StyleManager.createSmallButton("✎ EDIT", StyleManager.ACCENT_BLUE);
+        editBtn.setOnAction(e -> onEdit.accept(group));
+        Button deleteBtn = StyleManager.createSmallButton("✖ DELETE", StyleManager.ACCENT_RED);
+        deleteBtn.setOnAction(e -> onDelete.accept(group));
+        HBox buttonBox = new HBox(8, startBtn, editBtn, deleteBtn);
+        buttonBox.setAlignment(Pos.CENTER_LEFT);
+        buttonBox.setPadding(new Insets(4, 0, 0, 0));
+
+        getChildren().addAll(titleBox, membersLabel, settingsLabel, buttonBox);
+
+        setOnMouseEntered(e -> setStyle(StyleManager.getCardHoverStyle()));
+        setOnMouseExited(e -> setStyle(StyleManager.getCardStyle()));
+    }
+
+    private static String settingsText(ScriptGroup group) {
+        String concurrency = group.getMaxConcurrency() > 0
+                ? group.getMaxConcurrency() + " at once" : "all at once";
+        if (group.getStartDelayMs() <= 0) {
+            return concurrency;
+        }
+        return String.format("%s · %.1f s apart", concurrency, group.getStartDelayMs() / 1000.0);
+    }
+
+    /**
+     * "4/6 started" while launching, empty to clear.
+     */
+    public void setProgress(String text) {
+        progressLabel.setText(text);
+    }
+
+    public ScriptGroup getGroup() {
+        return group;
+    }
+}
@@ -1,15 +1,32 @@
 package com.eashell.ui.components;
 
 import com.eashell.model.ScriptEntry;
+import com.eashell.service.BackgroundTasks;
 import com.eashell.service.ProcessRunner;
+import com.eashell.service.ResourceSampler;
+import com.eashell.service.RunHistory;
+import com.eashell.service.output.CompressedRun;
+import com.eashell.service.output.ConsoleBuffer;
+import com.eashell.service.output.OutputExport;
+import com.eashell.service.output.ScrollbackStore;
 import com.eashell.util.Constants;
+import com.eashell.util.Formats;
 import com.eashell.util.StyleManager;
+import javafx.application.Platform;
 import javafx.geometry.Insets;
+import javafx.scene.Node;
 import javafx.scene.control.*;
+import javafx.scene.input.KeyCode;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Priority;
 import javafx.scene.layout.VBox;
+import javafx.stage.FileChooser;
 
+import java.io.File;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.BiConsumer;
 
 /**
@@ -23,20 +40,26 @@ import java.util.function.BiConsumer;
  * │ 📟 CONSOLE          (header)    │
  * ├─────────────────────────────────┤
  * │ [Tab1] [Tab2] [Tab3]  (tabs)    │
+ * │ [⧩ filter lines...    ] [regex] │
  * │ ┌─────────────────────────────┐ │
  * │ │                             │ │
- * │ │  Console output here        │ │ <- TextArea (outputArea)
+ * │ │  Console output here        │ │ <- ConsoleView (virtualized)
  * │ │  (execution text)           │ │
  * │ │                             │ │
  * │ └─────────────────────────────┘ │
- * │ [⏹ STOP] [🗑 CLEAR]  (buttons)  │
+ * │ [⏹][🗑][⏸][💾][🔍 find]        │
  * └─────────────────────────────────┘
  */
 public class OutputPanel extends VBox {
     // Container for all tabs with output from different scripts
     private final TabPane outputTabPane;
 
-    public OutputPanel() {
+    // Closed tabs leave their output here (compressed)
+    private final RunHistory runHistory;
+
+    public OutputPanel(RunHistory runHistory) {
+        this.runHistory = runHistory;
+
         // Spacing between panel elements
         setSpacing(10);
         setPadding(new Insets(20));
@@ -85,23 +108,69 @@ public class OutputPanel extends VBox {
         tabContent.setPadding(new Insets(10));
         tabContent.setStyle(StyleManager.getTabContentStyle()); // Dark background
 
-        // === TEXT AREA FOR CONSOLE OUTPUT ===
-        TextArea outputArea = new TextArea();
-        outputArea.setEditable(false); // Read-only
-        outputArea.setWrapText(true); // Wrap long lines
-        outputArea.setStyle(StyleManager.getOutputAreaStyle()); // Monospace font, dark background
+        // === CONSOLE FOR OUTPUT ===
+        // Virtualized: only visible lines are rendered, so long logs stay cheap.
+        // Old lines are paged back from the runner's scrollback file.
+        ConsoleView console = new ConsoleView(new ConsoleBuffer(runner.getScrollback()));
 
-        // TextArea stretches to full available tab height
-        VBox.setVgrow(outputArea, Priority.ALWAYS);
+        // Console stretches to full available tab height
+        VBox.setVgrow(console, Priority.ALWAYS);
+
+        // === FLOOD SUMMARY ===
+        // Replaces live output while a command prints faster than we can render
+        Label floodLabel = new Label();
+        floodLabel.setStyle(StyleManager.getFloodLabelStyle());
+        floodLabel.setMaxWidth(Double.MAX_VALUE);
+        floodLabel.textProperty().bind(console.floodStatusProperty());
+        floodLabel.visibleProperty().bind(console.floodStatusProperty().isNotEmpty());
+        floodLabel.managedProperty().bind(floodLabel.visibleProperty());
 
         // === CONTROL BUTTON PANEL ===
         // Pass runner so STOP button can stop the process
-        HBox controlBox = createControlBox(runner, outputArea);
+        HBox controlBox = createControlBox(runner, console);
+
+        // === CPU / MEMORY OF THE RUN ===
+        // Filled by the ResourceSampler via showUsage()
+        UsageView usageView = new UsageView();
+        outputTab.getProperties().put(UsageView.class, usageView);
+
+        // === EXPORT OUTPUT ===
+        // Streams the whole scrollback file to disk; progress replaces the flood summary line
+        Label exportLabel = new Label();
+        exportLabel.setStyle(StyleManager.getFloodLabelStyle());
+        exportLabel.setMaxWidth(Double.MAX_VALUE);
+        exportLabel.visibleProperty().bind(exportLabel.textProperty().isNotEmpty());
+        exportLabel.managedProperty().bind(exportLabel.visibleProperty());
+        if (runner.getScrollback() != null) {
+            controlBox.getChildren().add(createExportButton(entry.getName(), runner.getScrollback(), exportLabel));
+        }
+
+        // === FIND IN OUTPUT ===
+        // Searches the whole run (scrollback file), not only the lines on screen
+        SearchBar searchBar = new SearchBar(console, runner.getScrollback());
+        HBox.setHgrow(searchBar, Priority.ALWAYS);
+        controlBox.getChildren().addAll(usageView, searchBar);
+
+        // Ctrl+F anywhere in the tab focuses the search field
+        tabContent.setOnKeyPressed(e -> {
+            if (e.isShortcutDown() && e.getCode() == KeyCode.F) {
+                searchBar.focusField();
+                e.consume();
+            }
+        });
 
-        // Add text area and buttons to tab content
-        tabContent.getChildren().addAll(outputArea, controlBox);
+        // === GREP FILTER ===
+        // Matching happens in the runner's reader stage, history is rescanned in the background
+        FilterBar filterBar = new FilterBar(console, runner.getScrollback(), runner.getFilterStage());
+
+        // Add filter, console, flood summary and buttons to tab content
+        tabContent.getChildren().addAll(filterBar, console, floodLabel, exportLabel, controlBox);
         outputTab.setContent(tabContent);
 
+        // === PAUSE WHILE HIDDEN ===
+        // Inactive tabs render nothing; their output is caught up when shown again
+        outputTab.selectedProperty().addListener((obs, oldVal, selected) -> console.setHidden(!selected));
+
         // === SAVE RUNNER IN TAB ===
         // Needed to stop process when tab is closed
         outputTab.setUserData(runner);
@@ -111,7 +180,7 @@ public class OutputPanel extends VBox {
             // Get runner from userData
             ProcessRunner tabRunner = (ProcessRunner) outputTab.getUserData();
             if (tabRunner != null) {
-                tabRunner.stop(); // Stop process
+                stopAndArchive(entry.getName(), tabRunner);
             }
             // Update status on script card (⚫ - stopped)
             onStatusChange.accept(entry.getName(), false);
@@ -124,14 +193,80 @@ public class OutputPanel extends VBox {
         return outputTab;
     }
 
+    /**
+     * Stop the process off the UI thread and keep its output once the run is
+     * over. stop() returns when the processes are gone, but the runner still
+     * writes its last marker after that - the archive waits for the run itself.
+     *
+     * @return completes when the output is handed to the run history
+     */
+    private CompletableFuture<Void> stopAndArchive(String name, ProcessRunner runner) {
+        return runner.stopAsync(ProcessRunner.stopDeadline())
+                .handle((done, error) -> null)
+                .thenCompose(done -> runner.whenEnded())
+                .whenComplete((done, error) -> {
+                    if (runner.getScrollback() != null) {
+                        // Compress output for 🕘 RECENT, then delete the scrollback file
+                        runHistory.archive(name, runner.getScrollback());
+                    } else {
+                        runner.release();
+                    }
+                });
+    }
+
+    /**
+     * CLOSE A RUN'S TAB FOR A RESTART
+     *
+     * Like closing the tab by hand, but the script card is left alone:
+     * a new run of the same script takes the tab's place.
+     *
+     * @return completes when the old run's processes are gone
+     */
+    public CompletableFuture<Void> closeRunTab(String name, ProcessRunner runner) {
+        outputTabPane.getTabs().removeIf(tab -> tab.getUserData() == runner);
+        return stopAndArchive(name, runner);
+    }
+
+    /**
+     * REOPEN A CLOSED RUN
+     *
+     * Called from the 🕘 RECENT menu. Read-only tab; lines are
+     * decompressed block by block as they scroll into view.
+     */
+    public void openArchivedTab(CompressedRun run) {
+        Tab tab = new Tab(run.getName() + " 🕘");
+        tab.setClosable(true);
+
+        VBox tabContent = new VBox(5);
+        tabContent.setPadding(new Insets(10));
+        tabContent.setStyle(StyleManager.getTabContentStyle());
+
+        ConsoleView console = new ConsoleView(new ConsoleBuffer(run));
+        VBox.setVgrow(console, Priority.ALWAYS);
+        console.setFollow(true); // Open at the end, like the live tab was
+
+        Label info = new Label(String.format("🕘 Closed run  ·  %,d lines  ·  %s in memory",
+                run.lineCount() - run.firstLine(), Formats.bytes(run.getCompressedBytes())));
+        info.setStyle(StyleManager.getFloodLabelStyle());
+        info.setMaxWidth(Double.MAX_VALUE);
+
+        tabContent.getChildren().addAll(console, info);
+        tab.setContent(tabContent);
+
+        outputTabPane.getTabs().add(tab);
+        outputTabPane.getSelectionModel().select(tab);
+    }
+
     /**
      * CONTROL BUTTON PANEL
      *
-     * Creates a horizontal row of buttons below the text area:
+     * Creates a horizontal row of buttons below the console:
      * [⏹ STOP] - stop script execution
      * [🗑 CLEAR] - clear console output
+     * [⏸ PAUSE] / [▶ FOLLOW] - stop / resume showing new output
+     * (the search bar is added after them)
      */
-    private HBox createControlBox(ProcessRunner runner, TextArea outputArea) {
+    private HBox createControlBox(ProcessRunner runner, ConsoleView console) {
         HBox controlBox = new HBox(8); // 8px between buttons
 
         // === STOP BUTTON ===
@@ -139,26 +274,124 @@ public class OutputPanel extends VBox {
         stopBtn.setOnAction(e -> {
             // Check that runner is not null before calling stop()
             if (runner != null) {
-                runner.stop(); // Stop process
+                runner.stopAsync(ProcessRunner.stopDeadline()); // Stop process, the tab title shows when it is gone
             }
         });
 
         // === CLEAR BUTTON ===
         Button clearBtn = StyleManager.createSmallButton("🗑 CLEAR", StyleManager.UTIL_BUTTON);
-        clearBtn.setOnAction(e -> outputArea.clear()); // Clear text in TextArea
+        clearBtn.setOnAction(e -> console.clear()); // Clear console output
+
+        // === PAUSE / FOLLOW BUTTON ===
+        // Paused: output keeps being captured but is not rendered.
+        // FOLLOW also brings back auto-scroll after jumping to a search hit.
+        Button followBtn = StyleManager.createSmallButton("⏸ PAUSE", StyleManager.UTIL_BUTTON);
+        Runnable updateFollowBtn = () -> followBtn.setText(
+                console.isUserPaused() || !console.followProperty().get() ? "▶ FOLLOW" : "⏸ PAUSE");
+        console.pausedProperty().addListener((obs, oldVal, newVal) -> updateFollowBtn.run());
+        console.followProperty().addListener((obs, oldVal, newVal) -> updateFollowBtn.run());
+        followBtn.setOnAction(e -> {
+            if (console.isUserPaused() || !console.followProperty().get()) {
+                console.setUserPaused(false);
+                console.setFollow(true); // Resume: catch up in one batch and jump to the end
+            } else {
+                console.setUserPaused(true);
+            }
+            updateFollowBtn.run();
+        });
 
-        controlBox.getChildren().addAll(stopBtn, clearBtn);
+        controlBox.getChildren().addAll(stopBtn, clearBtn, followBtn);
         return controlBox;
     }
 
     /**
-     * GET TEXT AREA FROM TAB
+     * EXPORT BUTTON
+     *
+     * [💾 EXPORT] asks for a file and copies the run's output into it on a
+     * background thread (see {@link OutputExport}); while it runs the button
+     * turns into [✖ CANCEL] and the label shows the progress.
+     */
+    private Button createExportButton(String scriptName, ScrollbackStore store, Label status) {
+        Button exportBtn = StyleManager.createSmallButton("💾 EXPORT", StyleManager.UTIL_BUTTON);
+        OutputExport[] running = new OutputExport[1]; // Export in progress (JavaFX thread)
+
+        exportBtn.setOnAction(e -> {
+            if (running[0] != null) {
+                running[0].cancel();
+                return;
+            }
+
+            FileChooser chooser = new FileChooser();
+            chooser.setTitle("Export output");
+            chooser.setInitialFileName(scriptName.replaceAll("[^\\w.-]+", "_") + "-"
+                    + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + ".log");
+            File file = chooser.showSaveDialog(exportBtn.getScene().getWindow());
+            if (file == null || store.isClosed()) {
+                return;
+            }
+
+            OutputExport export = new OutputExport(store, file.toPath());
+            running[0] = export;
+            exportBtn.setText("✖ CANCEL");
+            status.setText("💾 Exporting " + Formats.bytes(export.getLength()) + "...");
+
+            // Coalesce progress: at most one pending update on the FX queue
+            AtomicBoolean updateQueued = new AtomicBoolean();
+            BackgroundTasks.submit(() -> {
+                export.run(copied -> {
+                    if (updateQueued.compareAndSet(false, true)) {
+                        Platform.runLater(() -> {
+                            updateQueued.set(false);
+                            if (running[0] == export) {
+                                status.setText(String.format("💾 Exporting %d%%  ·  %s / %s",
+                                        export.getLength() > 0 ? export.getTransferred() * 100 / export.getLength() : 100,
+                                        Formats.bytes(export.getTransferred()), Formats.bytes(export.getLength())));
+                            }
+                        });
+                    }
+                });
+                Platform.runLater(() -> {
+                    running[0] = null;
+                    exportBtn.setText("💾 EXPORT");
+                    if (export.getError() != null) {
+                        status.setText("💾 Export failed: " + export.getError());
+                    } else if (export.isCancelled()) {
+                        status.setText("");
+                    } else {
+                        status.setText("💾 Exported " + Formats.bytes(export.getLength()) + " to " + export.getTarget());
+                    }
+                });
+            });
+        });
+        return exportBtn;
+    }
+
+    /**
+     * SHOW RESOURCE USAGE
+     *
+     * Latest sample of a runner's process tree, in the tab of that runner.
+     */
+    public void showUsage(ProcessRunner runner, ResourceSampler.Usage usage) {
+        for (Tab tab : outputTabPane.getTabs()) {
+            if (tab.getUserData() == runner && tab.getProperties().get(UsageView.class) instanceof UsageView view) {
+                view.update(usage);
+            }
+        }
+    }
+
+    /**
+     * GET CONSOLE FROM TAB
      *
      * Used to add text to console output.
-     * ProcessRunner calls this method to write command output.
+     * ProcessRunner writes command output into this console.
      */
-    public TextArea getOutputAreaFromTab(Tab tab) {
+    public ConsoleView getConsoleFromTab(Tab tab) {
         VBox content = (VBox) tab.getContent(); // Get VBox from tab
-        return (TextArea) content.getChildren().get(0); // TextArea is first element
+        for (Node child : content.getChildren()) {
+            if (child instanceof ConsoleView console) {
+                return console;
+            }
+        }
+        throw new IllegalStateException("Output tab has no console: " + tab.getText());
     }
 }
\ No newline at end of file
@@ -1,16 +1,25 @@
 package com.eashell.ui.components;
 
+import com.eashell.model.RunJournal;
+import com.eashell.model.RunRecord;
+import com.eashell.model.Schedule;
 import com.eashell.model.ScriptEntry;
+import com.eashell.util.Constants;
+import com.eashell.util.Formats;
 import com.eashell.util.StyleManager;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
+import javafx.scene.control.Tooltip;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
 import javafx.scene.effect.DropShadow;
 
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
 import java.util.function.Consumer;
 
 /**
@@ -25,6 +34,8 @@ import java.util.function.Consumer;
  * │ 📁 /path/to/folder   (working dir)    │
  * │ ▶ npm install        (command 1)      │
  * │ ▶ npm start          (command 2)      │
+ * │ ⏰ 0 3 * * *         (schedule)       │
+ * │ 🕘 12 runs · last ✓ 8.1 s · p95 9.4 s  │
  * │                                        │
  * │ [▶ RUN] [✎ EDIT] [✖ DELETE] (buttons) │
  * └────────────────────────────────────────┘
@@ -39,16 +50,21 @@ public class ScriptCard extends VBox {
     private final Consumer<ScriptEntry> onRun; // Callback when RUN is clicked
     private final Consumer<ScriptEntry> onEdit; // Callback when EDIT is clicked
     private final Consumer<ScriptEntry> onDelete; // Callback when DELETE is clicked
+    private final RunJournal journal;          // Run history, may be null
+    private final Label statsLabel;            // Run count, last result, p95 duration
 
     public ScriptCard(ScriptEntry entry,
                       Consumer<ScriptEntry> onRun,
                       Consumer<ScriptEntry> onEdit,
-                      Consumer<ScriptEntry> onDelete) {
+                      Consumer<ScriptEntry> onDelete,
+                      RunJournal journal) {
         this.entry = entry;
         this.onRun = onRun;
         this.onEdit = onEdit;
         this.onDelete = onDelete;
+        this.journal = journal;
         this.statusLabel = new Label();
+        this.statsLabel = new Label();
 
         initializeCard();
     }
@@ -82,11 +98,19 @@ public class ScriptCard extends VBox {
         // === COMMAND LIST ===
         VBox commandsBox = createCommandsBox();
 
+        // === RUN STATS FROM THE JOURNAL ===
+        statsLabel.setStyle(StyleManager.getCardPathStyle());
+        updateStats();
+
         // === CONTROL BUTTONS ===
         HBox buttonBox = createButtonBox();
 
         // Add all elements in vertical order
-        getChildren().addAll(titleBox, pathLabel, commandsBox, buttonBox);
+        getChildren().addAll(titleBox, pathLabel, commandsBox);
+        if (entry.getSchedule() != null && !entry.getSchedule().isBlank()) {
+            getChildren().add(createScheduleLabel());
+        }
+        getChildren().addAll(statsLabel, buttonBox);
 
         // Add hover highlight effect
         setupHoverEffect();
@@ -113,6 +137,23 @@ public class ScriptCard extends VBox {
         return titleBox;
     }
 
+    /**
+     * SCHEDULE OF THE SCRIPT
+     *
+     * Example: "⏰ every 15m", or the reason a schedule is not used
+     */
+    private Label createScheduleLabel() {
+        Label scheduleLabel = new Label();
+        scheduleLabel.setStyle(StyleManager.getCardPathStyle());
+        scheduleLabel.setWrapText(true);
+        try {
+            scheduleLabel.setText("⏰ " + Schedule.parse(entry.getSchedule()));
+        } catch (IllegalArgumentException e) {
+            scheduleLabel.setText("⏰ Not scheduled - " + e.getMessage());
+        }
+        return scheduleLabel;
+    }
+
     /**
      * COMMAND LIST FOR EXECUTION
      *
@@ -134,6 +175,57 @@ public class ScriptCard extends VBox {
         return commandsBox;
     }
 
+    /**
+     * RUN STATS
+     *
+     * "🕘 12 runs · last ✓ 8.1 s · p95 9.4 s", answered from the journal index.
+     * Hovering shows the last runs (only those journal lines are read).
+     */
+    public void updateStats() {
+        int count = journal != null ? journal.runCount(entry.getName()) : 0;
+        statsLabel.setVisible(count > 0);
+        statsLabel.setManaged(count > 0);
+        if (count == 0) {
+            return;
+        }
+
+        List<RunRecord> last = journal.lastRuns(entry.getName(), 1);
+        String lastText = last.isEmpty() ? "" : String.format("  ·  last %s %s",
+                statusSymbol(last.get(0)), Formats.duration(last.get(0).getDurationMs()));
+        statsLabel.setText(String.format("🕘 %d runs%s  ·  p95 %s", count, lastText,
+                Formats.duration(journal.durationPercentile(entry.getName(), 0.95))));
+
+        Tooltip tooltip = new Tooltip();
+        tooltip.setOnShowing(e -> tooltip.setText(recentRunsText()));
+        statsLabel.setTooltip(tooltip);
+    }
+
+    private String recentRunsText() {
+        SimpleDateFormat time = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        StringBuilder text = new StringBuilder();
+        for (RunRecord run : journal.lastRuns(entry.getName(), Constants.JOURNAL_TOOLTIP_RUNS)) {
+            if (text.length() > 0) {
+                text.append('\n');
+            }
+            text.append(time.format(new Date(run.getStartedAt())))
+                    .append("  ").append(statusSymbol(run))
+                    .append("  ").append(Formats.duration(run.getDurationMs()));
+            for (RunRecord.CommandRun command : run.getCommands()) {
+                text.append("  [").append(command.getExitCode()).append(' ')
+                        .append(Formats.duration(command.getDurationMs())).append(']');
+            }
+        }
+        return text.toString();
+    }
+
+    private static String statusSymbol(RunRecord run) {
+        return switch (String.valueOf(run.getStatus())) {
+            case RunRecord.SUCCESS -> Constants.STATUS_SUCCESS;
+            case RunRecord.TERMINATED -> Constants.STATUS_TERMINATED;
+            default -> Constants.STATUS_ERROR;
+        };
+    }
+
     /**
      * CONTROL BUTTON PANEL
      *
@@ -1,6 +1,8 @@
 package com.eashell.ui.components;
 
+import com.eashell.model.RunJournal;
 import com.eashell.model.ScriptEntry;
+import com.eashell.model.ScriptGroup;
 import com.eashell.util.Constants;
 import com.eashell.util.StyleManager;
 import javafx.geometry.Insets;
@@ -27,6 +29,7 @@ import java.util.function.Consumer;
  * │ 📋 SCRIPTS      (header)     │
  * ├──────────────────────────────┤
  * │ ┌──────────────────────────┐ │
+ * │ │ [GroupCard]              │ │ <- Groups (if any)
  * │ │ [ScriptCard 1]           │ │ <- Script card
  * │ │ [ScriptCard 2]           │ │
  * │ │ [ScriptCard 3]           │ │ <- Scrollable list
@@ -38,6 +41,10 @@ public class ScriptListPanel extends VBox {
     // Container that holds all script cards
     private final VBox scriptListContainer;
 
+    // Group cards above the scripts, by group name
+    private final VBox groupContainer;
+    private final Map<String, GroupCard> groupCards = new HashMap<>();
+
     // Map for quick access to cards by script name
     // Used to update status (⚫/🟢) when script starts
     private final Map<String, ScriptCard> scriptCards;
@@ -46,14 +53,28 @@ public class ScriptListPanel extends VBox {
     private final Consumer<ScriptEntry> onRun;    // Run script
     private final Consumer<ScriptEntry> onEdit;   // Edit script
     private final Consumer<ScriptEntry> onDelete; // Delete script
+    private final Consumer<ScriptGroup> onStartGroup;  // Start all scripts of a group
+    private final Consumer<ScriptGroup> onEditGroup;   // Edit group
+    private final Consumer<ScriptGroup> onDeleteGroup; // Delete group
+
+    // Run history shown on the cards (null if the journal could not be opened)
+    private final RunJournal journal;
 
     public ScriptListPanel(Consumer<ScriptEntry> onRun,
                            Consumer<ScriptEntry> onEdit,
-                           Consumer<ScriptEntry> onDelete) {
+                           Consumer<ScriptEntry> onDelete,
+                           Consumer<ScriptGroup> onStartGroup,
+                           Consumer<ScriptGroup> onEditGroup,
+                           Consumer<ScriptGroup> onDeleteGroup,
+                           RunJournal journal) {
         this.scriptCards = new HashMap<>();
         this.onRun = onRun;
         this.onEdit = onEdit;
         this.onDelete = onDelete;
+        this.onStartGroup = onStartGroup;
+        this.onEditGroup = onEditGroup;
+        this.onDeleteGroup = onDeleteGroup;
+        this.journal = journal;
 
         // Spacing between panel elements
         setSpacing(10);
@@ -75,7 +96,14 @@ public class ScriptListPanel extends VBox {
         // === CARD CONTAINER ===
         scriptListContainer = new VBox(10); // 10px between cards
         scriptListContainer.setPadding(new Insets(10));
-        scrollPane.setContent(scriptListContainer);
+
+        // === GROUP CARDS (hidden while there are none) ===
+        groupContainer = new VBox(10);
+        groupContainer.setPadding(new Insets(10, 10, 0, 10));
+        groupContainer.managedProperty().bind(groupContainer.visibleProperty());
+        groupContainer.setVisible(false);
+
+        scrollPane.setContent(new VBox(groupContainer, scriptListContainer));
 
         // ScrollPane stretches to full available height
         VBox.setVgrow(scrollPane, Priority.ALWAYS);
@@ -108,7 +136,7 @@ public class ScriptListPanel extends VBox {
 
         // Create card for each script
         for (ScriptEntry entry : entries) {
-            ScriptCard card = new ScriptCard(entry, onRun, onEdit, onDelete);
+            ScriptCard card = new ScriptCard(entry, onRun, onEdit, onDelete, journal);
 
             // Save card in map for quick access
             scriptCards.put(entry.getName(), card);
@@ -118,6 +146,33 @@ public class ScriptListPanel extends VBox {
         }
     }
 
+    /**
+     * UPDATE GROUP LIST
+     *
+     * Called on startup and after a group was added, edited or deleted.
+     */
+    public void refreshGroups(List<ScriptGroup> groups) {
+        groupContainer.getChildren().clear();
+        groupCards.clear();
+
+        for (ScriptGroup group : groups) {
+            GroupCard card = new GroupCard(group, onStartGroup, onEditGroup, onDeleteGroup);
+            groupCards.put(group.getName(), card);
+            groupContainer.getChildren().add(card);
+        }
+        groupContainer.setVisible(!groups.isEmpty());
+    }
+
+    /**
+     * Launch progress on a group card ("4/6 started"), empty to clear.
+     */
+    public void updateGroupProgress(String groupName, String text) {
+        GroupCard card = groupCards.get(groupName);
+        if (card != null) {
+            card.setProgress(text);
+        }
+    }
+
     /**
      * MESSAGE WHEN NO SCRIPTS
      *
@@ -156,6 +211,28 @@ public class ScriptListPanel extends VBox {
         }
     }
 
+    /**
+     * Script waits for a free CPU slot (⏳), see RunScheduler.
+     */
+    public void updateScriptQueued(String scriptName) {
+        ScriptCard card = scriptCards.get(scriptName);
+        if (card != null) {
+            StyleManager.setQueuedStatus(card.getStatusLabel());
+        }
+    }
+
+    /**
+     * UPDATE RUN STATS
+     *
+     * Called after a run of the script was written to the journal.
+     */
+    public void updateScriptStats(String scriptName) {
+        ScriptCard card = scriptCards.get(scriptName);
+        if (card != null) {
+            card.updateStats();
+        }
+    }
+
     /**
      * GET ALL STATUS INDICATORS
      *
@@ -0,0 +1,160 @@
+package com.eashell.ui.components;
+
+import com.eashell.service.BackgroundTasks;
+import com.eashell.service.output.OutputSearch;
+import com.eashell.service.output.ScrollbackStore;
+import com.eashell.util.StyleManager;
+import javafx.application.Platform;
+import javafx.geometry.Pos;
+import javafx.scene.control.Button;
+import javafx.scene.control.CheckBox;
+import javafx.scene.control.Label;
+import javafx.scene.control.TextField;
+import javafx.scene.input.KeyCode;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+
+/**
+ * FIND IN OUTPUT (BOTTOM OF AN OUTPUT TAB)
+ *
+ * [ find...          ] [☐ regex] [▲] [▼]  3/120
+ *
+ * Enter / ▼ jumps to the next match, Shift+Enter / ▲ to the previous one,
+ * Escape clears the search and follows the output again.
+ * The search itself runs in the background ({@link OutputSearch}),
+ * this bar only moves the cursor and shows the count.
+ */
+public class SearchBar extends HBox {
+    private final ConsoleView console;
+    private final ScrollbackStore store;
+
+    private final TextField queryField = new TextField();
+    private final CheckBox regexBox = new CheckBox("regex");
+    private final Label countLabel = new Label();
+
+    private OutputSearch search;
+    private boolean scanning;
+    private int pendingJump; // Direction to jump once the first match is found, 0 = none
+
+    public SearchBar(ConsoleView console, ScrollbackStore store) {
+        super(6);
+        this.console = console;
+        this.store = store;
+        setAlignment(Pos.CENTER_LEFT);
+
+        queryField.setPromptText("🔍 Find in output...");
+        StyleManager.styleTextField(queryField);
+        HBox.setHgrow(queryField, Priority.ALWAYS);
+
+        regexBox.setStyle("-fx-text-fill: " + StyleManager.TEXT_SECONDARY + ";");
+        countLabel.setStyle("-fx-text-fill: " + StyleManager.TEXT_MUTED + ";");
+
+        Button prevBtn = StyleManager.createSmallButton("▲", StyleManager.UTIL_BUTTON);
+        Button nextBtn = StyleManager.createSmallButton("▼", StyleManager.UTIL_BUTTON);
+        prevBtn.setOnAction(e -> jump(-1));
+        nextBtn.setOnAction(e -> jump(1));
+
+        queryField.textProperty().addListener((obs, oldVal, newVal) -> restart());
+        regexBox.selectedProperty().addListener((obs, oldVal, newVal) -> restart());
+        queryField.setOnKeyPressed(e -> {
+            if (e.getCode() == KeyCode.ENTER) {
+                jump(e.isShiftDown() ? -1 : 1);
+            } else if (e.getCode() == KeyCode.ESCAPE) {
+                queryField.clear();
+            }
+        });
+
+        getChildren().addAll(queryField, regexBox, prevBtn, nextBtn, countLabel);
+
+        // Without a scrollback file there is no history to search
+        setDisable(store == null);
+    }
+
+    public void focusField() {
+        queryField.requestFocus();
+        queryField.selectAll();
+    }
+
+    /**
+     * Query changed: drop the old search and start a new one from scratch.
+     */
+    private void restart() {
+        if (search != null) {
+            search.cancel();
+            search = null;
+        }
+        pendingJump = 0;
+
+        String query = queryField.getText();
+        if (query.isEmpty()) {
+            countLabel.setText("");
+            console.setFollow(true);
+            return;
+        }
+
+        search = new OutputSearch(store, query, regexBox.isSelected(),
+                console.getBuffer().firstVisibleLine());
+        scanning = false;
+        startScan();
+    }
+
+    private void startScan() {
+        OutputSearch current = search;
+        scanning = true;
+        updateCount();
+
+        BackgroundTasks.submit(() -> {
+            current.scan(() -> Platform.runLater(() -> onProgress(current)));
+            Platform.runLater(() -> {
+                if (current == search) {
+                    scanning = false;
+                    updateCount();
+                }
+            });
+        });
+    }
+
+    private void onProgress(OutputSearch source) {
+        if (source != search) {
+            return; // Superseded by a newer query
+        }
+        if (pendingJump != 0 && source.matchCount() > 0) {
+            int direction = pendingJump;
+            pendingJump = 0;
+            jump(direction);
+        }
+        updateCount();
+    }
+
+    /**
+     * Move to the next (1) or previous (-1) match. Output written since the
+     * last scan is searched first, in the background.
+     */
+    private void jump(int direction) {
+        if (search == null) {
+            return;
+        }
+        if (!scanning && search.hasUnscannedLines()) {
+            startScan();
+        }
+
+        int line = direction > 0 ? search.next() : search.previous();
+        if (line < 0) {
+            pendingJump = scanning ? direction : 0;
+        } else {
+            console.revealLine(line);
+        }
+        updateCount();
+    }
+
+    private void updateCount() {
+        if (search == null) {
+            countLabel.setText("");
+        } else if (search.getError() != null) {
+            countLabel.setText("⚠ " + search.getError());
+        } else {
+            countLabel.setText(String.format("%d/%,d%s",
+                    search.currentMatch(), search.matchCount(), scanning ? " …" : ""));
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.eashell.ui.components;
+
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+
+/**
+ * SMALL LINE CHART OF THE LAST N VALUES
+ *
+ *   ▁▂▂▅▇▆▃▂▁▁  newest value on the right, older ones scroll left
+ *
+ * The vertical scale follows the largest value shown, but never goes below
+ * the floor (so an idle process does not look like 100% of something).
+ */
+public class Sparkline extends Canvas {
+    private final double[] values; // Ring buffer
+    private final double floor;
+    private final Color color;
+    private int next;
+    private int count;
+
+    /**
+     * @param points how many values are shown
+     * @param floor smallest top of the scale
+     */
+    public Sparkline(int points, double floor, String color, double width, double height) {
+        super(width, height);
+        this.values = new double[points];
+        this.floor = floor;
+        this.color = Color.web(color);
+    }
+
+    /**
+     * Append a value and redraw (JavaFX thread).
+     */
+    public void add(double value) {
+        values[next] = Math.max(0, value);
+        next = (next + 1) % values.length;
+        count = Math.min(count + 1, values.length);
+        draw();
+    }
+
+    private void draw() {
+        GraphicsContext g = getGraphicsContext2D();
+        double width = getWidth();
+        double height = getHeight();
+        g.clearRect(0, 0, width, height);
+        if (count < 2) {
+            return;
+        }
+
+        double max = floor;
+        for (int i = 0; i < count; i++) {
+            max = Math.max(max, value(i));
+        }
+
+        // Oldest on the left, one step per slot so the line keeps its pace while filling up
+        double step = width / (values.length - 1);
+        double x0 = width - (count - 1) * step;
+        g.setStroke(color);
+        g.setLineWidth(1.2);
+        g.beginPath();
+        for (int i = 0; i < count; i++) {
+            double x = x0 + i * step;
+            double y = height - 1 - value(i) / max * (height - 2);
+            if (i == 0) {
+                g.moveTo(x, y);
+            } else {
+                g.lineTo(x, y);
+            }
+        }
+        g.stroke();
+    }
+
+    /**
+     * @param i 0 = oldest value shown
+     */
+    private double value(int i) {
+        return values[(next - count + i + values.length) % values.length];
+    }
+}
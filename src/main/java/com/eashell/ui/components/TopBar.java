@@ -1,18 +1,26 @@
 package com.eashell.ui.components;
 
+import com.eashell.service.output.CompressedRun;
 import com.eashell.util.Constants;
+import com.eashell.util.Formats;
 import com.eashell.util.StyleManager;
 import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
+import javafx.scene.control.MenuButton;
+import javafx.scene.control.MenuItem;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Priority;
 import javafx.scene.layout.Region;
 
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 /**
@@ -22,27 +30,39 @@ import java.util.function.Supplier;
  * Contains application name, running script counter, and action buttons.
  *
  * Visual structure:
- * ┌──────────────────────────────────────────────────────────────┐
- * │ ⚡ Shell   Running: 2   [space]   [+ NEW SCRIPT] [⏹ STOP ALL] │
- * └──────────────────────────────────────────────────────────────┘
- *   ^          ^             ^          ^              ^
- *   name       counter       spacer     add button     stop button
+ * ┌────────────────────────────────────────────────────────────────────────────────────────────────────────────────────┐
+ * │ ⚡ Shell   Running: 2   45% · 1.2 GB · 12 proc   [space]   [🕘 RECENT] [+ NEW GROUP] [+ NEW SCRIPT] [⏹ STOP ALL] │
+ * └────────────────────────────────────────────────────────────────────────────────────────────────────────────────────┘
+ *   ^          ^             ^                        ^          ^            ^             ^              ^
+ *   name       counter       usage of all scripts     spacer     closed runs  add group     add button     stop button
  */
 public class TopBar extends HBox {
     // Running script counter indicator ("Running: 0", "Running: 2", etc.)
     private final Label statusLabel;
 
+    // CPU / memory / processes of all running scripts together, empty until the first sample
+    private final Label usageLabel = new Label();
+
     // Button callbacks
     private final Runnable onAddScript;  // Called when "+ NEW SCRIPT" is clicked
+    private final Runnable onAddGroup;   // Called when "+ NEW GROUP" is clicked
     private final Runnable onStopAll;    // Called when "⏹ STOP ALL" is clicked
 
     // Function that returns number of running processes
     private final Supplier<Integer> runningCountSupplier;
 
-    public TopBar(Runnable onAddScript, Runnable onStopAll, Supplier<Integer> runningCountSupplier) {
+    // Closed runs kept in memory, and the callback that reopens one in a tab
+    private final Supplier<List<CompressedRun>> recentRuns;
+    private final Consumer<CompressedRun> onReopenRun;
+
+    public TopBar(Runnable onAddScript, Runnable onAddGroup, Runnable onStopAll, Supplier<Integer> runningCountSupplier,
+                  Supplier<List<CompressedRun>> recentRuns, Consumer<CompressedRun> onReopenRun) {
         this.onAddScript = onAddScript;
+        this.onAddGroup = onAddGroup;
         this.onStopAll = onStopAll;
         this.runningCountSupplier = runningCountSupplier;
+        this.recentRuns = recentRuns;
+        this.onReopenRun = onReopenRun;
         this.statusLabel = new Label("Running: 0");
 
         initialize();
@@ -70,11 +90,24 @@ public class TopBar extends HBox {
         statusLabel.setStyle(StyleManager.getStatusLabelStyle()); // Purple text
         // Text updates automatically every second via startStatusUpdater()
 
+        // === RESOURCE USAGE OF ALL SCRIPTS ===
+        usageLabel.setStyle(StyleManager.getUsageLabelStyle());
+        // Text updates with every resource sample via showUsage()
+
         // === SPACER (EXPANDABLE SPACE) ===
         // Takes all available width, pushing buttons to the right
         Region spacer = new Region();
         HBox.setHgrow(spacer, Priority.ALWAYS);
 
+        // === RECENT RUNS MENU ===
+        // Rebuilt every time it opens - runs are archived in the background
+        MenuButton recentButton = StyleManager.createStyledMenuButton("🕘 RECENT", StyleManager.UTIL_BUTTON);
+        recentButton.setOnShowing(e -> fillRecentMenu(recentButton));
+
+        // === ADD NEW GROUP BUTTON ===
+        Button addGroupButton = StyleManager.createStyledButton("+ NEW GROUP", StyleManager.UTIL_BUTTON);
+        addGroupButton.setOnAction(e -> onAddGroup.run()); // Opens group creation dialog
+
         // === ADD NEW SCRIPT BUTTON ===
         Button addButton = StyleManager.createStyledButton("+ NEW SCRIPT", StyleManager.PRIMARY_BUTTON);
         addButton.setOnAction(e -> onAddScript.run()); // Opens script creation dialog
@@ -84,7 +117,40 @@ public class TopBar extends HBox {
         stopAllButton.setOnAction(e -> onStopAll.run()); // Stops all active processes
 
         // Add all elements in horizontal order
-        getChildren().addAll(title, statusLabel, spacer, addButton, stopAllButton);
+        getChildren().addAll(title, statusLabel, usageLabel, spacer, recentButton, addGroupButton, addButton, stopAllButton);
+    }
+
+    /**
+     * Totals of the latest resource sample (JavaFX thread).
+     *
+     * @param rssBytes -1 if memory is unknown on this platform
+     */
+    public void showUsage(double cpuPercent, long rssBytes, int processCount) {
+        usageLabel.setText(UsageView.format(cpuPercent, rssBytes, processCount));
+    }
+
+    /**
+     * One item per closed run: "name · closed at · lines · compressed size".
+     */
+    private void fillRecentMenu(MenuButton menu) {
+        menu.getItems().clear();
+
+        List<CompressedRun> runs = recentRuns.get();
+        if (runs.isEmpty()) {
+            MenuItem empty = new MenuItem("No closed runs yet");
+            empty.setDisable(true);
+            menu.getItems().add(empty);
+            return;
+        }
+
+        SimpleDateFormat time = new SimpleDateFormat("HH:mm:ss");
+        for (CompressedRun run : runs) {
+            MenuItem item = new MenuItem(String.format("%s  ·  %s  ·  %,d lines  ·  %s",
+                    run.getName(), time.format(new Date(run.getClosedAt())),
+                    run.lineCount() - run.firstLine(), Formats.bytes(run.getCompressedBytes())));
+            item.setOnAction(e -> onReopenRun.accept(run));
+            menu.getItems().add(item);
+        }
     }
 
     /**
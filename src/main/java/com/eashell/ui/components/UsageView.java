@@ -0,0 +1,57 @@
+package com.eashell.ui.components;
+
+import com.eashell.service.ResourceSampler;
+import com.eashell.util.Constants;
+import com.eashell.util.Formats;
+import com.eashell.util.StyleManager;
+import javafx.geometry.Pos;
+import javafx.scene.control.Label;
+import javafx.scene.layout.HBox;
+
+/**
+ * LIVE RESOURCE USAGE OF ONE RUN (IN THE OUTPUT TAB'S CONTROL ROW)
+ *
+ * Visual structure:
+ *   CPU ▁▂▅▇▅  RAM ▁▁▂▂▃   37% · 412.5 MB · 5 proc
+ *       ^          ^        ^
+ *       CPU line   memory   last sample of the whole process tree
+ */
+public class UsageView extends HBox {
+    private final Sparkline cpuLine = new Sparkline(Constants.RESOURCE_HISTORY_POINTS, 100,
+            StyleManager.CONSOLE_TEXT, 60, 16);
+    private final Sparkline memoryLine = new Sparkline(Constants.RESOURCE_HISTORY_POINTS, 64 * 1024 * 1024,
+            StyleManager.ACCENT_PINK, 60, 16);
+    private final Label valuesLabel = new Label();
+
+    public UsageView() {
+        super(6);
+        setAlignment(Pos.CENTER_LEFT);
+
+        Label cpuLabel = new Label("CPU");
+        Label memoryLabel = new Label("RAM");
+        cpuLabel.setStyle(StyleManager.getUsageLabelStyle());
+        memoryLabel.setStyle(StyleManager.getUsageLabelStyle());
+        valuesLabel.setStyle(StyleManager.getUsageLabelStyle());
+
+        getChildren().addAll(cpuLabel, cpuLine, memoryLabel, memoryLine, valuesLabel);
+    }
+
+    /**
+     * Show the latest sample (JavaFX thread).
+     */
+    public void update(ResourceSampler.Usage usage) {
+        cpuLine.add(usage.getCpuPercent());
+        memoryLine.add(Math.max(0, usage.getRssBytes()));
+        valuesLabel.setText(format(usage.getCpuPercent(), usage.getRssBytes(), usage.getProcessCount()));
+    }
+
+    /**
+     * "37% · 412.5 MB · 5 proc", memory left out where it is unknown.
+     */
+    public static String format(double cpuPercent, long rssBytes, int processCount) {
+        String cpu = String.format("%.0f%%", cpuPercent);
+        return rssBytes < 0
+                ? cpu + " · " + processCount + " proc"
+                : cpu + " · " + Formats.bytes(rssBytes) + " · " + processCount + " proc";
+    }
+}
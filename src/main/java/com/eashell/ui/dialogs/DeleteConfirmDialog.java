@@ -1,6 +1,7 @@
 package com.eashell.ui.dialogs;
 
 import com.eashell.model.ScriptEntry;
+import com.eashell.model.ScriptGroup;
 import javafx.scene.control.Alert;
 import javafx.scene.control.ButtonType;
 
@@ -18,6 +19,16 @@ public class DeleteConfirmDialog {
         return result.isPresent() && result.get() == ButtonType.OK;
     }
 
+    public static boolean confirm(ScriptGroup group) {
+        Alert alert = new Alert(Alert.AlertType.CONFIRMATION);
+        alert.setTitle("Confirm Delete");
+        alert.setHeaderText("Delete group: " + group.getName());
+        alert.setContentText("The scripts of the group are kept.");
+
+        Optional<ButtonType> result = alert.showAndWait();
+        return result.isPresent() && result.get() == ButtonType.OK;
+    }
+
     public static void showAlreadyRunning() {
         Alert alert = new Alert(Alert.AlertType.WARNING);
         alert.setTitle("Already Running");
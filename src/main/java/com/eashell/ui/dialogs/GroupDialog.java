@@ -0,0 +1,176 @@
+package com.eashell.ui.dialogs;
+
+import com.eashell.model.ScriptGroup;
+import com.eashell.util.StyleManager;
+import javafx.event.ActionEvent;
+import javafx.geometry.Insets;
+import javafx.scene.control.*;
+import javafx.scene.layout.FlowPane;
+import javafx.scene.layout.GridPane;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+public class GroupDialog {
+
+    public static Optional<ScriptGroup> showAddDialog(List<String> scriptNames) {
+        return showDialog("Add New Group", "Scripts that start together", null, scriptNames);
+    }
+
+    public static Optional<ScriptGroup> showEditDialog(ScriptGroup existingGroup, List<String> scriptNames) {
+        return showDialog("Edit Group", "Modify group configuration", existingGroup, scriptNames);
+    }
+
+    private static Optional<ScriptGroup> showDialog(String title, String header, ScriptGroup existingGroup,
+                                                    List<String> scriptNames) {
+        Dialog<ScriptGroup> dialog = new Dialog<>();
+        dialog.setTitle(title);
+        dialog.setHeaderText(header);
+
+        DialogPane dialogPane = dialog.getDialogPane();
+        dialogPane.setStyle(StyleManager.getDialogStyle());
+        dialogPane.getButtonTypes().addAll(ButtonType.OK, ButtonType.CANCEL);
+
+        GridPane grid = createFormGrid(existingGroup, scriptNames);
+        dialogPane.setContent(grid);
+
+        // Keep the dialog open while the form is invalid
+        Button okButton = (Button) dialogPane.lookupButton(ButtonType.OK);
+        okButton.addEventFilter(ActionEvent.ACTION, e -> {
+            String problem = validate(extractGroup(grid), scriptNames);
+            if (problem != null) {
+                dialog.setHeaderText(problem);
+                e.consume();
+            }
+        });
+
+        dialog.setResultConverter(btn -> btn == ButtonType.OK ? extractGroup(grid) : null);
+
+        return dialog.showAndWait();
+    }
+
+    private static GridPane createFormGrid(ScriptGroup existingGroup, List<String> scriptNames) {
+        GridPane grid = new GridPane();
+        grid.setHgap(10);
+        grid.setVgap(10);
+        grid.setPadding(new Insets(20));
+
+        // Name field
+        TextField nameField = new TextField();
+        nameField.setPromptText("Group Name");
+        if (existingGroup != null) {
+            nameField.setText(existingGroup.getName());
+        }
+        StyleManager.styleTextField(nameField);
+
+        // Members area, one script name per line in start order
+        TextArea scriptsArea = new TextArea();
+        scriptsArea.setPromptText("Scripts (one name per line, in start order)");
+        scriptsArea.setPrefRowCount(6);
+        if (existingGroup != null) {
+            scriptsArea.setText(String.join("\n", existingGroup.getScripts()));
+        }
+        StyleManager.styleTextArea(scriptsArea);
+
+        // One button per saved script appends its name
+        FlowPane scriptButtons = new FlowPane(6, 6);
+        for (String name : scriptNames) {
+            Button addBtn = StyleManager.createSmallButton("+ " + name, StyleManager.ACCENT_BLUE);
+            addBtn.setOnAction(e -> {
+                String text = scriptsArea.getText();
+                scriptsArea.setText(text.isBlank() ? name : text.stripTrailing() + "\n" + name);
+            });
+            scriptButtons.getChildren().add(addBtn);
+        }
+
+        // Concurrency field
+        TextField concurrencyField = new TextField();
+        concurrencyField.setPromptText("Scripts running at once (empty = all)");
+        if (existingGroup != null && existingGroup.getMaxConcurrency() > 0) {
+            concurrencyField.setText(String.valueOf(existingGroup.getMaxConcurrency()));
+        }
+        StyleManager.styleTextField(concurrencyField);
+
+        // Start delay field
+        TextField delayField = new TextField();
+        delayField.setPromptText("Start one by one, ms apart (empty = all at once)");
+        if (existingGroup != null && existingGroup.getStartDelayMs() > 0) {
+            delayField.setText(String.valueOf(existingGroup.getStartDelayMs()));
+        }
+        StyleManager.styleTextField(delayField);
+
+        // Add to grid
+        grid.add(StyleManager.createLabel("Name:"), 0, 0);
+        grid.add(nameField, 1, 0);
+        grid.add(StyleManager.createLabel("Scripts:"), 0, 1);
+        grid.add(scriptsArea, 1, 1);
+        grid.add(scriptButtons, 1, 2);
+        grid.add(StyleManager.createLabel("At once:"), 0, 3);
+        grid.add(concurrencyField, 1, 3);
+        grid.add(StyleManager.createLabel("Order:"), 0, 4);
+        grid.add(delayField, 1, 4);
+
+        // Store references for extraction
+        grid.setUserData(new FormData(nameField, scriptsArea, concurrencyField, delayField));
+
+        return grid;
+    }
+
+    /**
+     * @return what is wrong with the form, null if it can be saved
+     */
+    private static String validate(ScriptGroup group, List<String> scriptNames) {
+        if (group.getName().isEmpty()) {
+            return "The group needs a name";
+        }
+        if (group.getScripts().isEmpty()) {
+            return "Add at least one script";
+        }
+        for (String name : group.getScripts()) {
+            if (!scriptNames.contains(name)) {
+                return "Unknown script: " + name;
+            }
+        }
+        return null;
+    }
+
+    private static ScriptGroup extractGroup(GridPane grid) {
+        FormData data = (FormData) grid.getUserData();
+
+        List<String> scripts = new ArrayList<>();
+        for (String line : data.scriptsArea.getText().split("\n")) {
+            String trimmed = line.trim();
+            if (!trimmed.isEmpty() && !scripts.contains(trimmed)) {
+                scripts.add(trimmed);
+            }
+        }
+
+        ScriptGroup group = new ScriptGroup(data.nameField.getText().trim(), scripts);
+        group.setMaxConcurrency((int) Math.min(Integer.MAX_VALUE, parseOrZero(data.concurrencyField.getText())));
+        group.setStartDelayMs(parseOrZero(data.delayField.getText()));
+        return group;
+    }
+
+    private static long parseOrZero(String text) {
+        try {
+            return Math.max(0, Long.parseLong(text.trim()));
+        } catch (NumberFormatException e) {
+            return 0; // Empty or not a number - default
+        }
+    }
+
+    private static class FormData {
+        final TextField nameField;
+        final TextArea scriptsArea;
+        final TextField concurrencyField;
+        final TextField delayField;
+
+        FormData(TextField nameField, TextArea scriptsArea, TextField concurrencyField, TextField delayField) {
+            this.nameField = nameField;
+            this.scriptsArea = scriptsArea;
+            this.concurrencyField = concurrencyField;
+            this.delayField = delayField;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.eashell.ui.dialogs;
 
 import com.eashell.model.ScriptEntry;
+import com.eashell.util.Constants;
 import com.eashell.util.StyleManager;
 import javafx.geometry.Insets;
 import javafx.scene.control.*;
@@ -13,6 +14,8 @@ import java.util.List;
 import java.util.Optional;
 
 public class ScriptDialog {
+    // Index i is priority 1 - i (ScriptEntry.PRIORITY_HIGH, _NORMAL, _LOW)
+    private static final String[] PRIORITY_NAMES = {"High", "Normal", "Low"};
 
     public static Optional<ScriptEntry> showAddDialog() {
         return showDialog("Add New Script", "Configure your script", null);
@@ -77,9 +80,70 @@ public class ScriptDialog {
             }
         });
 
+        // Charset field
+        TextField charsetField = new TextField();
+        charsetField.setPromptText("Output charset (empty = system default, e.g. UTF-8)");
+        if (existingEntry != null && existingEntry.getCharset() != null) {
+            charsetField.setText(existingEntry.getCharset());
+        }
+        StyleManager.styleTextField(charsetField);
+
+        // Shell session option
+        CheckBox sessionBox = new CheckBox("Run all commands in one shell session (keeps cd / env)");
+        sessionBox.setStyle("-fx-text-fill: " + StyleManager.TEXT_SECONDARY + ";");
+        if (existingEntry != null) {
+            sessionBox.setSelected(existingEntry.isSharedSession());
+        }
+
+        // Parallel steps field
+        TextField parallelField = new TextField();
+        parallelField.setPromptText("Steps at once (empty = " + Constants.DEFAULT_STEP_PARALLELISM + ")");
+        if (existingEntry != null && existingEntry.getMaxParallel() > 0) {
+            parallelField.setText(String.valueOf(existingEntry.getMaxParallel()));
+        }
+        StyleManager.styleTextField(parallelField);
+
+        // Scheduling options
+        CheckBox heavyBox = new CheckBox("Heavy (CPU-bound build): wait for a free CPU slot");
+        heavyBox.setStyle("-fx-text-fill: " + StyleManager.TEXT_SECONDARY + ";");
+        ComboBox<String> priorityBox = new ComboBox<>();
+        priorityBox.getItems().addAll(PRIORITY_NAMES);
+        priorityBox.getSelectionModel().select(PRIORITY_NAMES[1]);
+        if (existingEntry != null) {
+            heavyBox.setSelected(existingEntry.isHeavy());
+            priorityBox.getSelectionModel().select(PRIORITY_NAMES[1 - Integer.signum(existingEntry.getPriority())]);
+        }
+
+        // Watch mode
+        CheckBox watchBox = new CheckBox("Watch: run again when files in the working directory change");
+        watchBox.setStyle("-fx-text-fill: " + StyleManager.TEXT_SECONDARY + ";");
+        TextField includeField = new TextField();
+        includeField.setPromptText("Only these files (globs, comma separated; empty = all), e.g. *.js, src/main/*.ts");
+        TextField excludeField = new TextField();
+        excludeField.setPromptText("Ignore (empty = " + String.join(", ", Constants.WATCH_DEFAULT_EXCLUDES) + ")");
+        if (existingEntry != null) {
+            watchBox.setSelected(existingEntry.isWatch());
+            includeField.setText(joinGlobs(existingEntry.getWatchInclude()));
+            excludeField.setText(joinGlobs(existingEntry.getWatchExclude()));
+        }
+        StyleManager.styleTextField(includeField);
+        StyleManager.styleTextField(excludeField);
+        includeField.disableProperty().bind(watchBox.selectedProperty().not());
+        excludeField.disableProperty().bind(watchBox.selectedProperty().not());
+
+        // Schedule
+        TextField scheduleField = new TextField();
+        scheduleField.setPromptText("Run by itself (empty = never), e.g. every 15m, @daily, 0 3 * * 1-5");
+        if (existingEntry != null && existingEntry.getSchedule() != null) {
+            scheduleField.setText(existingEntry.getSchedule());
+        }
+        StyleManager.styleTextField(scheduleField);
+
         // Commands area
         TextArea commandsArea = new TextArea();
-        commandsArea.setPromptText("Commands (one per line)\nExample:\nnpm install\nnode index.js");
+        commandsArea.setPromptText("Commands (one per line)\nExample:\nnpm install\nnode index.js\n\n"
+                + "Parallel steps: [id] cmd, [id: dep1, dep2] cmd\n"
+                + "Skip when unchanged: cmd #cache: inputs -> outputs");
         commandsArea.setPrefRowCount(5);
         if (existingEntry != null) {
             commandsArea.setText(String.join("\n", existingEntry.getCommands()));
@@ -94,9 +158,25 @@ public class ScriptDialog {
         grid.add(browseBtn, 2, 1);
         grid.add(StyleManager.createLabel("Commands:"), 0, 2);
         grid.add(commandsArea, 1, 2, 2, 1);
+        grid.add(StyleManager.createLabel("Charset:"), 0, 3);
+        grid.add(charsetField, 1, 3);
+        grid.add(sessionBox, 1, 4, 2, 1);
+        grid.add(StyleManager.createLabel("Parallel:"), 0, 5);
+        grid.add(parallelField, 1, 5);
+        grid.add(heavyBox, 1, 6, 2, 1);
+        grid.add(StyleManager.createLabel("Priority:"), 0, 7);
+        grid.add(priorityBox, 1, 7);
+        grid.add(watchBox, 1, 8, 2, 1);
+        grid.add(StyleManager.createLabel("Watch:"), 0, 9);
+        grid.add(includeField, 1, 9, 2, 1);
+        grid.add(StyleManager.createLabel("Ignore:"), 0, 10);
+        grid.add(excludeField, 1, 10, 2, 1);
+        grid.add(StyleManager.createLabel("Schedule:"), 0, 11);
+        grid.add(scheduleField, 1, 11, 2, 1);
 
         // Store references for extraction
-        grid.setUserData(new FormData(nameField, pathField, commandsArea));
+        grid.setUserData(new FormData(nameField, pathField, commandsArea, charsetField, sessionBox,
+                parallelField, heavyBox, priorityBox, watchBox, includeField, excludeField, scheduleField));
 
         return grid;
     }
@@ -116,18 +196,74 @@ public class ScriptDialog {
             }
         }
 
-        return new ScriptEntry(name, path, commands);
+        ScriptEntry entry = new ScriptEntry(name, path, commands);
+
+        String charset = data.charsetField.getText().trim();
+        entry.setCharset(charset.isEmpty() ? null : charset);
+        entry.setSharedSession(data.sessionBox.isSelected());
+
+        try {
+            entry.setMaxParallel(Math.max(0, Integer.parseInt(data.parallelField.getText().trim())));
+        } catch (NumberFormatException e) {
+            entry.setMaxParallel(0); // Empty or not a number - default
+        }
+
+        entry.setHeavy(data.heavyBox.isSelected());
+        entry.setPriority(1 - data.priorityBox.getSelectionModel().getSelectedIndex()); // High, Normal, Low
+
+        entry.setWatch(data.watchBox.isSelected());
+        entry.setWatchInclude(splitGlobs(data.includeField.getText()));
+        entry.setWatchExclude(splitGlobs(data.excludeField.getText()));
+
+        String schedule = data.scheduleField.getText().trim();
+        entry.setSchedule(schedule.isEmpty() ? null : schedule);
+
+        return entry;
+    }
+
+    private static String joinGlobs(List<String> globs) {
+        return globs == null ? "" : String.join(", ", globs);
+    }
+
+    private static List<String> splitGlobs(String text) {
+        List<String> globs = new ArrayList<>();
+        for (String glob : text.split(",")) {
+            if (!glob.isBlank()) {
+                globs.add(glob.trim());
+            }
+        }
+        return globs;
     }
 
     private static class FormData {
         final TextField nameField;
         final TextField pathField;
         final TextArea commandsArea;
+        final TextField charsetField;
+        final CheckBox sessionBox;
+        final TextField parallelField;
+        final CheckBox heavyBox;
+        final ComboBox<String> priorityBox;
+        final CheckBox watchBox;
+        final TextField includeField;
+        final TextField excludeField;
+        final TextField scheduleField;
 
-        FormData(TextField nameField, TextField pathField, TextArea commandsArea) {
+        FormData(TextField nameField, TextField pathField, TextArea commandsArea, TextField charsetField,
+                 CheckBox sessionBox, TextField parallelField, CheckBox heavyBox, ComboBox<String> priorityBox,
+                 CheckBox watchBox, TextField includeField, TextField excludeField, TextField scheduleField) {
             this.nameField = nameField;
             this.pathField = pathField;
             this.commandsArea = commandsArea;
+            this.charsetField = charsetField;
+            this.sessionBox = sessionBox;
+            this.parallelField = parallelField;
+            this.heavyBox = heavyBox;
+            this.priorityBox = priorityBox;
+            this.watchBox = watchBox;
+            this.includeField = includeField;
+            this.excludeField = excludeField;
+            this.scheduleField = scheduleField;
         }
     }
 }
\ No newline at end of file
@@ -1,23 +1,69 @@
 package com.eashell.util;
 
+import java.util.List;
+
 public class Constants {
     // Files
     public static final String DATA_FILE = "eashell_data.json";
+    public static final String GROUPS_FILE = "eashell_groups.json";
+    public static final String JOURNAL_FILE = "eashell_runs.jsonl";      // One line per finished run
+    public static final String JOURNAL_INDEX_FILE = "eashell_runs.idx";  // Fixed-size entries into it
+    public static final int JOURNAL_TOOLTIP_RUNS = 50;
+    public static final String STEP_CACHE_FILE = "eashell_step_cache.json"; // Input hashes of "#cache:" steps
 
     // Buffer settings
-    public static final int MAX_BUFFER_SIZE = 10000;
-    public static final int UI_UPDATE_INTERVAL_MS = 100;
     public static final int READER_BUFFER_SIZE = 8192;
-    public static final int FLUSH_THRESHOLD = 4096;
+    public static final int DRAIN_BUDGET_PER_FRAME = 64 * 1024; // Chars per runner per frame
+    public static final int OUTPUT_RING_SLOTS = 32;               // Chunks of READER_BUFFER_SIZE chars
+
+    // Flood mode (output faster than the console can render)
+    public static final long FLOOD_ENTER_BYTES_PER_SEC = 4L * 1024 * 1024;
+    public static final long FLOOD_EXIT_BYTES_PER_SEC = 512L * 1024;
+    public static final int FLOOD_WINDOW_MS = 250;          // Rate measurement window
+    public static final int FLOOD_MIN_DURATION_MS = 1000;   // Avoids flapping between modes
+
+    // Console & scrollback
+    public static final int CONSOLE_TAIL_LINES = 5000;           // Newest lines kept on the heap
+    public static final int CONSOLE_LINE_CACHE_SIZE = 512;       // Older lines cached after paging
+    public static final int CONSOLE_MAX_LINE_LENGTH = 16384;     // Longer lines are cut when paged
+    public static final long SCROLLBACK_MAP_WINDOW_BYTES = 32L * 1024 * 1024;
+    public static final int SCROLLBACK_CHECKPOINT_LINES = 64;          // Line offsets kept: one per 64 lines ...
+    public static final long SCROLLBACK_CHECKPOINT_BYTES = 64L * 1024; // ... or per 64 KB, whichever comes first
+    public static final String SCROLLBACK_FILE_PREFIX = "eashell-run-";
+    public static final long EXPORT_CHUNK_BYTES = 16L * 1024 * 1024;   // transferTo() slice between progress updates
+
+    // Recent runs (output of closed tabs, compressed in memory)
+    // Budget can be changed with -Deashell.history.budget=<bytes>
+    public static final long HISTORY_MEMORY_BUDGET_BYTES =
+            Long.getLong("eashell.history.budget", 16L * 1024 * 1024);
+    public static final int HISTORY_BLOCK_BYTES = 64 * 1024;     // Raw output per compressed block
+    public static final int HISTORY_MAX_RUNS = 50;
 
     // Process settings
-    public static final int PROCESS_STOP_TIMEOUT_SECONDS = 2;
+    public static final int PROCESS_STOP_TIMEOUT_SECONDS = 2;  // Whole process tree, both phases
+    public static final long PROCESS_STOP_GRACE_MS = 1500;     // Then survivors are killed forcibly
     public static final int EXECUTOR_SHUTDOWN_TIMEOUT_SECONDS = 5;
+    // Watch mode: a burst of file changes restarts the script once, this long after the last one
+    public static final long WATCH_DEBOUNCE_MS = 300;
+    public static final List<String> WATCH_DEFAULT_EXCLUDES =
+            List.of(".git", "node_modules", "target", "build", "dist", ".idea", ".gradle", "*.log");
+    // CPU / memory of running scripts: one sample of all process trees per interval
+    public static final long RESOURCE_SAMPLE_INTERVAL_MS = Long.getLong("eashell.sample.interval", 1000);
+    public static final int RESOURCE_HISTORY_POINTS = 60; // Samples shown in the sparklines
+    public static final int DEFAULT_STEP_PARALLELISM = 4; // Command graph steps running at once
+    // Heavy (CPU-bound) scripts running at once, others wait in the queue.
+    // Default: one per two cores; change with -Deashell.heavy.limit=<runs>
+    public static final int HEAVY_RUN_LIMIT =
+            Integer.getInteger("eashell.heavy.limit", Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+    // Threads for runners and output readers: platform, virtual, auto (virtual if the JVM has them).
+    // Virtual is opt-in until it is measured with many commands publishing through the capture gate
+    public static final String THREAD_MODE = System.getProperty("eashell.threads", "platform");
 
     // UI dimensions
     public static final int WINDOW_WIDTH = 1400;
     public static final int WINDOW_HEIGHT = 800;
     public static final double SPLIT_PANE_DIVIDER_POSITION = 0.4;
+    public static final double CONSOLE_LINE_HEIGHT = 17;
 
     // UI texts
     public static final String APP_TITLE = "EA Shell";
@@ -31,6 +77,7 @@ public class Constants {
     public static final String STATUS_SUCCESS = "✓";
     public static final String STATUS_ERROR = "✗";
     public static final String STATUS_TERMINATED = "⏹";
+    public static final String STATUS_QUEUED = "⏳";
 
     private Constants() {} // Prevent instantiation
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package com.eashell.util;
 
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
+import javafx.scene.control.MenuButton;
 import javafx.scene.control.TextArea;
 import javafx.scene.control.TextField;
 
@@ -23,6 +24,7 @@ public class StyleManager {
     public static final String TEXT_SECONDARY = "#b8a4e8";
     public static final String TEXT_MUTED = "#7a6b8f";
     public static final String TEXT_ACCENT = "#d4af37";
+    public static final String CONSOLE_TEXT = "#7DD3E8";
 
     public static final String BACKGROUND_TOP = "#1A0B2E";
     public static final String BACKGROUND_BOTTOM = "#2D1B3D";
@@ -183,6 +185,17 @@ public class StyleManager {
         return btn;
     }
 
+    public static MenuButton createStyledMenuButton(String text, String color) {
+        MenuButton btn = new MenuButton(text);
+        String baseStyle = getButtonStyle(color);
+        String hoverStyle = getButtonHoverStyle(color);
+
+        btn.setStyle(baseStyle);
+        btn.setOnMouseEntered(e -> btn.setStyle(hoverStyle));
+        btn.setOnMouseExited(e -> btn.setStyle(baseStyle));
+        return btn;
+    }
+
     public static Button createSmallButton(String text, String color) {
         Button btn = new Button(text);
         String baseStyle = getSmallButtonStyle(color);
@@ -304,17 +317,32 @@ public class StyleManager {
         });
     }
 
-    public static String getOutputAreaStyle() {
+    public static String getConsoleStyle() {
         return "-fx-control-inner-background: #0d0a12;" +
                 "-fx-background-color: #0d0a12;" +
-                "-fx-text-fill: " + ACCENT_ELECTRIC + ";" +
-                "-fx-text-fill: " + "#7DD3E8" + ";" +
                 "-fx-font-family: " + FONT_MONO + ";" +
                 "-fx-font-size: 12px;" +
                 "-fx-border-color: " + BORDER_COLOR + ";" +
                 "-fx-border-radius: 2;" +
                 "-fx-background-radius: 2;";
-    }// FIXME text fill choose one
+    }
+
+    public static String getUsageLabelStyle() {
+        return "-fx-text-fill: " + TEXT_SECONDARY + ";" +
+                "-fx-font-family: " + FONT_MONO + ";" +
+                "-fx-font-size: 11px;";
+    }
+
+    public static String getFloodLabelStyle() {
+        return "-fx-background-color: " + CARD_BG + ";" +
+                "-fx-text-fill: " + HEADER_ASCENT + ";" +
+                "-fx-font-family: " + FONT_MONO + ";" +
+                "-fx-font-size: 11px;" +
+                "-fx-padding: 4 8;" +
+                "-fx-border-color: " + ACCENT_RED + ";" +
+                "-fx-border-radius: 2;" +
+                "-fx-background-radius: 2;";
+    }
 
     public static String getDialogStyle() {
         return "-fx-background-color: linear-gradient(to bottom, " + CARD_BG + ", " + PRIMARY_BG + ");" +
@@ -335,6 +363,11 @@ public class StyleManager {
         label.setStyle("-fx-text-fill: " + HEADER_ASCENT + ";" );
     }
 
+    public static void setQueuedStatus(Label label) {
+        label.setText(Constants.STATUS_QUEUED);
+        label.setStyle("-fx-text-fill: " + TEXT_ACCENT + ";");
+    }
+
     public static void setStoppedStatus(Label label) {
         label.setText(Constants.STATUS_STOPPED);
         label.setStyle("-fx-text-fill: " + TEXT_MUTED + ";");
@@ -397,6 +430,28 @@ public class StyleManager {
                 ".text-area:window-unfocused { " +
                 "-fx-background-color: #0d0a12 !important; }" +
 
+                // Drop-down menus (🕘 RECENT)
+                ".context-menu { " +
+                "-fx-background-color: " + CARD_BG + ";" +
+                "-fx-border-color: " + BORDER_COLOR + "; }" +
+                ".context-menu .menu-item .label { " +
+                "-fx-text-fill: " + TEXT_PRIMARY + ";" +
+                "-fx-font-family: " + FONT_MONO + "; }" +
+                ".context-menu .menu-item:focused { " +
+                "-fx-background-color: " + CARD_HOVER_BG + "; }" +
+
+                // Console rows
+                ".console-view .list-cell { " +
+                "-fx-background-color: #0d0a12;" +
+                "-fx-text-fill: " + CONSOLE_TEXT + ";" +
+                "-fx-padding: 0 6 0 6; }" +
+                ".console-view .list-cell:selected { " +
+                "-fx-background-color: " + CARD_BG + "; }" +
+                ".console-view .list-cell:stderr { " +
+                "-fx-border-color: transparent transparent transparent " + ACCENT_RED + ";" +
+                "-fx-border-width: 0 0 0 3;" +
+                "-fx-padding: 0 6 0 3; }" +
+
                 // SplitPane
                 ".split-pane { " +
                 "-fx-background-color: #000000; " +
@@ -0,0 +1,89 @@
+package com.eashell.model;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for step headers, ordering and the critical path.
+ */
+public class CommandGraphTest {
+
+    @Test
+    public void plainCommandsFormAChain() {
+        CommandGraph graph = CommandGraph.parse(List.of("npm ci", "[ -f x ] && echo x", "node index.js"));
+
+        assertFalse(graph.hasNamedSteps());
+        assertEquals("[ -f x ] && echo x", graph.step(1).getCommand());
+        assertArrayEquals(new int[]{1}, graph.step(2).getDependsOn());
+        assertArrayEquals(new int[]{0, 1, 2}, graph.topologicalOrder());
+    }
+
+    @Test
+    public void headersDeclareDependencies() {
+        CommandGraph graph = CommandGraph.parse(List.of(
+                "[e2e: web, api] npm run e2e",
+                "[web] npm ci",
+                "[api]  mvn package",
+                "echo done"));
+
+        assertTrue(graph.hasNamedSteps());
+        assertEquals("mvn package", graph.step(2).getCommand());
+        assertArrayEquals(new int[]{1, 2}, graph.step(0).getDependsOn());
+        assertArrayEquals(new int[]{1, 2, 0, 3}, graph.topologicalOrder());
+        assertFalse(graph.step(3).isNamed());
+
+        // web 4 s -> e2e 3 s beats api 2 s -> e2e and api -> "echo done" (the line above it)
+        assertArrayEquals(new int[]{1, 0}, graph.criticalPath(new long[]{3000, 4000, 2000, 10}));
+    }
+
+    @Test
+    public void failedHeaderDependencyBlocksTheChain() {
+        CommandGraph graph = CommandGraph.parse(List.of(
+                "[web] npm ci",
+                "[e2e: web] npm run e2e",
+                "[report: e2e] npm run report",
+                "echo done"));
+        boolean[] succeeded = new boolean[graph.size()];
+
+        // web failed: e2e is skipped, and with it report; the plain line still runs
+        assertTrue(graph.isBlocked(1, succeeded));
+        assertTrue(graph.isBlocked(2, succeeded));
+        assertFalse(graph.isBlocked(3, succeeded));
+        assertFalse(graph.isBlocked(0, succeeded));
+
+        succeeded[0] = true;
+        assertFalse(graph.isBlocked(1, succeeded));
+    }
+
+    @Test
+    public void cacheNoteDeclaresInputsAndOutputs() {
+        CommandGraph graph = CommandGraph.parse(List.of(
+                "[deps] npm ci #cache: package.json, package-lock.json -> node_modules",
+                "protoc api.proto #cache: proto/**",
+                "echo '#cache: not a note'"));
+
+        assertEquals("npm ci", graph.step(0).getCommand());
+        assertEquals(List.of("package.json", "package-lock.json"), graph.step(0).getInputs());
+        assertEquals(List.of("node_modules"), graph.step(0).getOutputs());
+        assertTrue(graph.step(1).isCached());
+        assertEquals(List.of(), graph.step(1).getOutputs());
+        assertFalse(graph.step(2).isCached());
+    }
+
+    @Test
+    public void rejectsBrokenGraphs() {
+        assertThrows(IllegalArgumentException.class,
+                () -> CommandGraph.parse(List.of("[a: b] x", "[b: a] y")));
+        assertThrows(IllegalArgumentException.class,
+                () -> CommandGraph.parse(List.of("[a: missing] x")));
+        assertThrows(IllegalArgumentException.class,
+                () -> CommandGraph.parse(List.of("[a] x", "[a] y")));
+    }
+}
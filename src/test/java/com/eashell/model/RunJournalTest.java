@@ -0,0 +1,80 @@
+package com.eashell.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Unit tests for the append-only run journal and its index.
+ */
+public class RunJournalTest {
+
+    @TempDir
+    Path dir;
+
+    private static RunRecord run(String name, long startedAt, long durationMs, String status) {
+        RunRecord record = new RunRecord(name, startedAt);
+        record.addCommand(new RunRecord.CommandRun("echo " + name, startedAt, durationMs, 0));
+        record.finish(startedAt + durationMs, durationMs, status);
+        return record;
+    }
+
+    @Test
+    public void answersQueriesAfterReopen() throws IOException {
+        Path journalFile = dir.resolve("runs.jsonl");
+        Path indexFile = dir.resolve("runs.idx");
+
+        try (RunJournal journal = RunJournal.open(journalFile, indexFile)) {
+            for (int i = 1; i <= 20; i++) {
+                journal.append(run("build", i, i * 100L, RunRecord.SUCCESS));
+            }
+            journal.append(run("deploy", 100, 5_000, RunRecord.FAILED));
+        }
+
+        try (RunJournal journal = RunJournal.open(journalFile, indexFile)) {
+            assertEquals(20, journal.runCount("build"));
+            assertEquals(1, journal.runCount("deploy"));
+            assertEquals(0, journal.runCount("missing"));
+
+            List<RunRecord> last = journal.lastRuns("build", 3);
+            assertEquals(3, last.size());
+            assertEquals(2000, last.get(0).getDurationMs());
+            assertEquals(1800, last.get(2).getDurationMs());
+            assertEquals(RunRecord.FAILED, journal.lastRuns("deploy", 5).get(0).getStatus());
+
+            assertEquals(1900, journal.durationPercentile("build", 0.95));
+            assertEquals(-1, journal.durationPercentile("missing", 0.95));
+        }
+    }
+
+    @Test
+    public void recoversFromTornTailAndMissingIndex() throws IOException {
+        Path journalFile = dir.resolve("runs.jsonl");
+        Path indexFile = dir.resolve("runs.idx");
+
+        try (RunJournal journal = RunJournal.open(journalFile, indexFile)) {
+            journal.append(run("build", 1, 100, RunRecord.SUCCESS));
+            journal.append(run("build", 2, 200, RunRecord.SUCCESS));
+        }
+        // Crash halfway through the next record, and lose the index
+        Files.writeString(journalFile, "{\"scriptName\":\"bui", StandardOpenOption.APPEND);
+        Files.delete(indexFile);
+
+        try (RunJournal journal = RunJournal.open(journalFile, indexFile)) {
+            assertEquals(2, journal.runCount("build"));
+            journal.append(run("build", 3, 300, RunRecord.SUCCESS));
+        }
+
+        try (RunJournal journal = RunJournal.open(journalFile, indexFile)) {
+            assertEquals(3, journal.runCount("build"));
+            assertEquals(300, journal.lastRuns("build", 1).get(0).getDurationMs());
+        }
+    }
+}
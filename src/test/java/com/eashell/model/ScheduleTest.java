@@ -0,0 +1,74 @@
+package com.eashell.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for interval and cron schedules.
+ */
+public class ScheduleTest {
+
+    private static final ZoneId ZONE = ZoneOffset.ofHours(2);
+
+    private static LocalDateTime next(String spec, String after, ZoneId zone) {
+        long millis = LocalDateTime.parse(after).atZone(zone).toInstant().toEpochMilli();
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(Schedule.parse(spec).next(millis, zone)), zone);
+    }
+
+    @Test
+    public void intervalsAreAlignedToLocalMidnight() {
+        assertEquals(LocalDateTime.parse("2026-10-18T10:15"), next("every 15m", "2026-10-18T10:07:31", ZONE));
+        assertEquals(LocalDateTime.parse("2026-10-18T10:30"), next("every 15m", "2026-10-18T10:15", ZONE));
+        assertEquals(LocalDateTime.parse("2026-10-19T00:00"), next("every 1d", "2026-10-18T10:07", ZONE));
+        assertEquals(LocalDateTime.parse("2026-10-18T12:00"), next("Every 2h", "2026-10-18T10:07", ZONE));
+        // Not a divisor of a day: starts over at midnight, the same times every day
+        assertEquals(LocalDateTime.parse("2026-10-19T00:00"), next("every 7m", "2026-10-18T23:55", ZONE));
+        assertEquals(LocalDateTime.parse("2026-10-19T00:07"), next("every 7m", "2026-10-19T00:00", ZONE));
+        assertEquals(LocalDateTime.parse("2026-10-20T00:07"), next("every 7m", "2026-10-20T00:00", ZONE));
+        assertEquals(LocalDateTime.parse("2026-10-23T00:00"), next("every 5d", "2026-10-18T00:00", ZONE));
+        assertEquals(LocalDateTime.parse("2026-10-28T00:00"), next("every 5d", "2026-10-23T00:00", ZONE));
+    }
+
+    @Test
+    public void cronFindsTheNextMatchingMinute() {
+        assertEquals(LocalDateTime.parse("2026-10-19T03:00"), next("0 3 * * *", "2026-10-18T03:00", ZONE));
+        assertEquals(LocalDateTime.parse("2026-10-19T00:00"), next("@daily", "2026-10-18T03:00", ZONE));
+        // Friday evening -> Monday morning
+        assertEquals(LocalDateTime.parse("2026-10-26T08:00"), next("0,30 8-18 * * 1-5", "2026-10-23T18:30", ZONE));
+        assertEquals(LocalDateTime.parse("2026-10-23T18:10"), next("*/10 * * * *", "2026-10-23T18:00", ZONE));
+        // Sunday as 7
+        assertEquals(LocalDateTime.parse("2026-10-25T06:00"), next("0 6 * * 7", "2026-10-18T06:00", ZONE));
+        assertEquals(LocalDateTime.parse("2028-02-29T00:00"), next("0 0 29 2 *", "2026-10-18T00:00", ZONE));
+    }
+
+    @Test
+    public void dayOrWeekdayWhenBothAreRestricted() {
+        // The 13th or any Monday
+        assertEquals(LocalDateTime.parse("2026-10-26T00:00"), next("0 0 13 * 1", "2026-10-23T12:00", ZONE));
+        assertEquals(LocalDateTime.parse("2026-11-13T00:00"), next("0 0 13 * 1", "2026-11-10T12:00", ZONE));
+    }
+
+    @Test
+    public void timeSkippedByDaylightSavingRunsAfterTheChange() {
+        ZoneId berlin = ZoneId.of("Europe/Berlin");
+        // 02:30 does not exist on 2026-03-29
+        assertEquals(LocalDateTime.parse("2026-03-29T03:30"), next("30 2 * * *", "2026-03-29T01:00", berlin));
+    }
+
+    @Test
+    public void rejectsMalformedSchedules() {
+        assertThrows(IllegalArgumentException.class, () -> Schedule.parse("daily"));
+        assertThrows(IllegalArgumentException.class, () -> Schedule.parse("every 0m"));
+        assertThrows(IllegalArgumentException.class, () -> Schedule.parse("every 36h"));
+        assertThrows(IllegalArgumentException.class, () -> Schedule.parse("61 * * * *"));
+        assertThrows(IllegalArgumentException.class, () -> Schedule.parse("0 0 * * 5-1"));
+        assertThrows(IllegalArgumentException.class, () -> Schedule.parse("0 0 30 2 *")); // Never fires
+    }
+}
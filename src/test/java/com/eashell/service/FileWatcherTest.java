@@ -0,0 +1,91 @@
+package com.eashell.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Unit tests for debouncing and filtering of file watch events.
+ */
+public class FileWatcherTest {
+    private static final long DEBOUNCE_MS = 300;
+
+    @TempDir
+    Path root;
+
+    private static void settle() throws InterruptedException {
+        Thread.sleep(DEBOUNCE_MS * 4);
+    }
+
+    @Test
+    public void burstOfChangesIsOneRestart() throws Exception {
+        Files.createDirectories(root.resolve("src/main"));
+        AtomicInteger changes = new AtomicInteger();
+        try (FileWatcher watcher = new FileWatcher(root, List.of(), List.of(), DEBOUNCE_MS, changes::incrementAndGet)) {
+            watcher.start("test");
+            settle(); // All directories registered
+
+            for (int i = 0; i < 50; i++) {
+                Files.writeString(root.resolve("src/main/File" + i + ".java"), "class File" + i + " {}");
+            }
+            settle();
+            assertEquals(1, changes.get());
+
+            Files.writeString(root.resolve("src/main/File0.java"), "class File0 { int x; }");
+            settle();
+            assertEquals(2, changes.get());
+        }
+    }
+
+    @Test
+    public void globsSelectTheFilesThatCount() throws Exception {
+        Files.createDirectories(root.resolve("node_modules/lib"));
+        Files.createDirectories(root.resolve("src"));
+        AtomicInteger changes = new AtomicInteger();
+        try (FileWatcher watcher = new FileWatcher(root, List.of("*.js", "package.json"),
+                List.of("node_modules", "dist/"), DEBOUNCE_MS, changes::incrementAndGet)) {
+            watcher.start("test");
+            settle();
+
+            Files.writeString(root.resolve("node_modules/lib/index.js"), "x");
+            Files.writeString(root.resolve("src/notes.txt"), "x");
+            Files.createDirectories(root.resolve("dist"));
+            Files.writeString(root.resolve("dist/bundle.js"), "x");
+            settle();
+            assertEquals(0, changes.get());
+
+            Files.createDirectories(root.resolve("src/new"));
+            settle(); // New directory gets registered
+            Files.writeString(root.resolve("src/new/app.js"), "x");
+            settle();
+            assertEquals(1, changes.get());
+        }
+    }
+
+    @Test
+    public void filesInANewDirectoryCountBeforeItIsWatched() throws Exception {
+        AtomicInteger changes = new AtomicInteger();
+        try (FileWatcher watcher = new FileWatcher(root, List.of("*.js"), List.of(), DEBOUNCE_MS,
+                changes::incrementAndGet)) {
+            watcher.start("test");
+            settle();
+
+            // mkdir -p src/x/y && cp app.js src/x/y/ - no time to register src/x in between
+            Files.createDirectories(root.resolve("src/x/y"));
+            Files.writeString(root.resolve("src/x/y/app.js"), "x");
+            settle();
+            assertEquals(1, changes.get());
+
+            Files.createDirectories(root.resolve("docs/a"));
+            Files.writeString(root.resolve("docs/a/readme.txt"), "x");
+            settle();
+            assertEquals(1, changes.get()); // Nothing included in it
+        }
+    }
+}
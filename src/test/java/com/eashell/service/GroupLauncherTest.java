@@ -0,0 +1,77 @@
+package com.eashell.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.eashell.model.ScriptEntry;
+import com.eashell.model.ScriptGroup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the concurrency limit and start order of group launches.
+ */
+public class GroupLauncherTest {
+
+    private static List<ScriptEntry> scripts(String... names) {
+        List<ScriptEntry> entries = new ArrayList<>();
+        for (String name : names) {
+            entries.add(new ScriptEntry(name, ".", List.of("echo " + name)));
+        }
+        return entries;
+    }
+
+    @Test
+    public void startsNextMemberWhenOneFinishes() throws Exception {
+        ScriptGroup group = new ScriptGroup("stack", List.of("db", "api", "worker", "web"));
+        group.setMaxConcurrency(2);
+
+        List<String> started = new ArrayList<>();
+        BlockingQueue<Runnable> running = new LinkedBlockingQueue<>();
+        GroupLauncher launcher = new GroupLauncher(group, scripts("db", "api", "worker", "web"), Runnable::run,
+                (entry, onFinished) -> {
+                    synchronized (started) {
+                        started.add(entry.getName());
+                    }
+                    running.add(onFinished);
+                    return true;
+                }, progress -> { });
+        Thread thread = new Thread(launcher);
+        thread.start();
+
+        Runnable first = running.poll(5, TimeUnit.SECONDS);
+        Runnable second = running.poll(5, TimeUnit.SECONDS);
+        assertNull(running.poll(200, TimeUnit.MILLISECONDS)); // Limit reached
+
+        first.run();
+        first.run(); // A second call must not free a second slot
+        assertTrue(running.poll(5, TimeUnit.SECONDS) != null);
+        assertNull(running.poll(200, TimeUnit.MILLISECONDS));
+
+        second.run();
+        thread.join(5000);
+        synchronized (started) {
+            assertEquals(List.of("db", "api", "worker", "web"), started);
+        }
+    }
+
+    @Test
+    public void skippedMembersDoNotHoldASlot() throws Exception {
+        ScriptGroup group = new ScriptGroup("stack", List.of("db", "api", "web"));
+        group.setMaxConcurrency(1);
+
+        List<String> progress = new ArrayList<>();
+        GroupLauncher launcher = new GroupLauncher(group, scripts("db", "api", "web"), Runnable::run,
+                (entry, onFinished) -> false, progress::add);
+        launcher.run(); // Would block forever if a refused start kept its permit
+
+        assertEquals("0/3 started, 3 skipped", progress.get(progress.size() - 1));
+    }
+}
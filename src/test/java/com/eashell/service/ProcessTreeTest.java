@@ -0,0 +1,59 @@
+package com.eashell.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for terminating a shell together with its children (POSIX shells only).
+ */
+public class ProcessTreeTest {
+
+    @BeforeEach
+    public void posixOnly() {
+        assumeFalse(System.getProperty("os.name").toLowerCase().contains("windows"));
+    }
+
+    private static Process shell(String script, int children) throws Exception {
+        Process process = new ProcessBuilder("sh", "-c", script).start();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (process.descendants().count() < children && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        return process;
+    }
+
+    @Test
+    public void killsGrandchildrenToo() throws Exception {
+        Process process = shell("sleep 30 & sleep 30 & wait", 2);
+        List<ProcessHandle> children = process.descendants().toList();
+        assertEquals(2, children.size());
+
+        ProcessTree.Result result = ProcessTree.terminate(List.of(process.toHandle()), 1000, 2000);
+
+        assertEquals(3, result.getKilled());
+        assertEquals(0, result.getSurvivors());
+        assertFalse(process.isAlive());
+        children.forEach(child -> assertFalse(ProcessTree.isRunning(child)));
+    }
+
+    @Test
+    public void escalatesWhenTermIsIgnored() throws Exception {
+        // An ignored signal stays ignored in the child that sleep execs into
+        Process process = shell("trap '' TERM; sleep 30 & wait", 1);
+
+        ProcessTree.Result result = ProcessTree.terminate(List.of(process.toHandle()), 200, 2000);
+
+        assertEquals(2, result.getForced());
+        assertEquals(2, result.getKilled());
+        assertTrue(result.getElapsedMs() < 2000);
+        assertFalse(process.isAlive());
+    }
+}
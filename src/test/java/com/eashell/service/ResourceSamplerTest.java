@@ -0,0 +1,66 @@
+package com.eashell.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for sampling the process trees of runners (Linux only).
+ */
+public class ResourceSamplerTest {
+
+    @Test
+    public void measuresTheWholeTree() throws Exception {
+        assumeTrue(Files.isDirectory(Path.of("/proc/self")));
+
+        Process busy = new ProcessBuilder("sh", "-c", "sleep 30 & while :; do :; done").start();
+        Process idle = new ProcessBuilder("sh", "-c", "sleep 30").start();
+        try {
+            Thread.sleep(200); // Let the shell fork its sleep
+            ResourceSampler sampler = new ResourceSampler(List::of, usage -> { });
+            Map<String, List<ProcessHandle>> roots = Map.of(
+                    "busy", List.of(busy.toHandle()), "idle", List.of(idle.toHandle()), "none", List.of());
+
+            sampler.sample(roots); // Baseline
+            Thread.sleep(500);
+            Map<String, ResourceSampler.Usage> usage = sampler.sample(roots);
+
+            assertEquals(2, usage.get("busy").getProcessCount());
+            assertTrue(usage.get("busy").getCpuPercent() > 20, "busy: " + usage.get("busy").getCpuPercent());
+            assertTrue(usage.get("busy").getRssBytes() > 0);
+            assertTrue(usage.get("idle").getCpuPercent() < 20, "idle: " + usage.get("idle").getCpuPercent());
+            assertEquals(0, usage.get("none").getProcessCount());
+        } finally {
+            ProcessTree.terminate(List.of(busy.toHandle(), idle.toHandle()), 0, 1000);
+        }
+    }
+
+    @Test
+    public void countsChildrenThatExitBetweenSamples() throws Exception {
+        assumeTrue(Files.isDirectory(Path.of("/proc/self")));
+
+        // All the work is done by children that live a few milliseconds each
+        Process forks = new ProcessBuilder("sh", "-c",
+                "while :; do sh -c 'i=0; while [ $i -lt 300 ]; do i=$((i+1)); done'; done").start();
+        try {
+            ResourceSampler sampler = new ResourceSampler(List::of, usage -> { });
+            Map<String, List<ProcessHandle>> roots = Map.of("forks", List.of(forks.toHandle()));
+
+            sampler.sample(roots); // Baseline
+            Thread.sleep(1000);
+            double cpu = sampler.sample(roots).get("forks").getCpuPercent();
+
+            assertTrue(cpu > 50, "forks: " + cpu);
+            assertTrue(cpu < 150, "forks counted twice: " + cpu); // One child at a time
+        } finally {
+            ProcessTree.terminate(List.of(forks.toHandle()), 0, 1000);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.eashell.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for heavy-run slots and the priority queue.
+ */
+public class RunSchedulerTest {
+
+    private final BlockingQueue<String> started = new LinkedBlockingQueue<>();
+
+    private Runnable run(String name, CountDownLatch done) {
+        return () -> {
+            started.add(name);
+            try {
+                done.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+    }
+
+    @Test
+    public void queuesHeavyRunsByPriority() throws Exception {
+        RunScheduler scheduler = new RunScheduler(task -> new Thread(task).start(), 1);
+        CountDownLatch done = new CountDownLatch(1);
+
+        assertTrue(scheduler.submit(run("build", done), true, 0, null));
+        assertEquals("build", started.poll(5, TimeUnit.SECONDS));
+
+        assertFalse(scheduler.submit(run("low", done), true, -1, null));
+        assertFalse(scheduler.submit(run("normal", done), true, 0, null));
+        assertFalse(scheduler.submit(run("high", done), true, 1, null));
+        assertTrue(scheduler.submit(run("server", done), false, 0, null)); // Not heavy - no slot needed
+        assertEquals("server", started.poll(5, TimeUnit.SECONDS));
+        assertEquals(3, scheduler.queuedCount());
+
+        done.countDown(); // Every run ends as soon as it starts - the queue drains one by one
+        List<String> order = List.of(started.poll(5, TimeUnit.SECONDS), started.poll(5, TimeUnit.SECONDS),
+                started.poll(5, TimeUnit.SECONDS));
+        assertEquals(List.of("high", "normal", "low"), order);
+    }
+
+    @Test
+    public void releasedRunSkipsTheQueue() throws Exception {
+        RunScheduler scheduler = new RunScheduler(task -> new Thread(task).start(), 1);
+        CountDownLatch done = new CountDownLatch(1);
+
+        scheduler.submit(run("build", done), true, 0, null);
+        assertEquals("build", started.poll(5, TimeUnit.SECONDS));
+        Runnable stopped = run("stopped", new CountDownLatch(0));
+        assertFalse(scheduler.submit(stopped, true, 0, null));
+
+        scheduler.release(stopped);
+        assertEquals("stopped", started.poll(5, TimeUnit.SECONDS));
+        assertEquals(0, scheduler.queuedCount());
+        assertEquals(1, scheduler.heavyRunningCount());
+        done.countDown();
+    }
+}
@@ -0,0 +1,48 @@
+package com.eashell.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.eashell.model.Schedule;
+
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for firing and updating schedules.
+ */
+public class ScheduleTimerTest {
+
+    @Test
+    public void firesAgainAtEveryInterval() throws InterruptedException {
+        BlockingQueue<String> fired = new LinkedBlockingQueue<>();
+        ScheduleTimer timer = new ScheduleTimer(ZoneOffset.UTC, fired::add);
+        timer.sync(Map.of("sync", Schedule.parse("every 1s")));
+        timer.start();
+        try {
+            assertEquals("sync", fired.poll(3, TimeUnit.SECONDS));
+            assertEquals("sync", fired.poll(3, TimeUnit.SECONDS));
+            assertTrue(timer.nextDue("sync") > System.currentTimeMillis() - 100);
+        } finally {
+            timer.shutdown();
+        }
+    }
+
+    @Test
+    public void syncKeepsUnchangedSchedulesAndDropsRemovedOnes() {
+        ScheduleTimer timer = new ScheduleTimer(ZoneOffset.UTC, name -> { });
+        timer.sync(Map.of("cleanup", Schedule.parse("@daily"), "sync", Schedule.parse("every 1h")));
+        long due = timer.nextDue("cleanup");
+
+        timer.sync(Map.of("cleanup", Schedule.parse("@daily"), "backup", Schedule.parse("0 3 * * *")));
+
+        assertEquals(due, timer.nextDue("cleanup"));
+        assertEquals(-1, timer.nextDue("sync"));
+        assertEquals(2, timer.size());
+    }
+}
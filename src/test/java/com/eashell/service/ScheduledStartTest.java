@@ -0,0 +1,85 @@
+package com.eashell.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.eashell.model.Schedule;
+
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for scheduled starts over a run whose tab is still open.
+ */
+public class ScheduledStartTest {
+
+    /** A run as the UI keeps it: its tab stays open after it ended. */
+    private static final class Run {
+        volatile boolean ended;
+    }
+
+    private final Map<String, Run> tabs = new ConcurrentHashMap<>();
+    private final List<Run> closed = new CopyOnWriteArrayList<>();
+    private final BlockingQueue<Run> started = new LinkedBlockingQueue<>();
+
+    private ScheduledStart<Run> scheduledStart(boolean endAtOnce) {
+        return new ScheduledStart<>(Runnable::run, tabs::get, run -> run.ended,
+                (name, run) -> {
+                    tabs.remove(name, run);
+                    closed.add(run);
+                    return CompletableFuture.completedFuture(null);
+                },
+                name -> {
+                    Run run = new Run();
+                    run.ended = endAtOnce;
+                    tabs.put(name, run);
+                    started.add(run);
+                });
+    }
+
+    @Test
+    public void firesAgainWhileTheLastTabIsStillOpen() throws InterruptedException {
+        ScheduleTimer timer = new ScheduleTimer(ZoneOffset.UTC, scheduledStart(true));
+        timer.sync(Map.of("sync", Schedule.parse("every 1s")));
+        timer.start();
+        try {
+            Run first = started.poll(3, TimeUnit.SECONDS);
+            Run second = started.poll(3, TimeUnit.SECONDS);
+
+            assertNotNull(first);
+            assertNotNull(second);
+            assertSame(first, closed.get(0)); // Archived, not left behind
+            assertSame(second, tabs.get("sync"));
+        } finally {
+            timer.shutdown();
+        }
+    }
+
+    @Test
+    public void skipsWhileARunIsInProgress() {
+        ScheduledStart<Run> scheduledStart = scheduledStart(false);
+
+        scheduledStart.accept("backup");
+        Run running = started.poll();
+        scheduledStart.accept("backup");
+
+        assertEquals(0, started.size());
+        assertEquals(0, closed.size());
+        assertSame(running, tabs.get("backup"));
+
+        running.ended = true;
+        scheduledStart.accept("backup");
+        assertEquals(1, started.size());
+        assertSame(running, closed.get(0));
+    }
+}
@@ -0,0 +1,81 @@
+package com.eashell.service;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Batch wall-clock of heavy runs: all at once vs. through the RunScheduler.
+ *
+ * Not a unit test (surefire ignores it). Run after test-compile:
+ *
+ *   java -Xmx2g -cp target/classes:target/test-classes com.eashell.service.SchedulerBenchmark [builds]
+ *
+ * Each "build" is CPU- and memory-bound like a compiler: it fills a 32 MB
+ * array and sorts it with all cores (Arrays.parallelSort), three times.
+ * With every build admitted at once the builds time-slice the same cores
+ * and evict each other's caches; with HEAVY_RUN_LIMIT slots they take turns.
+ * Prints the batch time and the mean time until each build finished.
+ */
+public class SchedulerBenchmark {
+    private static final int ARRAY_INTS = 8 * 1024 * 1024;
+    private static final int PASSES = 3;
+
+    public static void main(String[] args) throws Exception {
+        int builds = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int cores = Runtime.getRuntime().availableProcessors();
+        int limit = Math.max(1, cores / 2);
+        System.out.printf("%d builds, %d cores, heavy limit %d%n", builds, cores, limit);
+
+        batch(builds, Integer.MAX_VALUE); // Warm-up
+        for (int round = 0; round < 2; round++) {
+            report("all at once", batch(builds, Integer.MAX_VALUE));
+            report("scheduled", batch(builds, limit));
+        }
+    }
+
+    private static void report(String name, long[] result) {
+        System.out.printf("  %-12s batch %6d ms   mean finish %6d ms%n", name, result[0], result[1]);
+    }
+
+    /**
+     * @return batch wall time and mean completion time, in ms
+     */
+    private static long[] batch(int builds, int limit) throws InterruptedException {
+        ExecutorService executor = RunnerThreads.newRunnerExecutor(RunnerThreads.Mode.PLATFORM);
+        RunScheduler scheduler = new RunScheduler(executor, limit);
+        CountDownLatch done = new CountDownLatch(builds);
+        long[] finishedAt = new long[builds];
+        long start = System.nanoTime();
+
+        for (int i = 0; i < builds; i++) {
+            int build = i;
+            scheduler.submit(() -> {
+                compile(build);
+                finishedAt[build] = System.nanoTime();
+                done.countDown();
+            }, true, 0, null);
+        }
+        done.await();
+        long batch = System.nanoTime() - start;
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        long mean = (long) IntStream.range(0, builds).mapToLong(i -> finishedAt[i] - start).average().orElse(0);
+        return new long[]{batch / 1_000_000, mean / 1_000_000};
+    }
+
+    private static void compile(int seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        int[] data = new int[ARRAY_INTS];
+        for (int pass = 0; pass < PASSES; pass++) {
+            for (int i = 0; i < data.length; i++) {
+                data[i] = random.nextInt();
+            }
+            Arrays.parallelSort(data);
+        }
+    }
+}
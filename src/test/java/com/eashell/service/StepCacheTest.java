@@ -0,0 +1,92 @@
+package com.eashell.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Unit tests for skipping steps whose inputs did not change.
+ */
+public class StepCacheTest {
+    private static final List<String> INPUTS = List.of("package*.json", "src/**");
+    private static final List<String> OUTPUTS = List.of("node_modules");
+
+    @TempDir
+    Path dir;
+
+    private void write(String name, String content) throws Exception {
+        Path file = dir.resolve(name);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+        // Older than the "just written" window, so size and mtime may be trusted
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().minusSeconds(60)));
+    }
+
+    @Test
+    public void skipsUntilAnInputChanges() throws Exception {
+        write("package.json", "{}");
+        write("package-lock.json", "{\"lockfileVersion\": 3}");
+        write("src/a/index.js", "a");
+        write("node_modules/left-pad/index.js", "not an input");
+        Files.createDirectories(dir.resolve("node_modules"));
+
+        StepCache cache = StepCache.open(dir.resolve("cache.json"));
+        StepCache.Check first = cache.check(dir, "npm ci", INPUTS, OUTPUTS);
+        assertFalse(first.isUpToDate());
+        assertEquals(3, first.getFileCount());
+        cache.recordSuccess(first);
+
+        // Reopened from disk: nothing changed, no file is read again
+        cache = StepCache.open(dir.resolve("cache.json"));
+        StepCache.Check second = cache.check(dir, "npm ci", INPUTS, OUTPUTS);
+        assertTrue(second.isUpToDate());
+        assertEquals(0, second.getHashedCount());
+
+        assertFalse(cache.check(dir, "npm install", INPUTS, OUTPUTS).isUpToDate()); // Other command
+
+        write("src/a/index.js", "b"); // Same size, new content and mtime
+        StepCache.Check changed = cache.check(dir, "npm ci", INPUTS, OUTPUTS);
+        assertFalse(changed.isUpToDate());
+        assertEquals(1, changed.getHashedCount());
+    }
+
+    @Test
+    public void missingOutputMeansRun() throws Exception {
+        write("package.json", "{}");
+        StepCache cache = StepCache.open(dir.resolve("cache.json"));
+        cache.recordSuccess(cache.check(dir, "npm ci", INPUTS, OUTPUTS));
+
+        assertFalse(cache.check(dir, "npm ci", INPUTS, OUTPUTS).isUpToDate()); // No node_modules
+        Files.createDirectories(dir.resolve("node_modules"));
+        assertTrue(cache.check(dir, "npm ci", INPUTS, OUTPUTS).isUpToDate());
+    }
+
+    @Test
+    public void savesOnlyChangesAndForgetsFilesNoLongerRead() throws Exception {
+        write("package.json", "{}");
+        write("src/old.js", "old");
+        Path saved = dir.resolve("cache.json");
+        StepCache cache = StepCache.open(saved);
+        cache.recordSuccess(cache.check(dir, "npm ci", INPUTS, OUTPUTS));
+        assertTrue(Files.readString(saved).contains("old.js"));
+
+        // Same inputs again: nothing to write
+        Files.delete(saved);
+        cache.recordSuccess(cache.check(dir, "npm ci", INPUTS, OUTPUTS));
+        assertFalse(Files.exists(saved));
+
+        Files.delete(dir.resolve("src/old.js"));
+        cache.recordSuccess(cache.check(dir, "npm ci", INPUTS, OUTPUTS));
+        assertFalse(Files.readString(saved).contains("old.js"));
+        assertTrue(Files.readString(saved).contains("package.json"));
+    }
+}
@@ -0,0 +1,180 @@
+package com.eashell.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Platform vs virtual threads for runners and output readers.
+ *
+ * Not a unit test (surefire ignores it). Needs a Unix shell; the virtual
+ * mode needs Java 21+. Run after test-compile, one mode per JVM:
+ *
+ *   java -cp target/classes:target/test-classes com.eashell.service.ThreadModelBenchmark platform
+ *   java -cp target/classes:target/test-classes com.eashell.service.ThreadModelBenchmark virtual
+ *
+ * 1. Spawn latency: time from handing a task to the executor / starting a
+ *    reader until the task runs, averaged over 20,000 empty tasks.
+ * 2. Parked load: SCRIPTS runners, each running one "sleep" command with its
+ *    two readers blocked in read() - the shape of 20 long-running scripts.
+ *    While everything is parked: OS threads of the process (/proc, or the
+ *    JVM's platform thread count), resident memory and used heap.
+ *
+ * Note for reading the numbers: on JDK 21 a virtual thread blocked in a pipe
+ * read() still borrows a carrier (file I/O is not asynchronous there, the
+ * scheduler compensates with an extra OS thread), so the parked readers keep
+ * OS threads in both modes; runners waiting on onExit() do not.
+ */
+public class ThreadModelBenchmark {
+    private static final int SPAWNS = 20_000;
+    private static final int SCRIPTS = 20;
+
+    public static void main(String[] args) throws Exception {
+        RunnerThreads.Mode mode = args.length > 0 && args[0].equalsIgnoreCase("virtual")
+                ? RunnerThreads.Mode.VIRTUAL : RunnerThreads.Mode.PLATFORM;
+        if (mode == RunnerThreads.Mode.VIRTUAL && !RunnerThreads.isVirtualAvailable()) {
+            System.out.println("Virtual threads need Java 21+ (running " + Runtime.version() + ")");
+            return;
+        }
+        System.out.println("mode " + mode + " on Java " + Runtime.version());
+
+        ExecutorService executor = RunnerThreads.newRunnerExecutor(mode);
+        Snapshot idle = Snapshot.take();
+
+        // Warm-up, then measure
+        spawnLatency(executor, mode, SPAWNS / 4);
+        long[] latency = spawnLatency(executor, mode, SPAWNS);
+        System.out.printf("spawn latency   runner %6.1f us   reader %6.1f us%n",
+                latency[0] / 1e3 / SPAWNS, latency[1] / 1e3 / SPAWNS);
+
+        Snapshot parked = parkedLoad(executor, mode);
+        System.out.printf("idle            %s%n", idle);
+        System.out.printf("%2d scripts      %s%n", SCRIPTS, parked);
+        System.out.printf("per script      %+.1f OS threads, %+.1f KB RSS, %+.1f KB heap%n",
+                (parked.osThreads - idle.osThreads) / (double) SCRIPTS,
+                (parked.rssKb - idle.rssKb) / (double) SCRIPTS,
+                (parked.heapKb - idle.heapKb) / (double) SCRIPTS);
+
+        executor.shutdownNow();
+    }
+
+    /**
+     * Total nanos from submit/start to the first line of the task: {runner, reader}.
+     */
+    private static long[] spawnLatency(ExecutorService executor, RunnerThreads.Mode mode, int count)
+            throws InterruptedException {
+        long[] totals = new long[2];
+        for (int i = 0; i < count; i++) {
+            long[] startedAt = new long[1];
+            CountDownLatch done = new CountDownLatch(1);
+
+            long submitted = System.nanoTime();
+            executor.execute(() -> {
+                startedAt[0] = System.nanoTime();
+                done.countDown();
+            });
+            done.await();
+            totals[0] += startedAt[0] - submitted;
+
+            long started = System.nanoTime();
+            long[] readerAt = new long[1];
+            Thread reader = RunnerThreads.startReader(mode, () -> readerAt[0] = System.nanoTime());
+            reader.join();
+            totals[1] += readerAt[0] - started;
+        }
+        return totals;
+    }
+
+    /**
+     * Start SCRIPTS runners like ProcessRunner does and measure while all are parked.
+     */
+    private static Snapshot parkedLoad(ExecutorService executor, RunnerThreads.Mode mode) throws Exception {
+        CountDownLatch allParked = new CountDownLatch(SCRIPTS);
+        List<Process> processes = new ArrayList<>();
+
+        for (int i = 0; i < SCRIPTS; i++) {
+            Process process = new ProcessBuilder("sh", "-c", "sleep 3").start();
+            processes.add(process);
+            executor.execute(() -> {
+                Thread out = RunnerThreads.startReader(mode, () -> drain(process.getInputStream()));
+                Thread err = RunnerThreads.startReader(mode, () -> drain(process.getErrorStream()));
+                allParked.countDown();
+                try {
+                    if (mode == RunnerThreads.Mode.VIRTUAL) {
+                        process.onExit().get();
+                    } else {
+                        process.waitFor();
+                    }
+                    out.join();
+                    err.join();
+                } catch (Exception e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+
+        allParked.await();
+        Thread.sleep(500); // Let every reader reach its blocking read
+        Snapshot snapshot = Snapshot.take();
+
+        for (Process process : processes) {
+            process.waitFor(10, TimeUnit.SECONDS);
+        }
+        return snapshot;
+    }
+
+    private static void drain(InputStream in) {
+        byte[] buffer = new byte[8192];
+        try (in) {
+            while (in.read(buffer) != -1) {
+                // Commands print nothing - the reader just stays parked
+            }
+        } catch (IOException ignored) {
+            // Pipe closed
+        }
+    }
+
+    private static final class Snapshot {
+        final int osThreads;
+        final long rssKb;
+        final long heapKb;
+
+        private Snapshot(int osThreads, long rssKb, long heapKb) {
+            this.osThreads = osThreads;
+            this.rssKb = rssKb;
+            this.heapKb = heapKb;
+        }
+
+        static Snapshot take() throws IOException {
+            System.gc();
+            Runtime runtime = Runtime.getRuntime();
+            long heapKb = (runtime.totalMemory() - runtime.freeMemory()) / 1024;
+
+            int threads = ManagementFactory.getThreadMXBean().getThreadCount();
+            long rssKb = -1;
+            Path status = Path.of("/proc/self/status");
+            if (Files.exists(status)) {
+                for (String line : Files.readAllLines(status)) {
+                    if (line.startsWith("Threads:")) {
+                        threads = Integer.parseInt(line.substring(8).trim());
+                    } else if (line.startsWith("VmRSS:")) {
+                        rssKb = Long.parseLong(line.substring(6).replace("kB", "").trim());
+                    }
+                }
+            }
+            return new Snapshot(threads, rssKb, heapKb);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%4d OS threads   %8d KB RSS   %8d KB heap", osThreads, rssKb, heapKb);
+        }
+    }
+}
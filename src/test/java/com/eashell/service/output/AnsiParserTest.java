@@ -0,0 +1,83 @@
+package com.eashell.service.output;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the streaming ANSI parser.
+ */
+public class AnsiParserTest {
+
+    private static String feed(AnsiParser parser, String text) {
+        char[] chars = text.toCharArray();
+        int length = parser.process(chars, chars.length);
+        return new String(parser.output(), 0, length);
+    }
+
+    @Test
+    public void keepsSequenceSplitAcrossChunks() {
+        AnsiParser parser = new AnsiParser(null);
+
+        String text = feed(parser, "ok \u001B[3") + feed(parser, "1mred\u001B[0m done");
+
+        AnsiStyle red = AnsiStyle.intern(AnsiStyle.paletteColor(1), -1, false, false, false, false);
+        assertEquals("ok " + AnsiStyle.MARK + AnsiStyle.idChar(red.getId()) + "red"
+                + AnsiStyle.MARK + AnsiStyle.idChar(0) + " done", text);
+        assertEquals("ok red done", AnsiStyle.plain(text));
+    }
+
+    @Test
+    public void stylesAreInterned() {
+        AnsiStyle a = AnsiStyle.intern(0x112233, -1, true, false, false, true);
+        AnsiStyle b = AnsiStyle.intern(0x112233, -1, true, false, false, true);
+
+        assertSame(a, b);
+        assertSame(a, AnsiStyle.byId(a.getId()));
+    }
+
+    @Test
+    public void recordsStyleOfEveryNewLine() {
+        List<Integer> lineStyles = new ArrayList<>();
+        AnsiParser parser = new AnsiParser(lineStyles::add);
+
+        String text = feed(parser, "\u001B[1mone\ntwo\u001B[m\nthree\n");
+
+        int bold = AnsiStyle.intern(-1, -1, true, false, false, false).getId();
+        assertEquals(List.of(bold, 0, 0), lineStyles);
+        // Second line carries its own mark, so it renders without the first
+        assertEquals(AnsiStyle.MARK + "" + AnsiStyle.idChar(bold) + "two", text.split("\n")[1]);
+    }
+
+    @Test
+    public void manyStylesKeepOneLine() {
+        // Enough styles that raw ids would reach '\n' (10) and '\r' (13)
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < 32; i++) {
+            line.append("\u001B[38;2;1;2;").append(i).append('m').append(i).append(' ');
+        }
+        AnsiParser parser = new AnsiParser(null);
+
+        String text = feed(parser, line + "\u001B[m\nnext\n");
+
+        assertEquals(2, text.chars().filter(c -> c == '\n').count());
+        assertEquals(-1, text.indexOf('\r'));
+        assertTrue(text.chars().noneMatch(c -> c < ' ' && c != '\n'));
+        assertTrue(AnsiStyle.intern(0x010200 | 31, -1, false, false, false, false).getId() > 13);
+        assertTrue(AnsiStyle.plain(text).startsWith("0 1 2 "));
+    }
+
+    @Test
+    public void dropsOtherSequences() {
+        AnsiParser parser = new AnsiParser(null);
+
+        String text = feed(parser, "\u001B]0;title\u0007\u001B[2K\u001B[?25lplain\u001B[1G");
+
+        assertEquals("plain", text);
+    }
+}
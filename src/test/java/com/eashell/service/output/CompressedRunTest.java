@@ -0,0 +1,60 @@
+package com.eashell.service.output;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import com.eashell.util.Constants;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the compressed history of closed runs.
+ */
+public class CompressedRunTest {
+
+    private static ScrollbackStore storeWithLines(int count) throws IOException {
+        ScrollbackStore store = ScrollbackStore.create(StandardCharsets.UTF_8);
+        AnsiParser parser = new AnsiParser(store::recordLineStyle);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            text.append("line ").append(i).append(i == 0 ? " \u001B[32mgreen\n" : "\n");
+        }
+        text.append("partial");
+
+        byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+        store.append(bytes, 0, bytes.length);
+        char[] chars = text.toString().toCharArray();
+        parser.process(chars, chars.length);
+        return store;
+    }
+
+    @Test
+    public void readsLinesAcrossBlocks() throws IOException {
+        try (ScrollbackStore store = storeWithLines(50_000)) {
+            CompressedRun run = CompressedRun.compress("test", store, Long.MAX_VALUE);
+
+            assertEquals(0, run.firstLine());
+            assertEquals(50_001, run.lineCount());
+            assertTrue(run.getCompressedBytes() < run.getRawBytes() / 4);
+
+            int green = AnsiStyle.intern(AnsiStyle.paletteColor(2), -1, false, false, false, false).getId();
+            assertEquals(AnsiStyle.MARK + "" + AnsiStyle.idChar(green) + "line 49999", run.line(49_999));
+            assertEquals("line 0 green", AnsiStyle.plain(run.line(0)));
+            assertEquals(AnsiStyle.MARK + "" + AnsiStyle.idChar(green) + "partial", run.line(50_000));
+        }
+    }
+
+    @Test
+    public void dropsOldestBlocksOverBudget() throws IOException {
+        try (ScrollbackStore store = storeWithLines(200_000)) {
+            CompressedRun run = CompressedRun.compress("test", store, 4096);
+
+            assertTrue(run.firstLine() > 0);
+            assertTrue(run.getCompressedBytes() <= 4096 + Constants.HISTORY_BLOCK_BYTES);
+            assertEquals("partial", AnsiStyle.plain(run.line(200_000)));
+            assertEquals("", run.line(0));
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.eashell.service.output;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the reusable output decoder.
+ */
+public class OutputDecoderTest {
+
+    @Test
+    public void keepsCharacterSplitAcrossChunks() {
+        OutputDecoder decoder = new OutputDecoder(StandardCharsets.UTF_8, 16);
+        byte[] bytes = "ok ✓\n".getBytes(StandardCharsets.UTF_8); // ✓ is 3 bytes
+
+        StringBuilder text = new StringBuilder();
+        byte[] first = {bytes[0], bytes[1], bytes[2], bytes[3]};
+        byte[] second = {bytes[4], bytes[5], bytes[6]};
+
+        text.append(decoder.chars(), 0, decoder.decode(first, first.length));
+        text.append(decoder.chars(), 0, decoder.decode(second, second.length));
+
+        assertEquals("ok ✓\n", text.toString());
+    }
+
+    @Test
+    public void decodesSingleByteCharset() {
+        Charset cp1251 = Charset.forName("windows-1251");
+        OutputDecoder decoder = new OutputDecoder(cp1251, 16);
+        byte[] bytes = "Привіт".getBytes(cp1251);
+
+        int n = decoder.decode(bytes, bytes.length);
+        assertEquals("Привіт", new String(decoder.chars(), 0, n));
+    }
+
+    @Test
+    public void truncatedCharacterIsReplacedAtEnd() {
+        OutputDecoder decoder = new OutputDecoder(StandardCharsets.UTF_8, 16);
+        byte[] bytes = {'a', (byte) 0xE2, (byte) 0x9C};
+
+        int n = decoder.decode(bytes, bytes.length);
+        assertEquals("a", new String(decoder.chars(), 0, n));
+        n = decoder.finish();
+        assertEquals("�", new String(decoder.chars(), 0, n));
+    }
+
+    @Test
+    public void detectsAsciiCompatibleCharsets() {
+        assertTrue(OutputDecoder.isAsciiCompatible(StandardCharsets.UTF_8));
+        assertTrue(OutputDecoder.isAsciiCompatible(Charset.forName("IBM866")));
+        assertFalse(OutputDecoder.isAsciiCompatible(StandardCharsets.UTF_16LE));
+    }
+}
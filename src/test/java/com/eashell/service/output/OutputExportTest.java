@@ -0,0 +1,60 @@
+package com.eashell.service.output;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Unit tests for exporting a run's scrollback to a file.
+ */
+public class OutputExportTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void copiesOutputAsCaptured() throws IOException {
+        try (ScrollbackStore store = ScrollbackStore.create(StandardCharsets.UTF_8)) {
+            byte[] data = "first\n\u001B[31mred\u001B[0m\nlast".getBytes(StandardCharsets.UTF_8);
+            store.append(data, 0, data.length);
+
+            Path target = dir.resolve("out.log");
+            OutputExport export = new OutputExport(store, target);
+            // Written after the export was created - not part of it
+            store.append(data, 0, 1);
+            export.run(copied -> { });
+
+            assertNull(export.getError());
+            assertEquals(data.length, export.getTransferred());
+            assertArrayEquals(data, Files.readAllBytes(target));
+        }
+    }
+
+    @Test
+    public void cancelledExportLeavesNoFile() throws IOException {
+        try (ScrollbackStore store = ScrollbackStore.create(StandardCharsets.UTF_8)) {
+            byte[] data = new byte[64 * 1024];
+            Arrays.fill(data, (byte) 'x');
+            store.append(data, 0, data.length);
+
+            Path target = dir.resolve("out.log");
+            OutputExport export = new OutputExport(store, target);
+            export.cancel();
+            export.run(copied -> { });
+
+            assertTrue(export.isCancelled());
+            assertFalse(Files.exists(target));
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.eashell.service.output;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the grep filter handoff between rescan and reader stage.
+ */
+public class OutputFilterTest {
+
+    /** Same order as ProcessRunner: file first, then the reader stage. */
+    private static void produce(ScrollbackStore store, FilterStage stage, String text) throws IOException {
+        int firstLine = store.completedLineCount();
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        store.append(bytes, 0, bytes.length);
+        stage.accept(text.toCharArray(), text.length(), firstLine);
+    }
+
+    @Test
+    public void rescanHandsOverToReaderStage() throws IOException {
+        try (ScrollbackStore store = ScrollbackStore.create(StandardCharsets.UTF_8)) {
+            FilterStage stage = new FilterStage(store);
+            produce(store, stage, "build ok\ntest FAIL a\nte");
+
+            OutputFilter filter = new OutputFilter(OutputSearch.compile("fail", false), 0);
+            stage.setFilter(filter);
+            filter.rescan(store);
+            assertTrue(filter.isReady());
+
+            // Line 2 was half written when the filter arrived
+            produce(store, stage, "st fail b\nok\nfail c\n");
+
+            assertEquals(3, filter.size());
+            assertEquals(1, filter.line(0));
+            assertEquals(2, filter.line(1));
+            assertEquals(4, filter.line(2));
+            assertEquals(2, filter.indexOf(3));
+        }
+    }
+
+    @Test
+    public void readerStageClaimsLinesBeforeRescanEnds() throws IOException {
+        try (ScrollbackStore store = ScrollbackStore.create(StandardCharsets.UTF_8)) {
+            FilterStage stage = new FilterStage(store);
+            produce(store, stage, "fail 0\n");
+
+            OutputFilter filter = new OutputFilter(OutputSearch.compile("fail \\d", true), 0);
+            stage.setFilter(filter);
+
+            // Output arrives before the rescan starts: the stage claims from line 2 on
+            produce(store, stage, "fail 1\nfail 2\n");
+            filter.rescan(store);
+
+            assertEquals(3, filter.size());
+            assertEquals(0, filter.line(0));
+            assertEquals(1, filter.line(1));
+            assertEquals(2, filter.line(2));
+        }
+    }
+
+    @Test
+    public void errorsOnlyKeepsStderrLines() throws IOException {
+        try (ScrollbackStore store = ScrollbackStore.create(StandardCharsets.UTF_8)) {
+            FilterStage stage = new FilterStage(store);
+            produce(store, stage, "ok 0\n");
+            produceError(store, stage, "error 1\nwarning 2\n");
+
+            OutputFilter filter = new OutputFilter(null, true, 0);
+            stage.setFilter(filter);
+            filter.rescan(store);
+
+            produce(store, stage, "ok 3\n");
+            produceError(store, stage, "error 4\n");
+
+            assertEquals(3, filter.size());
+            assertEquals(1, filter.line(0));
+            assertEquals(2, filter.line(1));
+            assertEquals(4, filter.line(2));
+        }
+    }
+
+    private static void produceError(ScrollbackStore store, FilterStage stage, String text) throws IOException {
+        int firstLine = store.completedLineCount();
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        store.append(bytes, 0, bytes.length, System.nanoTime(), true);
+        stage.accept(text.toCharArray(), text.length(), firstLine);
+    }
+}
@@ -0,0 +1,116 @@
+package com.eashell.service.output;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Reader -> UI handoff: old synchronized StringBuilder vs OutputRing.
+ *
+ * Not a unit test (surefire ignores it). JMH is not available in the offline
+ * build, so this is a plain warm-up + measure harness. Run after test-compile:
+ *
+ *   java -cp target/classes:target/test-classes com.eashell.service.output.OutputHandoffBenchmark
+ *
+ * One producer thread pushes 8 K-char chunks, one consumer thread drains them
+ * with the per-frame budget and touches every char (like ConsoleBuffer does).
+ * Both designs hold at most 32 chunks; a full producer backs off for 1 us.
+ */
+public class OutputHandoffBenchmark {
+    private static final int CHUNK = 8192;
+    private static final int BUDGET = 64 * 1024;
+    private static final int CAPACITY = 32 * CHUNK;   // Same bound for both designs
+    private static final long TOTAL_CHARS = 1L << 28; // 256 M chars per run
+    private static final int RUNS = 5;
+
+    private static volatile long sink;
+
+    public static void main(String[] args) throws InterruptedException {
+        char[] chunk = new char[CHUNK];
+        for (int i = 0; i < CHUNK; i++) {
+            chunk[i] = i % 80 == 79 ? '\n' : (char) ('a' + i % 26);
+        }
+
+        for (int i = 0; i < RUNS; i++) {
+            report("synchronized StringBuilder", runSynchronized(chunk), i);
+            report("OutputRing (lock-free)    ", runRing(chunk), i);
+        }
+    }
+
+    private static void report(String name, long nanos, int run) {
+        double seconds = nanos / 1e9;
+        double mbPerSec = TOTAL_CHARS * 2 / 1e6 / seconds;
+        System.out.printf("run %d  %s  %7.1f ms  %8.1f MB/s%n", run, name, nanos / 1e6, mbPerSec);
+    }
+
+    private static long runSynchronized(char[] chunk) throws InterruptedException {
+        StringBuilder buffer = new StringBuilder();
+        long chunks = TOTAL_CHARS / CHUNK;
+
+        Thread producer = new Thread(() -> {
+            for (long i = 0; i < chunks; i++) {
+                while (true) {
+                    synchronized (buffer) {
+                        if (buffer.length() + CHUNK <= CAPACITY) {
+                            buffer.append(chunk, 0, CHUNK);
+                            break;
+                        }
+                    }
+                    LockSupport.parkNanos(1000);
+                }
+            }
+        });
+
+        long start = System.nanoTime();
+        producer.start();
+
+        long consumed = 0;
+        long checksum = 0;
+        while (consumed < TOTAL_CHARS) {
+            synchronized (buffer) {
+                int n = Math.min(buffer.length(), BUDGET);
+                for (int i = 0; i < n; i++) {
+                    checksum += buffer.charAt(i);
+                }
+                buffer.delete(0, n);
+                consumed += n;
+            }
+        }
+        producer.join();
+        sink = checksum;
+        return System.nanoTime() - start;
+    }
+
+    private static long runRing(char[] chunk) throws InterruptedException {
+        OutputRing ring = new OutputRing(32, CHUNK);
+        long chunks = TOTAL_CHARS / CHUNK;
+
+        Thread producer = new Thread(() -> {
+            for (long i = 0; i < chunks; i++) {
+                while (ring.offer(chunk, 0, CHUNK) == 0) {
+                    LockSupport.parkNanos(1000);
+                }
+            }
+        });
+
+        long start = System.nanoTime();
+        producer.start();
+
+        long consumed = 0;
+        long checksum = 0;
+        while (consumed < TOTAL_CHARS) {
+            int remaining = BUDGET;
+            CharSequence c;
+            while (remaining > 0 && (c = ring.peek()) != null) {
+                int n = ring.peekLength();
+                for (int i = 0; i < n; i++) {
+                    checksum += c.charAt(i);
+                }
+                ring.release();
+                remaining -= n;
+                consumed += n;
+            }
+        }
+        producer.join();
+        sink = checksum;
+        return System.nanoTime() - start;
+    }
+}
@@ -0,0 +1,57 @@
+package com.eashell.service.output;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for find-in-output over the scrollback.
+ */
+public class OutputSearchTest {
+
+    private static void append(ScrollbackStore store, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        store.append(bytes, 0, bytes.length);
+    }
+
+    @Test
+    public void findsMatchesAndContinuesOnNewLines() throws IOException {
+        try (ScrollbackStore store = ScrollbackStore.create(StandardCharsets.UTF_8)) {
+            append(store, "ok\n\u001B[31mERROR\u001B[0m one\nok\n");
+
+            OutputSearch search = new OutputSearch(store, "error", false, 0);
+            search.scan(() -> { });
+            assertEquals(1, search.matchCount());
+            assertEquals(1, search.next());
+
+            append(store, "error two\n");
+            assertTrue(search.hasUnscannedLines());
+            search.scan(() -> { });
+            assertFalse(search.hasUnscannedLines());
+
+            assertEquals(2, search.matchCount());
+            assertEquals(3, search.next());
+            assertEquals(1, search.next()); // Wraps around
+            assertEquals(3, search.previous());
+        }
+    }
+
+    @Test
+    public void reportsInvalidRegex() throws IOException {
+        try (ScrollbackStore store = ScrollbackStore.create(StandardCharsets.UTF_8)) {
+            append(store, "text\n");
+
+            OutputSearch search = new OutputSearch(store, "[unclosed", true, 0);
+            search.scan(() -> { });
+
+            assertNotNull(search.getError());
+            assertEquals(-1, search.next());
+        }
+    }
+}
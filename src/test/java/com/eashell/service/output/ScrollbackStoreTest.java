@@ -0,0 +1,123 @@
+package com.eashell.service.output;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import com.eashell.util.Constants;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the disk-backed scrollback.
+ */
+public class ScrollbackStoreTest {
+
+    @Test
+    public void splitsChunksIntoLines() throws IOException {
+        try (ScrollbackStore store = ScrollbackStore.create(StandardCharsets.UTF_8)) {
+            append(store, "first\nsec");
+            append(store, "ond\r\nthi");
+
+            ScrollbackStore.Reader reader = store.newReader();
+            assertEquals(3, store.lineCount());
+            assertEquals("first", reader.line(0));
+            assertEquals("second", reader.line(1));
+            assertEquals("thi", reader.line(2));
+
+            append(store, "rd\n");
+            assertEquals(3, store.lineCount());
+            assertEquals("third", reader.line(2));
+        }
+    }
+
+    @Test
+    public void decodesWithStoreCharset() throws IOException {
+        try (ScrollbackStore store = ScrollbackStore.create(StandardCharsets.UTF_8)) {
+            append(store, "збірка ✓\n");
+            assertEquals("збірка ✓", store.newReader().line(0));
+        }
+    }
+
+    @Test
+    public void indexesStderrLinesAndTimes() throws IOException {
+        try (ScrollbackStore store = ScrollbackStore.create(StandardCharsets.UTF_8)) {
+            long start = System.nanoTime();
+            byte[] out = "out 0\nout 1\n".getBytes(StandardCharsets.UTF_8);
+            byte[] err = "err 2\nerr 3\n".getBytes(StandardCharsets.UTF_8);
+            store.append(out, 0, out.length, start, false);
+            store.append(err, 0, err.length, start + 5_000_000, true);
+            store.append(out, 0, 4, start + 9_000_000, false);
+
+            assertFalse(store.isErrorLine(1));
+            assertTrue(store.isErrorLine(2));
+            assertTrue(store.isErrorLine(3));
+            assertFalse(store.isErrorLine(4));
+            assertEquals(2, store.errorLineCount());
+            assertEquals(2, store.nextErrorLine(0));
+            assertEquals(Integer.MAX_VALUE, store.nextErrorLine(4));
+
+            assertTrue(store.lineTime(2) - store.lineTime(1) >= 4_000);
+            assertEquals(store.lineTime(2), store.lineTime(3)); // Same read
+            assertEquals(-1, store.lineTime(5));
+        }
+    }
+
+    @Test
+    public void findsLinesBetweenCheckpoints() throws IOException {
+        try (ScrollbackStore store = ScrollbackStore.create(StandardCharsets.UTF_8)) {
+            // Short lines, and every 1000th one longer than a checkpoint block
+            StringBuilder text = new StringBuilder();
+            for (int i = 0; i < 5000; i++) {
+                text.append(i).append(i % 1000 == 999 ? "x".repeat(100_000) : "").append('\n');
+                store.recordLineStyle(i / 100 % 2); // Two changes per 200 lines
+            }
+            append(store, text.toString());
+            assertEquals(5000, store.completedLineCount());
+
+            // Backwards, so the reader cannot walk on from the line before
+            ScrollbackStore.Reader reader = store.newReader();
+            for (int i = 4999; i >= 0; i -= 7) {
+                assertTrue(reader.line(i).startsWith(Integer.toString(i)), "line " + i);
+            }
+            assertEquals(100_004, store.lineStart(2000) - store.lineStart(1999) - 1);
+
+            assertEquals(0, store.lineStyle(100));
+            assertEquals(1, store.lineStyle(101));
+            assertEquals(1, store.lineStyle(200));
+            assertEquals(0, store.lineStyle(201));
+        }
+    }
+
+    @Test
+    public void staleSpillFilesAreSweptOpenOnesStay() throws IOException {
+        Path stale = Files.createTempFile(Constants.SCROLLBACK_FILE_PREFIX, ".log");
+        try (ScrollbackStore store = ScrollbackStore.create(StandardCharsets.UTF_8)) {
+            ScrollbackStore.deleteStaleFiles();
+
+            assertFalse(Files.exists(stale));
+            assertTrue(Files.exists(store.getFile()));
+        } finally {
+            Files.deleteIfExists(stale);
+        }
+    }
+
+    @Test
+    public void closeDeletesSpillFile() throws IOException {
+        ScrollbackStore store = ScrollbackStore.create(StandardCharsets.UTF_8);
+        append(store, "x\n");
+        store.close();
+
+        assertFalse(Files.exists(store.getFile()));
+    }
+
+    private static void append(ScrollbackStore store, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        store.append(bytes, 0, bytes.length);
+    }
+}
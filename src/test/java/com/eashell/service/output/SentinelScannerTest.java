@@ -0,0 +1,44 @@
+package com.eashell.service.output;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for cutting shell-session sentinels out of raw output.
+ */
+public class SentinelScannerTest {
+
+    private final List<Integer> codes = new ArrayList<>();
+    private final SentinelScanner scanner = new SentinelScanner("TOK", codes::add);
+
+    private String filter(String chunk) {
+        byte[] bytes = chunk.getBytes(StandardCharsets.UTF_8);
+        int length = scanner.filter(bytes, bytes.length);
+        scanner.fireSentinels();
+        return new String(scanner.output(), 0, length, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void removesSentinelsSplitAcrossReads() {
+        assertEquals("build ok\n", filter("build ok\n\u001ETO"));
+        assertEquals(List.of(), codes);
+        assertEquals("partial", filter("K:2\npartial\u001ETOK:0\n"));
+        assertEquals(List.of(2, 0), codes);
+        assertEquals("", filter("\u001ETOK:\r\n"));
+        assertEquals(List.of(2, 0, -1), codes);
+    }
+
+    @Test
+    public void releasesBytesThatAreNoSentinel() {
+        assertEquals("a", filter("a\u001ETO"));
+        assertEquals("\u001ETOX \u001ETOK:1x", filter("X \u001ETOK:1x"));
+        assertEquals("\u001ET", filter("\u001ET") + new String(scanner.output(), 0, scanner.flush(),
+                StandardCharsets.UTF_8));
+        assertEquals(List.of(), codes);
+    }
+}